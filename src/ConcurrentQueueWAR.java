@@ -0,0 +1,297 @@
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * @author Connor Flint
+ *
+ * ConcurrentQueueWAR lets many threads share one QueueWAR. Producers calling addNewPlayer never
+ * touch the heap: each thread is mapped to one of several striped insert buffers, each with its
+ * own lock, so producers on different stripes don't contend. Consumers calling removeBestPlayer
+ * or checkHighestPlayer take the heap lock and first merge every buffered player into the heap
+ * with one QueueWAR.addAll per stripe. A producer whose stripe fills up merges it itself if the
+ * heap lock happens to be free, so buffers stay small without producers ever waiting on the heap.
+ *
+ * If the heap rejects a batch, for example an IndexedQueueWAR that already holds one of its
+ * names, the batch is split: its players are added one at a time, and any the heap rejects on
+ * their own are set aside instead of being retried. takeRejected hands them back, so one bad
+ * player never blocks the players buffered with it or the consumers waiting on them.
+ *
+ * The wrapped QueueWAR must only be used through this class once it is wrapped.
+ */
+public class ConcurrentQueueWAR {
+	public static final int DEFAULT_BATCH_SIZE = 1024;
+
+	private final QueueWAR heap;
+	private final ReentrantLock heapLock = new ReentrantLock();
+	private final Stripe[] stripes;
+	private final int batchSize;
+	private final LongAdder buffered = new LongAdder();
+	private Player[] rejected = new Player[0]; // guarded by heapLock
+	private int rejectedCount;
+
+	/**
+	 * Insert buffer for the producers mapped to one stripe
+	 */
+	private static final class Stripe {
+		final ReentrantLock lock = new ReentrantLock();
+		Player[] buffer;
+		int count;
+
+		// keeps neighbouring stripes' hot fields off the same cache line
+		long p1, p2, p3, p4, p5, p6, p7;
+
+		Stripe(int capacity) {
+			buffer = new Player[capacity];
+		}
+	}
+
+	/**
+	 * Creates a ConcurrentQueueWAR around a new growable QueueWAR, with one stripe per core
+	 */
+	public ConcurrentQueueWAR() {
+		this(new QueueWAR(), Runtime.getRuntime().availableProcessors(), DEFAULT_BATCH_SIZE);
+	}
+
+	/**
+	 * Creates a ConcurrentQueueWAR around the given heap
+	 *
+	 * @param heap growable QueueWAR to share
+	 * @param stripeCount number of insert buffers, rounded up to a power of two
+	 * @param batchSize number of buffered players at which a producer tries to merge its stripe
+	 * @throws NullPointerException if heap is null
+	 * @throws IllegalArgumentException if heap isn't growable, or stripeCount or batchSize is
+	 *                                  less than 1
+	 */
+	public ConcurrentQueueWAR(QueueWAR heap, int stripeCount, int batchSize)
+			throws NullPointerException, IllegalArgumentException {
+		if (heap == null) {
+			throw new NullPointerException("Heap can't be null!");
+		}
+		if (!heap.isGrowable()) {
+			// a full heap would reject every merge, and consumers could never remove to make room
+			throw new IllegalArgumentException("Heap must be growable!");
+		}
+		if (stripeCount < 1 || batchSize < 1) {
+			throw new IllegalArgumentException("Stripe count and batch size must be at least 1!");
+		}
+		int count = Integer.highestOneBit(stripeCount);
+		if (count < stripeCount) {
+			count <<= 1;
+		}
+		this.heap = heap;
+		this.batchSize = batchSize;
+		this.stripes = new Stripe[count];
+		for (int i = 0; i < count; i++) {
+			stripes[i] = new Stripe(batchSize);
+		}
+	}
+
+	/**
+	 * Adds a given player. The player is buffered and becomes visible to consumers at the latest
+	 * on their next call.
+	 *
+	 * @param player to be added
+	 * @throws NullPointerException if player is null
+	 */
+	public void addNewPlayer(Player player) throws NullPointerException {
+		if (player == null) {
+			throw new NullPointerException("Player can't be null!");
+		}
+		Stripe stripe = stripeForCurrentThread();
+		boolean full;
+		stripe.lock.lock();
+		try {
+			if (stripe.count == stripe.buffer.length) {
+				stripe.buffer = Arrays.copyOf(stripe.buffer, stripe.buffer.length * 2);
+			}
+			stripe.buffer[stripe.count++] = player;
+			full = stripe.count >= batchSize;
+		} finally {
+			stripe.lock.unlock();
+		}
+		buffered.increment();
+
+		if (full && heapLock.tryLock()) {
+			try {
+				merge(stripe);
+			} finally {
+				heapLock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Returns player in queue with the highest WAR
+	 *
+	 * @return player with the highest WAR
+	 * @throws IllegalStateException if the queue is empty
+	 */
+	public Player checkHighestPlayer() throws IllegalStateException {
+		heapLock.lock();
+		try {
+			mergeAll();
+			return heap.checkHighestPlayer();
+		} finally {
+			heapLock.unlock();
+		}
+	}
+
+	/**
+	 * Removes the player with the highest WAR
+	 *
+	 * @return player that is removed
+	 * @throws IllegalStateException if the queue is empty
+	 */
+	public Player removeBestPlayer() throws IllegalStateException {
+		heapLock.lock();
+		try {
+			mergeAll();
+			return heap.removeBestPlayer();
+		} finally {
+			heapLock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the number of players in the heap plus those still buffered. While producers are
+	 * adding this is only an estimate.
+	 *
+	 * @return size of the queue
+	 */
+	public int checkQueueSize() {
+		int heapSize;
+		heapLock.lock();
+		try {
+			heapSize = heap.checkQueueSize();
+		} finally {
+			heapLock.unlock();
+		}
+		return (int) Math.min(Integer.MAX_VALUE, heapSize + buffered.sum());
+	}
+
+	/**
+	 * Returns every player, buffered ones included, from highest to lowest WAR without removing
+	 * them. The heap lock is only held while the heap is copied; the copy is sorted in parallel
+	 * afterwards, so producers and consumers aren't blocked for the sort.
+	 *
+	 * @return new array of the players in ranking order
+	 */
+	public Player[] toSortedArray() {
+		Player[] players;
+		heapLock.lock();
+		try {
+			mergeAll();
+			players = Arrays.copyOf(heap.array, heap.size);
+		} finally {
+			heapLock.unlock();
+		}
+		QueueWAR.sortByRank(players);
+		return players;
+	}
+
+	/**
+	 * Merges every buffered player into the heap
+	 */
+	public void flush() {
+		heapLock.lock();
+		try {
+			mergeAll();
+		} finally {
+			heapLock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the buffered players the heap rejected since the last call, for example players
+	 * whose name an IndexedQueueWAR already holds, and forgets them
+	 *
+	 * @return new array of rejected players, in the order they were rejected
+	 */
+	public Player[] takeRejected() {
+		heapLock.lock();
+		try {
+			Player[] taken = Arrays.copyOf(rejected, rejectedCount);
+			Arrays.fill(rejected, 0, rejectedCount, null);
+			rejectedCount = 0;
+			return taken;
+		} finally {
+			heapLock.unlock();
+		}
+	}
+
+	/**
+	 * Merges every stripe into the heap. Caller must hold the heap lock.
+	 */
+	private void mergeAll() {
+		for (int i = 0; i < stripes.length; i++) {
+			merge(stripes[i]);
+		}
+	}
+
+	/**
+	 * Moves one stripe's buffered players into the heap as a single batch. Caller must hold the
+	 * heap lock. The stripe is only locked while its buffer is copied out and while the merged
+	 * players are taken off the front of it.
+	 *
+	 * @param stripe to merge
+	 */
+	private void merge(Stripe stripe) {
+		Player[] batch;
+		stripe.lock.lock();
+		try {
+			if (stripe.count == 0) {
+				return;
+			}
+			batch = Arrays.copyOf(stripe.buffer, stripe.count);
+		} finally {
+			stripe.lock.unlock();
+		}
+		try {
+			heap.addAll(batch);
+		} catch (RuntimeException e) {
+			// addAll left the heap unchanged; find the players it objects to one at a time
+			for (int i = 0; i < batch.length; i++) {
+				try {
+					heap.addNewPlayer(batch[i]);
+				} catch (RuntimeException r) {
+					reject(batch[i]);
+				}
+			}
+		}
+		stripe.lock.lock();
+		try {
+			// producers may have appended behind the batch while it was merged
+			int rest = stripe.count - batch.length;
+			System.arraycopy(stripe.buffer, batch.length, stripe.buffer, 0, rest);
+			Arrays.fill(stripe.buffer, rest, stripe.count, null);
+			stripe.count = rest;
+		} finally {
+			stripe.lock.unlock();
+		}
+		buffered.add(-batch.length);
+	}
+
+	/**
+	 * Sets aside a player the heap rejected, for takeRejected. Caller must hold the heap lock.
+	 *
+	 * @param player that was rejected
+	 */
+	private void reject(Player player) {
+		if (rejectedCount == rejected.length) {
+			rejected = Arrays.copyOf(rejected, Math.max(16, rejectedCount * 2));
+		}
+		rejected[rejectedCount++] = player;
+	}
+
+	/**
+	 * Picks the stripe for the calling thread
+	 *
+	 * @return stripe
+	 */
+	private Stripe stripeForCurrentThread() {
+		long id = Thread.currentThread().getId();
+		int hash = (int) (id ^ (id >>> 32)) * 0x9E3779B9; // spreads consecutive thread ids
+		return stripes[(hash >>> 16) & (stripes.length - 1)];
+	}
+}
@@ -0,0 +1,172 @@
+/**
+ * @author Connor Flint
+ *
+ * DaryQueueWAR is a QueueWAR whose heap gives every node d children instead of two. The tree is
+ * only log_d(n) levels deep, so removeBestPlayer visits far fewer levels, and the d children it
+ * compares at each level sit next to each other in the array, where they share cache lines
+ * instead of each level costing a fresh cache miss. Adding gets cheaper as well, since
+ * propagating up also walks fewer levels. The price is d - 1 comparisons per level on the way
+ * down instead of one, so moderate values such as 4 or 8 work best.
+ *
+ * The arity must be a power of two so child and parent indexes are computed with shifts.
+ */
+public class DaryQueueWAR extends QueueWAR {
+	public static final int DEFAULT_ARITY = 4;
+
+	private final int arity;
+	private final int shift; // log2(arity)
+
+	/**
+	 * Constructor to create a growable DaryQueueWAR with the default capacity
+	 *
+	 * @param arity number of children per node, a power of two from 2 to 64
+	 * @throws IllegalArgumentException if arity isn't a power of two from 2 to 64
+	 */
+	public DaryQueueWAR(int arity) throws IllegalArgumentException {
+		this(arity, DEFAULT_CAPACITY, DEFAULT_GROWTH_FACTOR);
+	}
+
+	/**
+	 * Constructor to create DaryQueueWAR with a fixed capacity
+	 *
+	 * @param arity number of children per node, a power of two from 2 to 64
+	 * @param arrayCapacity
+	 * @throws IllegalArgumentException if arity isn't a power of two from 2 to 64
+	 */
+	public DaryQueueWAR(int arity, int arrayCapacity) throws IllegalArgumentException {
+		super(arrayCapacity);
+		checkArity(arity);
+		this.arity = arity;
+		this.shift = Integer.numberOfTrailingZeros(arity);
+	}
+
+	/**
+	 * Constructor to create a growable DaryQueueWAR
+	 *
+	 * @param arity number of children per node, a power of two from 2 to 64
+	 * @param arrayCapacity initial capacity
+	 * @param growthFactor factor the capacity is multiplied by when the array is full
+	 * @throws IllegalArgumentException if arity isn't a power of two from 2 to 64, capacity is
+	 *                                  negative, or growthFactor is not above 1
+	 */
+	public DaryQueueWAR(int arity, int arrayCapacity, double growthFactor)
+			throws IllegalArgumentException {
+		super(arrayCapacity, growthFactor);
+		checkArity(arity);
+		this.arity = arity;
+		this.shift = Integer.numberOfTrailingZeros(arity);
+	}
+
+	/**
+	 * Creates a growable DaryQueueWAR holding the given players, built bottom-up in O(n)
+	 *
+	 * @param players to be added
+	 * @param arity number of children per node, a power of two from 2 to 64
+	 * @return new DaryQueueWAR
+	 * @throws NullPointerException if players or any player in it is null
+	 * @throws IllegalArgumentException if arity isn't a power of two from 2 to 64
+	 */
+	public static DaryQueueWAR fromArray(Player[] players, int arity) throws NullPointerException,
+	IllegalArgumentException {
+		if (players == null) {
+			throw new NullPointerException("Players can't be null!");
+		}
+		DaryQueueWAR queue = new DaryQueueWAR(arity, players.length, DEFAULT_GROWTH_FACTOR);
+		queue.addAll(players);
+		return queue;
+	}
+
+	/**
+	 * Returns the number of children per node
+	 *
+	 * @return arity
+	 */
+	public int getArity() {
+		return arity;
+	}
+
+	/**
+	 * Returns the number of children per node, for ranking()
+	 *
+	 * @return arity
+	 */
+	@Override
+	protected int arity() {
+		return arity;
+	}
+
+	/**
+	 * Checks that an arity can be used
+	 *
+	 * @param arity to check
+	 * @throws IllegalArgumentException if arity isn't a power of two from 2 to 64
+	 */
+	private static void checkArity(int arity) throws IllegalArgumentException {
+		if (arity < 2 || arity > 64 || Integer.bitCount(arity) != 1) {
+			throw new IllegalArgumentException("Arity must be a power of two from 2 to 64!");
+		}
+	}
+
+	/**
+	 * Restores the heap's order property over the whole array bottom-up
+	 */
+	@Override
+	protected void heapify() {
+		for (int i = (size - 2) >> shift; i >= 0; i--) {
+			siftDown(i);
+		}
+	}
+
+	/**
+	 * Moves the Player at index up towards the root while it is greater than its parent
+	 *
+	 * @param index to start
+	 */
+	@Override
+	protected void siftUp(int index) {
+		Player moving = array[index];
+		int start = index;
+		while (index > 0) {
+			int parentIndex = (index - 1) >>> shift;
+			Player parent = array[parentIndex];
+			if (moving.rankKey <= parent.rankKey) {
+				break;
+			}
+			array[index] = parent;
+			index = parentIndex;
+		}
+		array[index] = moving;
+		recordSiftUp(start, index);
+	}
+
+	/**
+	 * Moves the Player at index down while its greatest child is greater than it
+	 *
+	 * @param index to start
+	 */
+	@Override
+	protected void siftDown(int index) {
+		Player moving = array[index];
+		int lastParent = (size - 2) >> shift; // nodes after this have no children
+		int start = index;
+		while (index <= lastParent) {
+			int firstChild = (index << shift) + 1;
+			int lastChild = Math.min(firstChild + arity, size);
+			int greatestIndex = firstChild;
+			Player greatestChild = array[firstChild];
+			for (int child = firstChild + 1; child < lastChild; child++) {
+				if (array[child].rankKey > greatestChild.rankKey) {
+					greatestIndex = child;
+					greatestChild = array[child];
+				}
+			}
+			if (moving.rankKey >= greatestChild.rankKey) {
+				break;
+			}
+			array[index] = greatestChild;
+			index = greatestIndex;
+		}
+		array[index] = moving;
+		recordSiftDown(start, index);
+	}
+}
@@ -0,0 +1,793 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * @author Connor Flint
+ *
+ * DurableQueueWAR is an IndexedQueueWAR whose state survives a restart. Every add, remove and
+ * stat update is appended to a write-ahead log (WAL) in its data directory, and every so often
+ * the whole heap array is written to a compact binary snapshot, after which the log is emptied.
+ * Opening the directory again loads the latest snapshot and replays only the log records written
+ * after it, which is much faster than rebuilding the ranking from raw stats.
+ *
+ * Each log record carries a log sequence number (LSN) and a CRC32 checksum. The snapshot stores
+ * the LSN of the last record it includes, so records it already covers are skipped on replay,
+ * and a record torn by a crash mid-write fails its checksum and is cut off along with anything
+ * after it. Snapshots are written to a temporary file and atomically moved into place, so a
+ * crash while snapshotting leaves the previous snapshot intact.
+ *
+ * Snapshots start with a format version, and a snapshot of an unknown version is rejected
+ * rather than misread. Version 2 snapshots and ADD_V2 log records hold ranking keys in Player's
+ * earlier layout and are converted as they are read. Both snapshots and ADD records also save Player's creation sequence, and it is
+ * moved forward past them on restore, so players created after a restart still rank behind the
+ * restored players they tie with, as they would have without the restart.
+ *
+ * addAll logs a BATCH record holding the number of players, followed by one ADD record per
+ * player. On replay the players are only added once every one of those ADD records has been read
+ * intact, so a crash partway through writing a batch drops the whole batch, never part of it.
+ *
+ * The SyncPolicy decides how often the log is forced to disk, trading how many of the most
+ * recent operations a crash can lose for throughput. Records are gathered in a buffer in memory
+ * before they are written to the log file, and only the written part of the log survives the
+ * JVM crashing; only the part forced to disk survives a power failure. An operation is applied
+ * to the heap first and then logged, so an operation that throws is never logged. I/O errors
+ * while logging are thrown as UncheckedIOException.
+ */
+public class DurableQueueWAR extends IndexedQueueWAR implements Closeable {
+	/**
+	 * How often the log is forced to disk
+	 */
+	public enum SyncPolicy {
+		/** fsync after every operation; nothing acknowledged is ever lost */
+		EVERY_WRITE,
+		/**
+		 * write and fsync once every syncInterval operations; at most that many can be lost, by
+		 * a JVM crash or a power failure
+		 */
+		BATCHED,
+		/**
+		 * write every operation to the log file, but leave forcing it to disk to the operating
+		 * system, fsyncing only on snapshot, sync and close; nothing is lost if only the JVM
+		 * crashes, but a power failure loses whatever the operating system hadn't written yet
+		 */
+		OS
+	}
+
+	public static final int DEFAULT_SYNC_INTERVAL = 64;
+	public static final int DEFAULT_SNAPSHOT_INTERVAL = 100_000;
+	private static final String SNAPSHOT_FILE = "queue.snapshot";
+	private static final String LOG_FILE = "queue.wal";
+	private static final int SNAPSHOT_MAGIC = 0x57415253; // "WARS"
+	// version 1 had no version field and an int WAR per player; it reads as version 0 here
+	private static final int SNAPSHOT_VERSION = 3;
+	private static final int SNAPSHOT_VERSION_V2 = 2; // ranking keys with a 16-bit sequence
+	private static final int MAX_NAME_BYTES = 0xFFFF;
+	private static final int BUFFER_SIZE = 1 << 17; // holds at least one record of any size
+
+	// log record types
+	private static final byte ADD_V2 = 1; // an ADD with a ranking key like SNAPSHOT_VERSION_V2
+	private static final byte REMOVE = 2;
+	private static final byte UPDATE = 3;
+	private static final byte BATCH = 4; // followed by its count of ADD records
+	private static final byte ADD = 5;
+
+	private final Path directory;
+	private final SyncPolicy syncPolicy;
+	private final int syncInterval;
+	private final int snapshotInterval;
+
+	private FileChannel log;
+	private final ByteBuffer logBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+	private final CRC32 crc = new CRC32();
+	private int recordStart; // where the record being written starts in logBuffer
+	private long nextLsn = 1;
+	private long snapshotLsn;
+	private int unsynced; // records written since the last fsync
+	private int sinceSnapshot; // records logged since the last snapshot
+	private boolean recovering;
+
+	/**
+	 * Opens or creates a DurableQueueWAR in the given directory with batched syncing and the
+	 * default intervals
+	 *
+	 * @param directory to keep the snapshot and log in, created if missing
+	 * @throws NullPointerException if directory is null
+	 * @throws IOException if the directory can't be read or written, or its files are corrupt
+	 */
+	public DurableQueueWAR(Path directory) throws NullPointerException, IOException {
+		this(directory, SyncPolicy.BATCHED, DEFAULT_SYNC_INTERVAL, DEFAULT_SNAPSHOT_INTERVAL);
+	}
+
+	/**
+	 * Opens or creates a DurableQueueWAR in the given directory, restoring the snapshot and
+	 * replaying the log if they exist
+	 *
+	 * @param directory to keep the snapshot and log in, created if missing
+	 * @param syncPolicy how often the log is forced to disk
+	 * @param syncInterval operations per fsync with SyncPolicy.BATCHED
+	 * @param snapshotInterval operations logged before a snapshot is taken automatically, or 0
+	 *                         to only snapshot when snapshot() is called
+	 * @throws NullPointerException if directory or syncPolicy is null
+	 * @throws IllegalArgumentException if syncInterval is less than 1 or snapshotInterval is
+	 *                                  less than 0
+	 * @throws IOException if the directory can't be read or written, or its files are corrupt
+	 */
+	public DurableQueueWAR(Path directory, SyncPolicy syncPolicy, int syncInterval,
+			int snapshotInterval) throws NullPointerException, IllegalArgumentException,
+	IOException {
+		super();
+		if (directory == null || syncPolicy == null) {
+			throw new NullPointerException("Directory and sync policy can't be null!");
+		}
+		if (syncInterval < 1) {
+			throw new IllegalArgumentException("Sync interval must be at least 1!");
+		}
+		if (snapshotInterval < 0) {
+			throw new IllegalArgumentException("Snapshot interval can't be less than 0!");
+		}
+		this.directory = directory;
+		this.syncPolicy = syncPolicy;
+		this.syncInterval = syncInterval;
+		this.snapshotInterval = snapshotInterval;
+
+		Files.createDirectories(directory);
+		recovering = true;
+		try {
+			loadSnapshot();
+			long validEnd = replayLog();
+			log = FileChannel.open(directory.resolve(LOG_FILE), StandardOpenOption.CREATE,
+					StandardOpenOption.WRITE);
+			log.truncate(validEnd); // drops a torn record left by a crash
+			log.position(validEnd);
+		} finally {
+			recovering = false;
+		}
+	}
+
+	/**
+	 * Adds a given player and logs it
+	 *
+	 * @param player to be added
+	 * @throws NullPointerException if player is null
+	 * @throws IllegalArgumentException if a player with the same name is already queued, or its
+	 *                                  name is longer than 65535 bytes
+	 * @throws IndexOutOfBoundsException if the queue is at capacity and not growable
+	 * @throws IllegalStateException if the queue has been closed
+	 * @throws UncheckedIOException if the log can't be written
+	 */
+	@Override
+	public void addNewPlayer(Player player) throws NullPointerException,
+	IllegalArgumentException, IndexOutOfBoundsException, IllegalStateException {
+		checkWritable();
+		if (player != null) {
+			checkName(player.getName());
+		}
+		super.addNewPlayer(player);
+		if (!recovering) {
+			appendAdd(player);
+			afterWrite(1);
+		}
+	}
+
+	/**
+	 * Adds every player in the given array and logs them as one batch, which is replayed
+	 * entirely or not at all
+	 *
+	 * @param players to be added
+	 * @throws NullPointerException if players or any player in it is null
+	 * @throws IllegalArgumentException if two players share a name, a player with the same name
+	 *                                  is already queued, or a name is longer than 65535 bytes
+	 * @throws IndexOutOfBoundsException if the players don't fit and the queue isn't growable
+	 * @throws IllegalStateException if the queue has been closed
+	 * @throws UncheckedIOException if the log can't be written
+	 */
+	@Override
+	public void addAll(Player[] players) throws NullPointerException,
+	IllegalArgumentException, IndexOutOfBoundsException, IllegalStateException {
+		checkWritable();
+		if (players != null) {
+			for (int i = 0; i < players.length; i++) {
+				if (players[i] != null) {
+					checkName(players[i].getName());
+				}
+			}
+		}
+		super.addAll(players);
+		if (!recovering && players.length > 0) {
+			appendBatch(players.length);
+			for (int i = 0; i < players.length; i++) {
+				appendAdd(players[i]);
+			}
+			afterWrite(players.length);
+		}
+	}
+
+	/**
+	 * Removes Player with the highest WAR and logs it
+	 *
+	 * @return player that is removed
+	 * @throws IllegalStateException if the queue is empty or has been closed
+	 * @throws UncheckedIOException if the log can't be written
+	 */
+	@Override
+	public Player removeBestPlayer() throws IllegalStateException {
+		checkWritable();
+		Player removed = super.removeBestPlayer();
+		if (!recovering) {
+			appendRemove(removed.getName());
+			afterWrite(1);
+		}
+		return removed;
+	}
+
+	/**
+	 * Removes a queued player by name and logs it
+	 *
+	 * @param name of the player
+	 * @return the removed player, or null if no queued player has that name
+	 * @throws NullPointerException if name is null
+	 * @throws IllegalStateException if the queue has been closed
+	 * @throws UncheckedIOException if the log can't be written
+	 */
+	@Override
+	public Player removePlayer(String name) throws NullPointerException,
+	IllegalStateException {
+		checkWritable();
+		Player removed = super.removePlayer(name);
+		if (removed != null && !recovering) {
+			appendRemove(name);
+			afterWrite(1);
+		}
+		return removed;
+	}
+
+	/**
+	 * Replaces a queued player's season totals and logs it
+	 *
+	 * @param name of the player
+	 * @param goals new number of goals
+	 * @param assists new number of assists
+	 * @param penalties new number of penalties
+	 * @return the updated player
+	 * @throws NullPointerException if name is null
+	 * @throws IllegalArgumentException if no player has that name, or a stat is less than 0
+	 * @throws IllegalStateException if the queue has been closed
+	 * @throws UncheckedIOException if the log can't be written
+	 */
+	@Override
+	public Player updateStats(String name, int goals, int assists, int penalties)
+			throws NullPointerException, IllegalArgumentException, IllegalStateException {
+		checkWritable();
+		Player player = super.updateStats(name, goals, assists, penalties);
+		if (!recovering) {
+			appendUpdate(name, goals, assists, penalties);
+			afterWrite(1);
+		}
+		return player;
+	}
+
+	/**
+	 * Writes the whole heap to a new snapshot and empties the log
+	 *
+	 * @throws IOException if the snapshot or log can't be written
+	 * @throws IllegalStateException if the queue has been closed
+	 */
+	public void snapshot() throws IOException, IllegalStateException {
+		checkOpen();
+		long lsn = nextLsn - 1;
+		Path temp = directory.resolve(SNAPSHOT_FILE + ".tmp");
+		try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(
+					Channels.newOutputStream(channel), BUFFER_SIZE), new CRC32());
+			DataOutputStream out = new DataOutputStream(checked);
+			out.writeInt(SNAPSHOT_MAGIC);
+			out.writeInt(SNAPSHOT_VERSION);
+			out.writeLong(lsn);
+			out.writeLong(Player.currentSequence());
+			out.writeInt(size);
+			for (int i = 0; i < size; i++) {
+				writeName(out, array[i].getName());
+				out.writeLong(array[i].getRankKey());
+			}
+			out.writeInt((int) checked.getChecksum().getValue());
+			out.flush();
+			channel.force(true);
+		}
+		Files.move(temp, directory.resolve(SNAPSHOT_FILE), StandardCopyOption.ATOMIC_MOVE,
+				StandardCopyOption.REPLACE_EXISTING);
+		syncDirectory();
+
+		// every logged record is in the snapshot now
+		logBuffer.clear();
+		log.truncate(0);
+		log.force(true);
+		snapshotLsn = lsn;
+		unsynced = 0;
+		sinceSnapshot = 0;
+	}
+
+	/**
+	 * Forces every logged operation to disk, whatever the sync policy
+	 *
+	 * @throws IOException if the log can't be written
+	 * @throws IllegalStateException if the queue has been closed
+	 */
+	public void sync() throws IOException, IllegalStateException {
+		checkOpen();
+		flushLog();
+		log.force(false);
+		unsynced = 0;
+	}
+
+	/**
+	 * Forces the log to disk and closes it. The queue can still be read, but not changed.
+	 *
+	 * @throws IOException if the log can't be written
+	 */
+	@Override
+	public void close() throws IOException {
+		if (log == null) {
+			return;
+		}
+		try {
+			sync();
+		} finally {
+			log.close();
+			log = null;
+		}
+	}
+
+	/**
+	 * Returns the LSN of the last logged operation
+	 *
+	 * @return last LSN, or 0 if nothing has been logged
+	 */
+	public long getLastLsn() {
+		return nextLsn - 1;
+	}
+
+	/**
+	 * Returns the LSN of the last operation included in the current snapshot
+	 *
+	 * @return snapshot LSN, or 0 if there is no snapshot
+	 */
+	public long getSnapshotLsn() {
+		return snapshotLsn;
+	}
+
+	/**
+	 * Handles the sync policy and automatic snapshots after operations were logged
+	 *
+	 * @param records number of records just logged
+	 * @throws UncheckedIOException if the log or snapshot can't be written
+	 */
+	private void afterWrite(int records) throws UncheckedIOException {
+		try {
+			unsynced += records;
+			sinceSnapshot += records;
+			if (snapshotInterval > 0 && sinceSnapshot >= snapshotInterval) {
+				snapshot();
+			} else if (syncPolicy == SyncPolicy.EVERY_WRITE
+					|| (syncPolicy == SyncPolicy.BATCHED && unsynced >= syncInterval)) {
+				sync();
+			} else if (syncPolicy == SyncPolicy.OS) {
+				flushLog();
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Logs adding a player
+	 *
+	 * @param player that was added
+	 */
+	private void appendAdd(Player player) {
+		byte[] name = player.getName().getBytes(StandardCharsets.UTF_8);
+		startRecord(ADD, name, 16);
+		logBuffer.putLong(player.getRankKey());
+		logBuffer.putLong(Player.currentSequence());
+		endRecord();
+	}
+
+	/**
+	 * Logs the start of a batch of adds
+	 *
+	 * @param count number of ADD records that follow
+	 */
+	private void appendBatch(int count) {
+		startRecord(BATCH, new byte[0], 4);
+		logBuffer.putInt(count);
+		endRecord();
+	}
+
+	/**
+	 * Logs removing a player
+	 *
+	 * @param name of the player that was removed
+	 */
+	private void appendRemove(String name) {
+		startRecord(REMOVE, name.getBytes(StandardCharsets.UTF_8), 0);
+		endRecord();
+	}
+
+	/**
+	 * Logs a stat update
+	 *
+	 * @param name of the player
+	 * @param goals new number of goals
+	 * @param assists new number of assists
+	 * @param penalties new number of penalties
+	 */
+	private void appendUpdate(String name, int goals, int assists, int penalties) {
+		startRecord(UPDATE, name.getBytes(StandardCharsets.UTF_8), 12);
+		logBuffer.putInt(goals);
+		logBuffer.putInt(assists);
+		logBuffer.putInt(penalties);
+		endRecord();
+	}
+
+	/**
+	 * Starts a record in the log buffer: length and CRC placeholders, LSN, type and name
+	 *
+	 * Record layout: int length of the body, int CRC32 of the body, then the body: long LSN,
+	 * byte type, unsigned short name length, name bytes, and the type's fields.
+	 *
+	 * @param type of record
+	 * @param name UTF-8 name bytes
+	 * @param fieldBytes size of the fields written after the name
+	 * @throws UncheckedIOException if the buffer had to be flushed and the log can't be written
+	 * @throws IllegalStateException if the queue has been closed
+	 */
+	private void startRecord(byte type, byte[] name, int fieldBytes)
+			throws UncheckedIOException, IllegalStateException {
+		checkOpen();
+		int bodyLength = 8 + 1 + 2 + name.length + fieldBytes;
+		if (logBuffer.remaining() < 8 + bodyLength) {
+			try {
+				flushLog();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+		recordStart = logBuffer.position();
+		logBuffer.putInt(bodyLength);
+		logBuffer.putInt(0); // CRC, filled in by endRecord
+		logBuffer.putLong(nextLsn++);
+		logBuffer.put(type);
+		logBuffer.putShort((short) name.length);
+		logBuffer.put(name);
+	}
+
+	/**
+	 * Fills in the CRC of the record just written to the log buffer
+	 */
+	private void endRecord() {
+		int end = logBuffer.position();
+		crc.reset();
+		crc.update(logBuffer.array(), recordStart + 8, end - recordStart - 8);
+		logBuffer.putInt(recordStart + 4, (int) crc.getValue());
+	}
+
+	/**
+	 * Writes the log buffer to the log file
+	 *
+	 * @throws IOException if the log can't be written
+	 */
+	private void flushLog() throws IOException {
+		logBuffer.flip();
+		while (logBuffer.hasRemaining()) {
+			log.write(logBuffer);
+		}
+		logBuffer.clear();
+	}
+
+	/**
+	 * Loads the snapshot into the empty heap, if there is one
+	 *
+	 * @throws IOException if the snapshot can't be read or is corrupt
+	 */
+	private void loadSnapshot() throws IOException {
+		Path path = directory.resolve(SNAPSHOT_FILE);
+		if (!Files.exists(path)) {
+			return;
+		}
+		try (InputStream file = Files.newInputStream(path)) {
+			CheckedInputStream checked = new CheckedInputStream(new BufferedInputStream(file,
+					BUFFER_SIZE), new CRC32());
+			DataInputStream in = new DataInputStream(checked);
+			if (in.readInt() != SNAPSHOT_MAGIC) {
+				throw new IOException(path + " isn't a QueueWAR snapshot");
+			}
+			int version = in.readInt();
+			if (version != SNAPSHOT_VERSION && version != SNAPSHOT_VERSION_V2) {
+				throw new IOException(path + " has unsupported snapshot version " + version);
+			}
+			long lsn = in.readLong();
+			long sequence = in.readLong();
+			int count = in.readInt();
+			if (count < 0 || count > MAX_CAPACITY) {
+				throw new IOException(path + " is corrupt");
+			}
+			Player[] players = new Player[count];
+			for (int i = 0; i < count; i++) {
+				String name = readName(in);
+				long key = in.readLong();
+				players[i] = Player.fromRankKey(name, version == SNAPSHOT_VERSION_V2
+						? Player.upgradeRankKey(key) : key);
+			}
+			int expected = (int) checked.getChecksum().getValue();
+			if (in.readInt() != expected) {
+				throw new IOException(path + " is corrupt");
+			}
+			// the array is already in heap order, so addAll's heapify moves nothing
+			super.addAll(players);
+			Player.advanceSequence(sequence);
+			snapshotLsn = lsn;
+			nextLsn = lsn + 1;
+		} catch (EOFException e) {
+			throw new IOException(path + " is truncated", e);
+		}
+	}
+
+	/**
+	 * Replays the log records written after the snapshot, stopping at the first torn or
+	 * corrupt record, or at the start of a batch with a torn or corrupt record
+	 *
+	 * @return length of the valid part of the log
+	 * @throws IOException if the log can't be read, or a valid record can't be applied
+	 */
+	private long replayLog() throws IOException {
+		Path path = directory.resolve(LOG_FILE);
+		if (!Files.exists(path)) {
+			return 0;
+		}
+		long validEnd = 0;
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+				Files.newInputStream(path), BUFFER_SIZE))) {
+			byte[] body = new byte[BUFFER_SIZE];
+			while (true) {
+				int length = readRecord(in, body);
+				if (length < 0) {
+					break;
+				}
+				ByteBuffer record = ByteBuffer.wrap(body, 0, length);
+				long lsn = record.getLong();
+				long end = validEnd + 8 + length;
+				if (body[8] == BATCH) {
+					record.position(8 + 1 + 2); // a batch has no name
+					int count = record.getInt();
+					if (count < 1 || count > MAX_CAPACITY) {
+						throw new IOException("Log record " + lsn + " has a bad batch size");
+					}
+					Player[] players = new Player[count];
+					long sequence = 0;
+					long batchEnd = lsn;
+					int read = 0;
+					while (read < count && (length = readRecord(in, body)) >= 0) {
+						ByteBuffer add = ByteBuffer.wrap(body, 0, length);
+						batchEnd = add.getLong();
+						byte type = add.get();
+						if (type != ADD && type != ADD_V2) {
+							throw new IOException("Log record " + batchEnd
+									+ " is in a batch but doesn't add a player");
+						}
+						players[read++] = readAdd(add, type);
+						if (add.remaining() >= 8) {
+							sequence = Math.max(sequence, add.getLong());
+						}
+						end += 8 + length;
+					}
+					if (read < count) {
+						break; // a batch torn by a crash is dropped whole
+					}
+					if (lsn > snapshotLsn) {
+						try {
+							addAll(players);
+						} catch (RuntimeException e) {
+							throw new IOException("Log record " + lsn + " can't be replayed", e);
+						}
+						Player.advanceSequence(sequence);
+					}
+					lsn = batchEnd;
+				} else if (lsn > snapshotLsn) {
+					applyRecord(record, lsn);
+				}
+				nextLsn = Math.max(nextLsn, lsn + 1);
+				validEnd = end;
+			}
+		}
+		return validEnd;
+	}
+
+	/**
+	 * Reads the next log record's body and checks its CRC
+	 *
+	 * @param in log to read from
+	 * @param body to read the body into
+	 * @return length of the body, or -1 at the end of the log or at a torn or corrupt record
+	 * @throws IOException if the log can't be read
+	 */
+	private int readRecord(DataInputStream in, byte[] body) throws IOException {
+		int length;
+		int expected;
+		try {
+			length = in.readInt();
+			expected = in.readInt();
+			if (length < 11 || length > BUFFER_SIZE - 8) {
+				return -1;
+			}
+			in.readFully(body, 0, length);
+		} catch (EOFException e) {
+			return -1; // end of the log, or a record torn by a crash
+		}
+		crc.reset();
+		crc.update(body, 0, length);
+		return (int) crc.getValue() == expected ? length : -1;
+	}
+
+	/**
+	 * Applies one log record to the heap
+	 *
+	 * @param record positioned just after the LSN
+	 * @param lsn of the record, for error messages
+	 * @throws IOException if the record doesn't make sense for the current heap
+	 */
+	private void applyRecord(ByteBuffer record, long lsn) throws IOException {
+		try {
+			byte type = record.get();
+			String name = readName(record);
+			switch (type) {
+			case ADD:
+			case ADD_V2:
+				addNewPlayer(toPlayer(name, record.getLong(), type));
+				if (record.remaining() >= 8) { // older ADD records have no sequence
+					Player.advanceSequence(record.getLong());
+				}
+				break;
+			case REMOVE:
+				if (removePlayer(name) == null) {
+					throw new IOException("Log record " + lsn + " removes unknown player " + name);
+				}
+				break;
+			case UPDATE:
+				updateStats(name, record.getInt(), record.getInt(), record.getInt());
+				break;
+			default:
+				throw new IOException("Log record " + lsn + " has unknown type " + type);
+			}
+		} catch (RuntimeException e) {
+			throw new IOException("Log record " + lsn + " can't be replayed", e);
+		}
+	}
+
+	/**
+	 * Reads the player of an ADD or ADD_V2 record
+	 *
+	 * @param record positioned just after the type
+	 * @param type of the record
+	 * @return new Player ranking where the logged one did
+	 */
+	private static Player readAdd(ByteBuffer record, byte type) {
+		String name = readName(record);
+		return toPlayer(name, record.getLong(), type);
+	}
+
+	/**
+	 * Recreates a logged player from its ranking key, converting keys of ADD_V2 records
+	 *
+	 * @param name of the player
+	 * @param key logged ranking key
+	 * @param type of the record
+	 * @return new Player
+	 */
+	private static Player toPlayer(String name, long key, byte type) {
+		return Player.fromRankKey(name, type == ADD_V2 ? Player.upgradeRankKey(key) : key);
+	}
+
+	/**
+	 * Reads a log record's name: an unsigned short length followed by its UTF-8 bytes
+	 *
+	 * @param record positioned at the name
+	 * @return name
+	 */
+	private static String readName(ByteBuffer record) {
+		byte[] bytes = new byte[record.getShort() & 0xFFFF];
+		record.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Writes a name as an unsigned short length followed by its UTF-8 bytes
+	 *
+	 * @param out stream to write to
+	 * @param name to write
+	 * @throws IOException if the stream can't be written
+	 */
+	private static void writeName(DataOutputStream out, String name) throws IOException {
+		byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+		out.writeShort(bytes.length);
+		out.write(bytes);
+	}
+
+	/**
+	 * Reads a name written by writeName
+	 *
+	 * @param in stream to read from
+	 * @return name
+	 * @throws IOException if the stream can't be read
+	 */
+	private static String readName(DataInputStream in) throws IOException {
+		byte[] bytes = new byte[in.readUnsignedShort()];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Checks that a name fits in a log record
+	 *
+	 * @param name to check
+	 * @throws IllegalArgumentException if the name is longer than 65535 bytes in UTF-8
+	 */
+	private static void checkName(String name) throws IllegalArgumentException {
+		// a char is at most 3 UTF-8 bytes, so only long names need encoding
+		if (name.length() * 3 > MAX_NAME_BYTES
+				&& name.getBytes(StandardCharsets.UTF_8).length > MAX_NAME_BYTES) {
+			throw new IllegalArgumentException("Name is longer than " + MAX_NAME_BYTES + " bytes!");
+		}
+	}
+
+	/**
+	 * Checks that the log is still open
+	 *
+	 * @throws IllegalStateException if the queue has been closed
+	 */
+	private void checkOpen() throws IllegalStateException {
+		if (log == null) {
+			throw new IllegalStateException("DurableQueueWAR has been closed!");
+		}
+	}
+
+	/**
+	 * Checks that the queue can be changed: always while recovering, otherwise only while open
+	 *
+	 * @throws IllegalStateException if the queue has been closed
+	 */
+	private void checkWritable() throws IllegalStateException {
+		if (!recovering) {
+			checkOpen();
+		}
+	}
+
+	/**
+	 * Forces the directory entry of a moved snapshot to disk. Not every platform can open a
+	 * directory, and there the move is left to the file system.
+	 */
+	private void syncDirectory() {
+		try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+			dir.force(true);
+		} catch (IOException e) {
+			// directories can't be opened on this platform
+		}
+	}
+}
@@ -623,6 +623,2072 @@ public class HockeyWARTests extends QueueWAR{
 		return false;
 	}
 	
+	/**
+	 * Tests the growable mode of QueueWAR
+	 * 
+	 * @return true if method functions correctly, false if not
+	 */
+	public static boolean testGrowable() {
+		QueueWAR queue = new QueueWAR(2, 2.0);
+
+		// Test 1: Adding past the initial capacity grows the array
+		try {
+			for (int i = 0; i < 100; i++) {
+				queue.addNewPlayer(new Player("p" + i, i, 0, 0));
+			}
+		} catch (IndexOutOfBoundsException io) {
+			return false;
+		}
+		if (queue.checkQueueSize() != 100 || queue.checkCapacity() < 100) {
+			return false;
+		}
+		if (queue.checkHighestPlayer().getWAR() != 99) {
+			return false;
+		}
+
+		// Test 2: trimToSize and ensureCapacity
+		queue.trimToSize();
+		if (queue.checkCapacity() != 100) {
+			return false;
+		}
+		queue.ensureCapacity(500);
+		if (queue.checkCapacity() != 500) {
+			return false;
+		}
+
+		// Test 3: A fixed queue can be sized up front but still won't grow on its own
+		QueueWAR fixed = new QueueWAR(1);
+		fixed.ensureCapacity(2);
+		fixed.addNewPlayer(new Player("p1", 1, 0, 0));
+		fixed.addNewPlayer(new Player("p2", 2, 0, 0));
+		boolean testFailed = true;
+		try {
+			fixed.addNewPlayer(new Player("p3", 3, 0, 0));
+		} catch (IndexOutOfBoundsException i) {
+			testFailed = false;
+		}
+		if (testFailed == true) {
+			return false;
+		}
+
+		// Test 4: Bad growth factor
+		testFailed = true;
+		try {
+			new QueueWAR(2, 1.0);
+		} catch (IllegalArgumentException i) {
+			testFailed = false;
+		}
+		if (testFailed == true) {
+			return false;
+		}
+
+		return true;
+	}
+	
+	/**
+	 * Tests that random adds followed by removes always come out in order of highest WAR
+	 * 
+	 * @return true if method functions correctly, false if not
+	 */
+	public static boolean testHeapOrder() {
+		QueueWAR queue = new QueueWAR();
+		java.util.Random random = new java.util.Random(7);
+
+		for (int i = 0; i < 1000; i++) {
+			queue.addNewPlayer(new Player("p" + i, random.nextInt(50), random.nextInt(50),
+					random.nextInt(50)));
+		}
+
+		int previous = Integer.MAX_VALUE;
+		while (queue.checkQueueSize() > 0) {
+			int war = queue.removeBestPlayer().getWAR();
+			if (war > previous) {
+				return false;
+			}
+			previous = war;
+		}
+
+		return true;
+	}
+	
+	/**
+	 * Tests addAll() and fromArray()
+	 * 
+	 * @return true if method functions correctly, false if not
+	 */
+	public static boolean testAddAll() {
+		java.util.Random random = new java.util.Random(11);
+		Player[] players = new Player[500];
+		for (int i = 0; i < players.length; i++) {
+			players[i] = new Player("p" + i, random.nextInt(50), random.nextInt(50),
+					random.nextInt(50));
+		}
+
+		// Test 1: Bulk build is a valid heap holding every player
+		QueueWAR queue = QueueWAR.fromArray(players);
+		if (queue.checkQueueSize() != 500 || !isValidHeap(queue)) {
+			return false;
+		}
+
+		// Test 2: Small batch appended one at a time, large batch rebuilds
+		queue.addAll(java.util.Arrays.asList(players[0], players[1]));
+		queue.addAll(players);
+		if (queue.checkQueueSize() != 1002 || !isValidHeap(queue)) {
+			return false;
+		}
+
+		// Test 3: Null player leaves the queue unchanged
+		boolean testFailed = true;
+		try {
+			queue.addAll(new Player[] {players[0], null});
+		} catch (NullPointerException n) {
+			testFailed = false;
+		}
+		if (testFailed == true || queue.checkQueueSize() != 1002) {
+			return false;
+		}
+
+		// Test 4: Fixed queue too small for the batch
+		testFailed = true;
+		try {
+			new QueueWAR(3).addAll(players);
+		} catch (IndexOutOfBoundsException i) {
+			testFailed = false;
+		}
+		if (testFailed == true) {
+			return false;
+		}
+
+		return true;
+	}
+	
+	/**
+	 * Checks that every Player in a queue's array is no greater than its parent
+	 * 
+	 * @param queue to check
+	 * @return true if the heap's order property holds
+	 */
+	protected static boolean isValidHeap(QueueWAR queue) {
+		for (int i = 1; i < queue.size; i++) {
+			if (queue.array[i].compareTo(queue.array[QueueWAR.parentOf(i)]) > 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Tests SeasonFileLoader
+	 * 
+	 * @return true if method functions correctly, false if not
+	 */
+	public static boolean testSeasonFileLoader() {
+		java.nio.file.Path file;
+		try {
+			file = java.nio.file.Files.createTempFile("season", ".csv");
+			StringBuilder rows = new StringBuilder("name,goals,assists,penalties\r\n");
+			for (int i = 0; i < 10000; i++) {
+				rows.append("p").append(i).append(i % 2 == 0 ? "," : "\t").append(i % 60)
+				.append(',').append(i % 40).append(",").append(i % 20).append("\r\n");
+			}
+			rows.append("bad,row\n");
+			rows.append("negative,-1,0,0\n");
+			rows.append("last,100,100,0"); // no newline at the end
+			java.nio.file.Files.write(file, rows.toString().getBytes("UTF-8"));
+		} catch (java.io.IOException e) {
+			return false;
+		}
+
+		QueueWAR queue = new QueueWAR();
+		SeasonFileLoader loader = new SeasonFileLoader(queue, 100);
+		try {
+			// Test 1: Every good row is loaded, bad rows are skipped
+			if (loader.load(file) != 10001) {
+				return false;
+			}
+		} catch (java.io.IOException e) {
+			return false;
+		} finally {
+			file.toFile().delete();
+		}
+		if (loader.getRowsSkipped() != 2 || queue.checkQueueSize() != 10001) {
+			return false;
+		}
+
+		// Test 2: Highest player is the last row
+		if (!queue.checkHighestPlayer().toString().equals("last (WAR: 200)")) {
+			return false;
+		}
+
+		// Test 3: Integer parsing straight from bytes
+		byte[] bytes = " -2147483648 ".getBytes();
+		if (SeasonFileLoader.parseInt(bytes, 0, bytes.length) != Integer.MIN_VALUE) {
+			return false;
+		}
+		boolean testFailed = true;
+		try {
+			bytes = "2147483648".getBytes();
+			SeasonFileLoader.parseInt(bytes, 0, bytes.length);
+		} catch (NumberFormatException n) {
+			testFailed = false;
+		}
+		if (testFailed == true) {
+			return false;
+		}
+
+		// Test 4: Rows only count as loaded once the queue accepts their batch
+		QueueWAR full = new QueueWAR(2);
+		loader = new SeasonFileLoader(full, 2);
+		try {
+			file = java.nio.file.Files.createTempFile("season", ".csv");
+			java.nio.file.Files.write(file, "a,1,1,1\nb,2,2,2\nc,3,3,3\n".getBytes("UTF-8"));
+			testFailed = true;
+			try {
+				loader.load(file);
+			} catch (IndexOutOfBoundsException i) {
+				testFailed = false;
+			}
+			if (testFailed == true || loader.getRowsLoaded() != 2 || full.checkQueueSize() != 2) {
+				return false;
+			}
+
+			// Test 5: A batch the queue rejects after a read error doesn't hide the read error
+			StringBuilder longLine = new StringBuilder("d,4,4,4\n");
+			for (int i = 0; i < 70000; i++) {
+				longLine.append('x');
+			}
+			java.nio.file.Files.write(file, longLine.toString().getBytes("UTF-8"));
+			testFailed = true;
+			try {
+				loader.load(file);
+			} catch (java.io.IOException i) {
+				testFailed = i.getSuppressed().length != 1
+						|| !(i.getSuppressed()[0] instanceof IndexOutOfBoundsException);
+			}
+			if (testFailed == true || loader.getRowsLoaded() != 2) {
+				return false;
+			}
+
+			// Test 6: loadSeasonFiles reports a queue that rejects players instead of throwing
+			java.nio.file.Files.write(file, "e,5,5,5\nf,6,6,6\n".getBytes("UTF-8"));
+			if (new QueueWAR(1).loadSeasonFiles(new String[] {file.toString()})) {
+				return false;
+			}
+
+			// Test 7: Names repeated in a file or already queued replace the queued player
+			RankedQueueWAR ranked = new RankedQueueWAR();
+			ranked.addNewPlayer(new Player("g", 40, 40, 0));
+			java.nio.file.Files.write(file, "g,1,0,0\nh,2,0,0\nh,30,30,0\n".getBytes("UTF-8"));
+			loader = new SeasonFileLoader(ranked, 100);
+			if (loader.load(file) != 3 || ranked.checkQueueSize() != 2
+					|| ranked.findPlayer("g").getWAR() != Player.calculateWAR(1, 0, 0)
+					|| ranked.findPlayer("h").getWAR() != Player.calculateWAR(30, 30, 0)
+					|| !ranked.checkHighestPlayer().getName().equals("h")
+					|| !ranked.loadSeasonFiles(new String[] {file.toString()})) {
+				return false;
+			}
+		} catch (java.io.IOException e) {
+			return false;
+		} finally {
+			file.toFile().delete();
+		}
+
+		return true;
+	}
+	
+	/**
+	 * Tests that PrimitiveQueueWAR returns players in the same order as QueueWAR
+	 * 
+	 * @return true if method functions correctly, false if not
+	 */
+	public static boolean testPrimitiveQueueWAR() {
+		PrimitiveQueueWAR primitive = new PrimitiveQueueWAR(2, 2.0);
+
+		// Test 1: Queue is empty
+		boolean testFailed = true;
+		try {
+			primitive.removeBestPlayer();
+		} catch (IllegalStateException i) {
+			testFailed = false;
+		}
+		if (testFailed == true) {
+			return false;
+		}
+
+		// Test 2: Same WAR order as QueueWAR while adding and removing. Ties are compared by
+		// WAR only, since PrimitiveQueueWAR breaks them by name id instead of QueueWAR's key.
+		QueueWAR queue = new QueueWAR();
+		java.util.Random random = new java.util.Random(3);
+		for (int i = 0; i < 2000; i++) {
+			if (i % 3 == 2) {
+				if (primitive.removeBestPlayer().getWAR() != queue.removeBestPlayer().getWAR()) {
+					return false;
+				}
+			} else {
+				Player p = new Player("p" + i, random.nextInt(20), random.nextInt(20),
+						random.nextInt(20));
+				queue.addNewPlayer(p);
+				primitive.addNewPlayer(p);
+			}
+		}
+		if (primitive.checkQueueSize() != queue.checkQueueSize()) {
+			return false;
+		}
+		primitive.trimToSize();
+		while (queue.checkQueueSize() > 0) {
+			if (primitive.checkHighestWAR() != queue.checkHighestPlayer().getWAR()) {
+				return false;
+			}
+			if (primitive.removeBestPlayer().getWAR() != queue.removeBestPlayer().getWAR()) {
+				return false;
+			}
+		}
+		if (primitive.checkQueueSize() != 0) {
+			return false;
+		}
+
+		// Test 3: Equal WAR comes out in the order names were first stored
+		PrimitiveQueueWAR tied = new PrimitiveQueueWAR();
+		String[] order = {"carl", "anna", "bert", "dave"};
+		for (int i = order.length - 1; i >= 0; i--) {
+			tied.addNewPlayer(order[i], 1, 1, 0); // stores dave first
+		}
+		for (int i = 0; i < order.length - 1; i++) {
+			tied.addNewPlayer(order[i], 1, 1, 0);
+		}
+		String[] expected = {"dave", "bert", "bert", "anna", "anna", "carl", "carl"};
+		for (int i = 0; i < expected.length; i++) {
+			if (!tied.removeBestPlayer().getName().equals(expected[i])) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+	
+	/**
+	 * Tests TopKLeaderboard
+	 * 
+	 * @return true if method functions correctly, false if not
+	 */
+	public static boolean testTopKLeaderboard() {
+		TopKLeaderboard top = new TopKLeaderboard(50);
+
+		// Test 1: Leaderboard is empty
+		boolean testFailed = true;
+		try {
+			top.checkLowestPlayer();
+		} catch (IllegalStateException i) {
+			testFailed = false;
+		}
+		if (testFailed == true || top.leaderboard().length != 0) {
+			return false;
+		}
+
+		// Test 2: Keeps the 50 highest WARs out of a long stream
+		java.util.Random random = new java.util.Random(5);
+		int[] wars = new int[10000];
+		for (int i = 0; i < wars.length; i++) {
+			Player p = new Player("p" + i, random.nextInt(500), random.nextInt(500),
+					random.nextInt(100));
+			wars[i] = p.getWAR();
+			top.offer(p);
+		}
+		java.util.Arrays.sort(wars);
+		Player[] leaders = top.leaderboard();
+		if (leaders.length != 50 || top.checkSize() != 50) {
+			return false;
+		}
+		for (int i = 0; i < leaders.length; i++) {
+			if (leaders[i].getWAR() != wars[wars.length - 1 - i]) {
+				return false;
+			}
+		}
+		if (top.checkLowestPlayer().getWAR() != wars[wars.length - 50]) {
+			return false;
+		}
+
+		// Test 3: Bad K
+		testFailed = true;
+		try {
+			new TopKLeaderboard(0);
+		} catch (IllegalArgumentException i) {
+			testFailed = false;
+		}
+		if (testFailed == true) {
+			return false;
+		}
+
+		return true;
+	}
+	
+	/**
+	 * Tests IndexedQueueWAR.updateStats()
+	 * 
+	 * @return true if method functions correctly, false if not
+	 */
+	public static boolean testUpdateStats() {
+		IndexedQueueWAR queue = new IndexedQueueWAR();
+		java.util.Random random = new java.util.Random(13);
+		Player[] batch = new Player[200];
+		for (int i = 0; i < 300; i++) {
+			Player p = new Player("p" + i, random.nextInt(30), random.nextInt(30),
+					random.nextInt(30));
+			if (i < batch.length) {
+				batch[i] = p;
+			} else {
+				queue.addNewPlayer(p);
+			}
+		}
+		queue.addAll(batch);
+
+		// Test 1: Random updates keep the heap and the recorded slots valid
+		for (int i = 0; i < 2000; i++) {
+			queue.updateStats("p" + random.nextInt(300), random.nextInt(60), random.nextInt(60),
+					random.nextInt(60));
+			if (i % 100 == 0 && !isValidIndexedHeap(queue)) {
+				return false;
+			}
+		}
+		if (!isValidIndexedHeap(queue)) {
+			return false;
+		}
+
+		// Test 2: Raising a player to the top
+		Player star = queue.updateStats("p7", 1000, 1000, 0);
+		if (queue.checkHighestPlayer() != star || star.getWAR() != 2000) {
+			return false;
+		}
+
+		// Test 3: Unknown player, duplicate name, bad stats
+		boolean testFailed = true;
+		try {
+			queue.updateStats("nobody", 1, 1, 1);
+		} catch (IllegalArgumentException i) {
+			testFailed = false;
+		}
+		if (testFailed == true) {
+			return false;
+		}
+		testFailed = true;
+		try {
+			queue.addNewPlayer(new Player("p1", 0, 0, 0));
+		} catch (IllegalArgumentException i) {
+			testFailed = false;
+		}
+		if (testFailed == true) {
+			return false;
+		}
+		testFailed = true;
+		try {
+			queue.updateStats("p1", -1, 0, 0);
+		} catch (IllegalArgumentException i) {
+			testFailed = false;
+		}
+		if (testFailed == true || !isValidIndexedHeap(queue)) {
+			return false;
+		}
+
+		// Test 4: Draining comes out in order and clears the slots
+		int previous = Integer.MAX_VALUE;
+		while (queue.checkQueueSize() > 0) {
+			Player removed = queue.removeBestPlayer();
+			if (removed.getWAR() > previous || queue.containsPlayer(removed.getName())) {
+				return false;
+			}
+			previous = removed.getWAR();
+		}
+		if (!isValidIndexedHeap(queue)) {
+			return false;
+		}
+
+		// Test 5: A player left in a discarded queue can join another one
+		Player shared = new Player("shared", 5, 5, 0);
+		new IndexedQueueWAR().addNewPlayer(shared);
+		IndexedQueueWAR other = new IndexedQueueWAR();
+		other.addNewPlayer(shared);
+		other.addAll(new Player[] { new Player("x", 1, 0, 0), new Player("z", 12, 0, 0) });
+		if (other.findPlayer("shared") != shared || other.checkQueueSize() != 3) {
+			return false;
+		}
+
+		// Test 6: Updating through one queue doesn't change the Player another queue holds
+		QueueWAR plain = new QueueWAR();
+		plain.addNewPlayer(shared);
+		plain.addNewPlayer(new Player("y", 8, 0, 0));
+		Player updated = other.updateStats("shared", 0, 0, 0);
+		if (updated == shared || shared.getWAR() != 10 || updated.getWAR() != 0) {
+			return false;
+		}
+		if (plain.checkHighestPlayer() != shared || other.findPlayer("shared") != updated) {
+			return false;
+		}
+		if (updated.compareTo(new Player("later", 0, 0, 0)) <= 0) {
+			return false; // the copy keeps the original's place among ties
+		}
+
+		return isValidIndexedHeap(other) && isValidHeap(plain);
+	}
+	
+	/**
+	 * Checks the heap's order property and that every Player's slot is correct
+	 * 
+	 * @param queue to check
+	 * @return true if the heap and its index are consistent
+	 */
+	protected static boolean isValidIndexedHeap(IndexedQueueWAR queue) {
+		for (int i = 0; i < queue.size; i++) {
+			IndexedQueueWAR.Slot slot = queue.slots[i];
+			if (slot.index != i || slot.player != queue.array[i]
+					|| queue.players.get(slot.player.getName()) != slot) {
+				return false;
+			}
+		}
+		if (queue.slots.length != queue.array.length
+				|| (queue.size < queue.slots.length && queue.slots[queue.size] != null)) {
+			return false;
+		}
+		return queue.players.size() == queue.size && isValidHeap(queue);
+	}
+	
+	/**
+	 * Tests IndexedQueueWAR.findPlayer() and removePlayer()
+	 * 
+	 * @return true if method functions correctly, false if not
+	 */
+	public static boolean testRemovePlayer() {
+		IndexedQueueWAR queue = new IndexedQueueWAR(500);
+		java.util.Random random = new java.util.Random(17);
+		for (int i = 0; i < 500; i++) {
+			queue.addNewPlayer(new Player("p" + i, random.nextInt(30), random.nextInt(30),
+					random.nextInt(30)));
+		}
+
+		// Test 1: Lookup by name
+		Player p42 = queue.findPlayer("p42");
+		if (p42 == null || !p42.getName().equals("p42") || queue.findPlayer("nobody") != null) {
+			return false;
+		}
+
+		// Test 2: Removing from anywhere keeps the heap and index valid
+		for (int i = 0; i < 500; i += 2) {
+			Player removed = queue.removePlayer("p" + i);
+			if (removed == null || !removed.getName().equals("p" + i)) {
+				return false;
+			}
+			if (queue.containsPlayer("p" + i)) {
+				return false;
+			}
+		}
+		if (queue.checkQueueSize() != 250 || !isValidIndexedHeap(queue)) {
+			return false;
+		}
+
+		// Test 3: Removing a missing player does nothing
+		if (queue.removePlayer("p0") != null || queue.checkQueueSize() != 250) {
+			return false;
+		}
+
+		// Test 4: A removed player can be added again
+		queue.addNewPlayer(new Player("p0", 1000, 0, 0));
+		if (!queue.checkHighestPlayer().getName().equals("p0")) {
+			return false;
+		}
+
+		return isValidIndexedHeap(queue);
+	}
+	
+	/**
+	 * Tests ConcurrentQueueWAR with several producer threads and a consumer thread
+	 * 
+	 * @return true if method functions correctly, false if not
+	 */
+	public static boolean testConcurrentQueueWAR() {
+		ConcurrentQueueWAR queue = new ConcurrentQueueWAR(new QueueWAR(), 4, 16);
+
+		// Test 1: Queue is empty
+		boolean testFailed = true;
+		try {
+			queue.removeBestPlayer();
+		} catch (IllegalStateException i) {
+			testFailed = false;
+		}
+		if (testFailed == true) {
+			return false;
+		}
+
+		// Test 2: Every added player comes out exactly once
+		int producers = 4;
+		int perProducer = 5000;
+		boolean[] seen = new boolean[producers * perProducer];
+		int[] removed = new int[1];
+		Thread[] threads = new Thread[producers + 1];
+		for (int t = 0; t < producers; t++) {
+			int from = t * perProducer;
+			threads[t] = new Thread(() -> {
+				for (int i = from; i < from + perProducer; i++) {
+					queue.addNewPlayer(new Player(Integer.toString(i), i % 97, 0, 0));
+				}
+			});
+		}
+		threads[producers] = new Thread(() -> {
+			while (removed[0] < seen.length / 2) {
+				if (queue.checkQueueSize() > 0) {
+					seen[Integer.parseInt(queue.removeBestPlayer().getName())] = true;
+					removed[0]++;
+				}
+			}
+		});
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		try {
+			for (Thread thread : threads) {
+				thread.join();
+			}
+		} catch (InterruptedException e) {
+			return false;
+		}
+		if (queue.checkQueueSize() != seen.length - removed[0]) {
+			return false;
+		}
+
+		// Test 3: Once producers are done, the rest drains in order
+		int previous = Integer.MAX_VALUE;
+		while (queue.checkQueueSize() > 0) {
+			Player p = queue.removeBestPlayer();
+			int index = Integer.parseInt(p.getName());
+			if (seen[index] || p.getWAR() > previous) {
+				return false;
+			}
+			seen[index] = true;
+			previous = p.getWAR();
+		}
+		for (int i = 0; i < seen.length; i++) {
+			if (!seen[i]) {
+				return false;
+			}
+		}
+
+		// Test 4: Fixed-capacity heap is rejected
+		testFailed = true;
+		try {
+			new ConcurrentQueueWAR(new QueueWAR(10), 4, 16);
+		} catch (IllegalArgumentException i) {
+			testFailed = false;
+		}
+		if (testFailed == true) {
+			return false;
+		}
+
+		// Test 5: A batch the heap rejects is split, and only the rejected player is set aside
+		IndexedQueueWAR indexed = new IndexedQueueWAR();
+		ConcurrentQueueWAR wrapped = new ConcurrentQueueWAR(indexed, 1, 1024);
+		wrapped.addNewPlayer(new Player("A", 1, 1, 1));
+		wrapped.flush();
+		Player again = new Player("A", 9, 9, 9);
+		wrapped.addNewPlayer(again);
+		wrapped.addNewPlayer(new Player("B", 20, 20, 0));
+		if (!wrapped.removeBestPlayer().getName().equals("B")
+				|| !wrapped.removeBestPlayer().getName().equals("A")
+				|| wrapped.checkQueueSize() != 0 || indexed.checkQueueSize() != 0) {
+			return false;
+		}
+		Player[] rejected = wrapped.takeRejected();
+		if (rejected.length != 1 || rejected[0] != again || wrapped.takeRejected().length != 0) {
+			return false;
+		}
+
+		// Test 6: Once the name is free again the rejected player can be added back
+		wrapped.addNewPlayer(rejected[0]);
+		wrapped.addNewPlayer(new Player("late", 3, 3, 3));
+		if (!wrapped.removeBestPlayer().getName().equals("A")
+				|| wrapped.checkQueueSize() != 1 || indexed.checkQueueSize() != 1) {
+			return false;
+		}
+
+		return true;
+	}
+	
+	/**
+	 * Tests DaryQueueWAR with several arities
+	 * 
+	 * @return true if method functions correctly, false if not
+	 */
+	public static boolean testDaryQueueWAR() {
+		java.util.Random random = new java.util.Random(19);
+		Player[] players = new Player[3000];
+		for (int i = 0; i < players.length; i++) {
+			players[i] = new Player("p" + i, random.nextInt(40), random.nextInt(40),
+					random.nextInt(40));
+		}
+
+		for (int arity = 2; arity <= 64; arity *= 2) {
+			// Test 1: Adding one at a time and in bulk
+			DaryQueueWAR queue = new DaryQueueWAR(arity);
+			for (int i = 0; i < 1000; i++) {
+				queue.addNewPlayer(players[i]);
+			}
+			queue.addAll(java.util.Arrays.copyOfRange(players, 1000, players.length));
+			if (queue.checkQueueSize() != players.length) {
+				return false;
+			}
+
+			// Test 2: Removing from the middle, then draining in order
+			for (int i = 0; i < 100; i++) {
+				queue.removeAt(random.nextInt(queue.checkQueueSize()));
+			}
+			int previous = Integer.MAX_VALUE;
+			int removed = 0;
+			while (queue.checkQueueSize() > 0) {
+				int war = queue.removeBestPlayer().getWAR();
+				if (war > previous) {
+					return false;
+				}
+				previous = war;
+				removed++;
+			}
+			if (removed != players.length - 100) {
+				return false;
+			}
+		}
+
+		// Test 3: Bad arity
+		boolean testFailed = true;
+		try {
+			new DaryQueueWAR(3);
+		} catch (IllegalArgumentException i) {
+			testFailed = false;
+		}
+		if (testFailed == true) {
+			return false;
+		}
+
+		return true;
+	}
+	
+	/**
+	 * Tests ranking(), rankingStream() and rankingPage()
+	 * 
+	 * @return true if method functions correctly, false if not
+	 */
+	public static boolean testRanking() {
+		java.util.Random random = new java.util.Random(23);
+		Player[] players = new Player[1000];
+		int[] wars = new int[players.length];
+		for (int i = 0; i < players.length; i++) {
+			players[i] = new Player("p" + i, random.nextInt(40), random.nextInt(40),
+					random.nextInt(40));
+			wars[i] = players[i].getWAR();
+		}
+		java.util.Arrays.sort(wars);
+
+		QueueWAR[] queues = {QueueWAR.fromArray(players), DaryQueueWAR.fromArray(players, 8)};
+		for (QueueWAR queue : queues) {
+			Player[] before = java.util.Arrays.copyOf(queue.array, queue.size);
+
+			// Test 1: Iterates in order of highest WAR, twice, without changing the heap
+			for (int pass = 0; pass < 2; pass++) {
+				int i = wars.length - 1;
+				for (Player p : queue) {
+					if (p.getWAR() != wars[i--]) {
+						return false;
+					}
+				}
+				if (i != -1) {
+					return false;
+				}
+			}
+			Player[] after = java.util.Arrays.copyOf(queue.array, queue.size);
+			if (!java.util.Arrays.equals(before, after)) {
+				return false;
+			}
+
+			// Test 2: Stream and pages
+			if (queue.rankingStream().limit(10).mapToInt(Player::getWAR).sum()
+					!= wars[999] + wars[998] + wars[997] + wars[996] + wars[995] + wars[994]
+					+ wars[993] + wars[992] + wars[991] + wars[990]) {
+				return false;
+			}
+			Player[] page = queue.rankingPage(990, 25);
+			if (page.length != 10 || page[0].getWAR() != wars[9] || page[9].getWAR() != wars[0]) {
+				return false;
+			}
+
+			// Test 3: Changing the queue while iterating
+			java.util.Iterator<Player> ranking = queue.ranking();
+			ranking.next();
+			queue.removeBestPlayer();
+			boolean testFailed = true;
+			try {
+				ranking.next();
+			} catch (java.util.ConcurrentModificationException c) {
+				testFailed = false;
+			}
+			if (testFailed == true) {
+				return false;
+			}
+		}
+
+		// Test 4: Empty queue
+		if (new QueueWAR().ranking().hasNext()) {
+			return false;
+		}
+
+		return true;
+	}
+	
+	/**
+	 * Tests RankedQueueWAR.rankOf(), playerAtRank() and percentile() against a sorted copy
+	 * 
+	 * @return true if method functions correctly, false if not
+	 */
+	public static boolean testRankQueries() {
+		RankedQueueWAR queue = new RankedQueueWAR();
+		java.util.Random random = new java.util.Random(29);
+		for (int i = 0; i < 400; i++) {
+			queue.addNewPlayer(new Player("p" + i, random.nextInt(30), random.nextInt(30),
+					random.nextInt(30)));
+		}
+
+		// Test 1: Stays correct while the queue changes
+		for (int round = 0; round < 300; round++) {
+			switch (round % 4) {
+			case 0:
+				queue.removeBestPlayer();
+				break;
+			case 1:
+				queue.removePlayer("p" + random.nextInt(400));
+				break;
+			case 2:
+				queue.addNewPlayer(new Player("new" + round, random.nextInt(30),
+						random.nextInt(30), random.nextInt(30)));
+				break;
+			default:
+				Player any = queue.array[random.nextInt(queue.checkQueueSize())];
+				queue.updateStats(any.getName(), random.nextInt(30), random.nextInt(30),
+						random.nextInt(30));
+			}
+			if (round % 25 == 0 && !matchesSortedCopy(queue)) {
+				return false;
+			}
+		}
+		if (!matchesSortedCopy(queue)) {
+			return false;
+		}
+
+		// Test 2: Percentiles of 1..100
+		RankedQueueWAR simple = new RankedQueueWAR();
+		for (int i = 1; i <= 100; i++) {
+			simple.addNewPlayer(new Player("s" + i, i, 0, 0));
+		}
+		if (simple.percentile(90) != 90 || simple.percentile(0) != 1
+				|| simple.percentile(100) != 100 || simple.percentile(50.5) != 51) {
+			return false;
+		}
+
+		// Test 3: Bad queries
+		boolean testFailed = true;
+		try {
+			simple.playerAtRank(101);
+		} catch (IndexOutOfBoundsException i) {
+			testFailed = false;
+		}
+		if (testFailed == true) {
+			return false;
+		}
+		testFailed = true;
+		try {
+			new RankedQueueWAR().percentile(50);
+		} catch (IllegalStateException i) {
+			testFailed = false;
+		}
+		if (testFailed == true) {
+			return false;
+		}
+
+		return true;
+	}
+	
+	/**
+	 * Checks every rank query of a RankedQueueWAR against a sorted copy of its players
+	 * 
+	 * @param queue to check
+	 * @return true if every query matches
+	 */
+	protected static boolean matchesSortedCopy(RankedQueueWAR queue) {
+		Player[] sorted = java.util.Arrays.copyOf(queue.array, queue.size);
+		java.util.Arrays.sort(sorted, java.util.Collections.reverseOrder());
+		for (int i = 0; i < sorted.length; i++) {
+			if (queue.playerAtRank(i + 1).getWAR() != sorted[i].getWAR()) {
+				return false;
+			}
+			int expectedRank = 1;
+			while (sorted[expectedRank - 1].getWAR() > sorted[i].getWAR()) {
+				expectedRank++;
+			}
+			if (queue.rankOf(sorted[i].getName()) != expectedRank) {
+				return false;
+			}
+		}
+		int fromBottom = (int) Math.ceil(0.9 * sorted.length);
+		return queue.percentile(90) == sorted[sorted.length - fromBottom].getWAR()
+				&& isValidIndexedHeap(queue);
+	}
+	
+	/**
+	 * Tests RankedQueueWAR.countInRange() and playersInRange()
+	 * 
+	 * @return true if method functions correctly, false if not
+	 */
+	public static boolean testRangeQueries() {
+		RankedQueueWAR queue = new RankedQueueWAR();
+		java.util.Random random = new java.util.Random(31);
+		for (int i = 0; i < 500; i++) {
+			queue.addNewPlayer(new Player("p" + i, random.nextInt(40), random.nextInt(40),
+					random.nextInt(40)));
+		}
+		for (int i = 0; i < 100; i++) {
+			queue.removeBestPlayer();
+			if (queue.containsPlayer("p" + (i * 5 + 1))) {
+				queue.updateStats("p" + (i * 5 + 1), random.nextInt(40), random.nextInt(40), 0);
+			}
+		}
+
+		// Test 1: Every range matches a scan of the heap array
+		int[][] ranges = {{20, 35}, {-40, 0}, {50, 50}, {1000, 2000}, {Integer.MIN_VALUE,
+			Integer.MAX_VALUE}};
+		for (int[] range : ranges) {
+			int expected = 0;
+			for (int i = 0; i < queue.size; i++) {
+				int war = queue.array[i].getWAR();
+				if (war >= range[0] && war <= range[1]) {
+					expected++;
+				}
+			}
+			java.util.List<Player> players = queue.playersInRange(range[0], range[1]);
+			if (queue.countInRange(range[0], range[1]) != expected || players.size() != expected) {
+				return false;
+			}
+			for (int i = 0; i < players.size(); i++) {
+				int war = players.get(i).getWAR();
+				if (war < range[0] || war > range[1]) {
+					return false;
+				}
+				if (i > 0 && war > players.get(i - 1).getWAR()) {
+					return false;
+				}
+			}
+		}
+
+		// Test 2: Bad range
+		boolean testFailed = true;
+		try {
+			queue.countInRange(10, 5);
+		} catch (IllegalArgumentException i) {
+			testFailed = false;
+		}
+		if (testFailed == true) {
+			return false;
+		}
+
+		return true;
+	}
+	
+	/**
+	 * Tests WARModel, WeightedWARModel, and StatColumns
+	 * 
+	 * @return true if method functions correctly, false if not
+	 */
+	public static boolean testWARModel() {
+		StatColumns stats = new StatColumns(2);
+		java.util.Random random = new java.util.Random(15);
+		for (int i = 0; i < 100; i++) {
+			stats.add("p" + i, random.nextInt(60), random.nextInt(60), random.nextInt(40),
+					random.nextInt(61) - 30, random.nextInt(1500));
+		}
+
+		// Test 1: STANDARD matches Player.calculateWAR
+		int[] war = new int[stats.size()];
+		WARModel.STANDARD.calculateAll(stats, war);
+		for (int i = 0; i < stats.size(); i++) {
+			if (war[i] != Player.calculateWAR(stats.getGoals()[i], stats.getAssists()[i],
+					stats.getPenalties()[i])) {
+				return false;
+			}
+		}
+
+		// Test 2: Batch scoring matches row scoring, and rounds down
+		WARModel model = new WeightedWARModel(1.5, 0.75, 2, 0.25, 0.01);
+		model.calculateAll(stats, war);
+		for (int i = 0; i < stats.size(); i++) {
+			if (war[i] != model.calculateWAR(stats, i)) {
+				return false;
+			}
+		}
+		StatColumns one = new StatColumns();
+		one.add("Skater", 3, 1, 0, -5, 0); // 4.5 + 0.75 - 1.25 = 4.0
+		one.add("Grinder", 1, 0, 1, 0, 0); // 1.5 - 2 = -0.5
+		if (model.calculateWAR(one, 0) != 4 || model.calculateWAR(one, 1) != -1) {
+			return false;
+		}
+
+		// Test 3: toPlayers feeds a queue
+		QueueWAR queue = QueueWAR.fromArray(stats.toPlayers(model));
+		int best = Integer.MIN_VALUE;
+		for (int i = 0; i < war.length; i++) {
+			best = Math.max(best, war[i]);
+		}
+		if (queue.checkQueueSize() != 100 || queue.checkHighestPlayer().getWAR() != best) {
+			return false;
+		}
+
+		// Test 4: Small weights are kept, not rounded to a coarse fraction
+		StatColumns minutes = new StatColumns();
+		minutes.add("Iron man", 0, 0, 0, 0, 1000);
+		minutes.add("Workhorse", 0, 0, 0, 0, 1500);
+		if (new WeightedWARModel(0, 0, 0, 0, 0.01).calculateWAR(minutes, 0) != 10
+				|| new WeightedWARModel(0, 0, 0, 0, 0.001).calculateWAR(minutes, 1) != 1) {
+			return false;
+		}
+
+		// Test 5: Weights that can't be held exactly enough or could overflow are rejected
+		double[][] badWeights = {{0, 0, 0, 0, 0.0001}, {5000, 0, 0, 0, 0},
+				{1, 1, 1, 1, Double.NaN}};
+		for (double[] w : badWeights) {
+			boolean rejected = false;
+			try {
+				new WeightedWARModel(w[0], w[1], w[2], w[3], w[4]);
+			} catch (IllegalArgumentException i) {
+				rejected = true;
+			}
+			if (!rejected) {
+				return false;
+			}
+		}
+
+		// Test 6: A WAR outside the int range throws instead of wrapping
+		StatColumns huge = new StatColumns();
+		huge.add("Huge", Integer.MAX_VALUE, 0, 0, 0, 0);
+		WARModel doubled = new WeightedWARModel(2, 0, 0, 0, 0);
+		boolean testFailed = true;
+		try {
+			doubled.calculateWAR(huge, 0);
+		} catch (ArithmeticException i) {
+			testFailed = false;
+		}
+		if (testFailed == true) {
+			return false;
+		}
+		testFailed = true;
+		try {
+			doubled.calculateAll(huge, new int[1]);
+		} catch (ArithmeticException i) {
+			testFailed = false;
+		}
+		if (testFailed == true) {
+			return false;
+		}
+
+		// Test 7: Bad input
+		testFailed = true;
+		try {
+			stats.add("Bad", -1, 0, 0, 0, 0);
+		} catch (IllegalArgumentException i) {
+			testFailed = false;
+		}
+		if (testFailed == true) {
+			return false;
+		}
+		testFailed = true;
+		try {
+			model.calculateAll(stats, new int[1]);
+		} catch (IllegalArgumentException i) {
+			testFailed = false;
+		}
+		if (testFailed == true) {
+			return false;
+		}
+
+		return true;
+	}
+	
+	/**
+	 * Tests PlayByPlayProcessor
+	 * 
+	 * @return true if method functions correctly, false if not
+	 */
+	public static boolean testPlayByPlayProcessor() {
+		java.nio.file.Path file;
+		int players = 300; // more than the processor starts with, so its table grows
+		try {
+			file = java.nio.file.Files.createTempFile("events", ".csv");
+			StringBuilder rows = new StringBuilder();
+			for (int i = 0; i < 30000; i++) {
+				int p = i % players;
+				char type = i % 7 == 0 ? 'P' : (i % 3 == 0 ? 'A' : 'G');
+				rows.append(type).append(i % 2 == 0 ? "," : "\t").append("p").append(p)
+				.append("\r\n");
+			}
+			rows.append("X,p1\n");
+			rows.append("G\n");
+			rows.append("G,\n");
+			rows.append("g, Veteran "); // no newline at the end
+			java.nio.file.Files.write(file, rows.toString().getBytes("UTF-8"));
+		} catch (java.io.IOException e) {
+			return false;
+		}
+
+		IndexedQueueWAR queue = new IndexedQueueWAR();
+		PlayByPlayProcessor processor = new PlayByPlayProcessor(queue);
+		processor.seed("Veteran", 10, 5, 2);
+		try {
+			// Test 1: Every good event is applied, bad lines are skipped
+			if (processor.process(file) != 30001) {
+				return false;
+			}
+		} catch (java.io.IOException e) {
+			return false;
+		} finally {
+			file.toFile().delete();
+		}
+		if (processor.getEventsSkipped() != 3 || queue.checkQueueSize() != players + 1) {
+			return false;
+		}
+
+		// Test 2: WAR matches totals counted here, and the heap is still in order
+		int[] war = new int[players];
+		for (int i = 0; i < 30000; i++) {
+			war[i % players] += i % 7 == 0 ? -1 : 1;
+		}
+		for (int p = 0; p < players; p++) {
+			if (queue.findPlayer("p" + p).getWAR() != war[p]) {
+				return false;
+			}
+		}
+		if (queue.findPlayer("Veteran").getWAR() != 14 || !isValidIndexedHeap(queue)) {
+			return false;
+		}
+
+		// Test 3: apply() moves a player to the top
+		for (int i = 0; i < 200; i++) {
+			processor.apply('A', "p7");
+		}
+		if (!queue.checkHighestPlayer().getName().equals("p7")) {
+			return false;
+		}
+
+		// Test 4: Bad event type
+		boolean testFailed = true;
+		try {
+			processor.apply('Z', "p7");
+		} catch (IllegalArgumentException i) {
+			testFailed = false;
+		}
+		if (testFailed == true) {
+			return false;
+		}
+
+		// Test 5: A queued player who wasn't seeded keeps their season totals
+		queue.addNewPlayer(new Player("Unseeded", 30, 20, 0));
+		testFailed = true;
+		try {
+			processor.apply('G', "Unseeded");
+		} catch (IllegalArgumentException i) {
+			testFailed = false;
+		}
+		if (testFailed == true || queue.findPlayer("Unseeded").getWAR() != 50) {
+			return false;
+		}
+
+		// Test 6: A removed player isn't added back by their next event, in apply or a log
+		queue.removePlayer("p8");
+		testFailed = true;
+		try {
+			processor.apply('G', "p8");
+		} catch (IllegalArgumentException i) {
+			testFailed = false;
+		}
+		if (testFailed == true || queue.containsPlayer("p8")) {
+			return false;
+		}
+		try {
+			file = java.nio.file.Files.createTempFile("events", ".csv");
+			java.nio.file.Files.write(file, "G,p8\nG,Unseeded\nG,p9\n".getBytes("UTF-8"));
+			if (processor.process(file) != 1 || processor.getEventsSkipped() != 5
+					|| queue.containsPlayer("p8")
+					|| queue.findPlayer("Unseeded").getWAR() != 50) {
+				return false;
+			}
+		} catch (java.io.IOException e) {
+			return false;
+		} finally {
+			file.toFile().delete();
+		}
+
+		// Test 7: Seeding a player lets their events through again
+		processor.seed("p8", 1, 0, 0);
+		processor.apply('G', "p8");
+		processor.seed("Unseeded", 30, 20, 0);
+		processor.apply('G', "Unseeded");
+		if (queue.findPlayer("p8").getWAR() != 2 || queue.findPlayer("Unseeded").getWAR() != 51) {
+			return false;
+		}
+
+		return isValidIndexedHeap(queue);
+	}
+	
+	/**
+	 * Tests DurableQueueWAR recovery from its snapshot and write-ahead log
+	 * 
+	 * @return true if method functions correctly, false if not
+	 */
+	public static boolean testDurableQueueWAR() {
+		java.nio.file.Path dir = null;
+		try {
+			dir = java.nio.file.Files.createTempDirectory("durable");
+			java.nio.file.Path wal = dir.resolve("queue.wal");
+
+			// Test 1: Log only, reopened after close
+			DurableQueueWAR queue = new DurableQueueWAR(dir,
+					DurableQueueWAR.SyncPolicy.BATCHED, 8, 0);
+			for (int i = 0; i < 50; i++) {
+				queue.addNewPlayer(new Player("p" + i, i % 13, i % 7, i % 5));
+			}
+			queue.addAll(new Player[] {new Player("a", 1, 1, 1), new Player("b", 9, 9, 0)});
+			queue.updateStats("p3", 40, 0, 0);
+			queue.removeBestPlayer();
+			queue.removePlayer("p10");
+			String expected = java.util.Arrays.toString(queue.rankingPage(0, 60));
+			queue.close();
+			queue = new DurableQueueWAR(dir, DurableQueueWAR.SyncPolicy.BATCHED, 8, 0);
+			if (!java.util.Arrays.toString(queue.rankingPage(0, 60)).equals(expected)
+					|| queue.getLastLsn() != 56 || !isValidIndexedHeap(queue)) {
+				return false;
+			}
+
+			// Test 2: Snapshot plus a log tail
+			queue.snapshot();
+			if (java.nio.file.Files.size(wal) != 0 || queue.getSnapshotLsn() != 56) {
+				return false;
+			}
+			queue.updateStats("p12", 0, 0, 30);
+			queue.addNewPlayer(new Player("c", 5, 5, 5));
+			expected = java.util.Arrays.toString(queue.rankingPage(0, 60));
+			queue.close();
+			queue = new DurableQueueWAR(dir, DurableQueueWAR.SyncPolicy.EVERY_WRITE, 1, 0);
+			if (!java.util.Arrays.toString(queue.rankingPage(0, 60)).equals(expected)
+					|| queue.getLastLsn() != 58) {
+				return false;
+			}
+
+			// Test 3: A torn record at the end of the log is dropped
+			queue.removeBestPlayer();
+			expected = java.util.Arrays.toString(queue.rankingPage(0, 60));
+			long goodLength = java.nio.file.Files.size(wal);
+			queue.close();
+			java.nio.file.Files.write(wal, new byte[] {0, 0, 0, 30, 1, 2, 3},
+					java.nio.file.StandardOpenOption.APPEND);
+			queue = new DurableQueueWAR(dir);
+			if (!java.util.Arrays.toString(queue.rankingPage(0, 60)).equals(expected)
+					|| java.nio.file.Files.size(wal) != goodLength) {
+				return false;
+			}
+
+			// Test 4: Automatic snapshots, then a closed queue can't be changed
+			queue.close();
+			queue = new DurableQueueWAR(dir, DurableQueueWAR.SyncPolicy.OS, 1, 10);
+			for (int i = 0; i < 25; i++) {
+				queue.addNewPlayer(new Player("auto" + i, i, 0, 0));
+			}
+			if (queue.getSnapshotLsn() != queue.getLastLsn() - 5) {
+				return false;
+			}
+			queue.close();
+			boolean testFailed = true;
+			try {
+				queue.addNewPlayer(new Player("late", 1, 1, 1));
+			} catch (IllegalStateException i) {
+				testFailed = false;
+			}
+			if (testFailed == true || queue.containsPlayer("late")) {
+				return false;
+			}
+			queue = new DurableQueueWAR(dir);
+			if (!queue.containsPlayer("auto24") || queue.checkQueueSize() != 75) {
+				return false;
+			}
+
+			// Test 5: Reopening moves the creation sequence past the one the snapshot saved
+			queue.snapshot();
+			queue.close();
+			java.nio.file.Path snapshot = dir.resolve("queue.snapshot");
+			byte[] bytes = java.nio.file.Files.readAllBytes(snapshot);
+			java.nio.ByteBuffer header = java.nio.ByteBuffer.wrap(bytes);
+			long saved = Player.currentSequence() + 1_000_000;
+			header.putLong(16, saved); // after magic, version and LSN
+			java.util.zip.CRC32 crc = new java.util.zip.CRC32();
+			crc.update(bytes, 0, bytes.length - 4);
+			header.putInt(bytes.length - 4, (int) crc.getValue());
+			java.nio.file.Files.write(snapshot, bytes);
+			queue = new DurableQueueWAR(dir);
+			if (Player.currentSequence() < saved || queue.checkQueueSize() != 75) {
+				return false;
+			}
+			queue.close();
+
+			// Test 6: A snapshot of another format version is rejected
+			header.putInt(4, 0); // what an unversioned snapshot reads as
+			java.nio.file.Files.write(snapshot, bytes);
+			testFailed = true;
+			try {
+				new DurableQueueWAR(dir);
+			} catch (java.io.IOException i) {
+				testFailed = false;
+			}
+			if (testFailed == true) {
+				return false;
+			}
+
+			// Test 7: A version 2 snapshot, with the earlier key layout, is converted on load
+			header.putInt(4, 2);
+			crc.reset();
+			crc.update(bytes, 0, bytes.length - 4);
+			header.putInt(bytes.length - 4, (int) crc.getValue());
+			java.nio.file.Files.write(snapshot, bytes);
+			queue = new DurableQueueWAR(dir);
+			if (queue.checkQueueSize() != 75 || queue.findPlayer("auto24").getWAR() != 24
+					|| !isValidIndexedHeap(queue)) {
+				return false;
+			}
+			queue.close();
+
+			// Test 8: With SyncPolicy.OS every operation reaches the log file straight away, so
+			// a queue that is never closed loses nothing
+			java.nio.file.Files.delete(snapshot);
+			java.nio.file.Files.delete(wal);
+			queue = new DurableQueueWAR(dir, DurableQueueWAR.SyncPolicy.OS, 1, 0);
+			queue.addNewPlayer(new Player("solo", 1, 1, 1));
+			long soloEnd = java.nio.file.Files.size(wal);
+			queue.addAll(new Player[] {new Player("x", 3, 0, 0), new Player("y", 2, 0, 0),
+					new Player("z", 1, 0, 0)});
+			long batchEnd = java.nio.file.Files.size(wal);
+			DurableQueueWAR reopened = new DurableQueueWAR(dir);
+			if (soloEnd == 0 || reopened.checkQueueSize() != 4 || !reopened.containsPlayer("z")) {
+				return false;
+			}
+			reopened.close();
+			queue.close();
+
+			// Test 9: A batch torn by a crash is dropped whole
+			try (java.nio.channels.FileChannel channel = java.nio.channels.FileChannel.open(wal,
+					java.nio.file.StandardOpenOption.WRITE)) {
+				channel.truncate(batchEnd - 5);
+			}
+			queue = new DurableQueueWAR(dir);
+			if (queue.checkQueueSize() != 1 || !queue.containsPlayer("solo")
+					|| queue.containsPlayer("x") || java.nio.file.Files.size(wal) != soloEnd
+					|| queue.getLastLsn() != 1) {
+				return false;
+			}
+			queue.close();
+		} catch (java.io.IOException e) {
+			return false;
+		} finally {
+			if (dir != null) {
+				for (java.io.File file : dir.toFile().listFiles()) {
+					file.delete();
+				}
+				dir.toFile().delete();
+			}
+		}
+
+		return true;
+	}
+	
+	/**
+	 * Tests MappedQueueWAR and the binary roster format
+	 * 
+	 * @return true if method functions correctly, false if not
+	 */
+	public static boolean testMappedQueueWAR() {
+		java.nio.file.Path file = null;
+		try {
+			file = java.nio.file.Files.createTempFile("roster", ".bin");
+			QueueWAR queue = new QueueWAR();
+			java.util.Random random = new java.util.Random(18);
+			for (int i = 0; i < 1000; i++) {
+				queue.addNewPlayer(new Player("p" + i + (i % 10 == 0 ? " \u00e9" : ""),
+						random.nextInt(30), random.nextInt(30), random.nextInt(30)));
+			}
+			MappedQueueWAR.writeRoster(queue, file);
+			byte[] written = java.nio.file.Files.readAllBytes(file);
+
+			// Test 1: Mapped queue removes in the source queue's ranking order, ties included
+			Player[] ranking = queue.toSortedArray();
+			MappedQueueWAR mapped = new MappedQueueWAR(file);
+			if (mapped.checkQueueSize() != 1000
+					|| !mapped.checkHighestPlayer().toString().equals(ranking[0].toString())) {
+				return false;
+			}
+			for (int i = 0; i < 400; i++) {
+				if (!mapped.removeBestPlayer().toString().equals(ranking[i].toString())) {
+					return false;
+				}
+			}
+
+			// Test 2: The rest copies into a QueueWAR in the same order, and the file wasn't
+			// changed
+			QueueWAR copy = mapped.toQueueWAR();
+			if (copy.checkQueueSize() != 600 || !isValidHeap(copy)) {
+				return false;
+			}
+			for (int i = 400; i < 1000; i++) {
+				if (!copy.removeBestPlayer().toString().equals(ranking[i].toString())) {
+					return false;
+				}
+			}
+			if (!java.util.Arrays.equals(java.nio.file.Files.readAllBytes(file), written)) {
+				return false;
+			}
+
+			// Test 3: Empty roster
+			MappedQueueWAR.writeRoster(new QueueWAR(), file);
+			mapped = new MappedQueueWAR(file);
+			boolean testFailed = true;
+			try {
+				mapped.removeBestPlayer();
+			} catch (IllegalStateException i) {
+				testFailed = false;
+			}
+			if (testFailed == true) {
+				return false;
+			}
+
+			// Test 4: A d-ary queue is written in rank order, and a read-only roster opens
+			DaryQueueWAR dary = new DaryQueueWAR(8);
+			int[] wars = new int[2000];
+			for (int i = 0; i < wars.length; i++) {
+				wars[i] = i;
+			}
+			for (int i = wars.length - 1; i > 0; i--) {
+				int j = random.nextInt(i + 1);
+				int swap = wars[i];
+				wars[i] = wars[j];
+				wars[j] = swap;
+			}
+			for (int i = 0; i < wars.length; i++) {
+				dary.addNewPlayer(new Player("d" + i, wars[i]));
+			}
+			MappedQueueWAR.writeRoster(dary, file);
+			written = java.nio.file.Files.readAllBytes(file);
+			file.toFile().setReadOnly();
+			mapped = new MappedQueueWAR(file);
+			while (dary.checkQueueSize() > 0) {
+				if (!mapped.removeBestPlayer().toString().equals(
+						dary.removeBestPlayer().toString())) {
+					return false;
+				}
+			}
+			if (mapped.checkQueueSize() != 0
+					|| !java.util.Arrays.equals(java.nio.file.Files.readAllBytes(file), written)) {
+				return false;
+			}
+			file.toFile().setWritable(true);
+
+			// Test 5: Not a roster file
+			java.nio.file.Files.write(file, "name,1,2,3\nother,4,5,6\n".getBytes("UTF-8"));
+			testFailed = true;
+			try {
+				new MappedQueueWAR(file);
+			} catch (java.io.IOException i) {
+				testFailed = false;
+			}
+			if (testFailed == true) {
+				return false;
+			}
+		} catch (java.io.IOException e) {
+			return false;
+		} finally {
+			if (file != null) {
+				file.toFile().delete();
+			}
+		}
+
+		return true;
+	}
+	
+	/**
+	 * Tests Player's composite ranking key
+	 * 
+	 * @return true if method functions correctly, false if not
+	 */
+	public static boolean testRankKey() {
+		// Test 1: Extreme WARs compare without overflowing
+		Player high = new Player("high", Integer.MAX_VALUE);
+		Player low = new Player("low", Integer.MIN_VALUE);
+		if (high.compareTo(low) <= 0 || low.compareTo(high) >= 0) {
+			return false;
+		}
+
+		// Test 2: Equal WAR is broken by goals, then fewest penalties, then creation order
+		Player scorer = new Player("scorer", 20, 0, 5); // WAR 15
+		Player passer = new Player("passer", 5, 15, 5); // WAR 15
+		Player clean = new Player("clean", 5, 10, 0); // WAR 15
+		Player twin = new Player("twin", 5, 10, 0); // WAR 15
+		QueueWAR queue = new QueueWAR();
+		queue.addNewPlayer(twin);
+		queue.addNewPlayer(passer);
+		queue.addNewPlayer(clean);
+		queue.addNewPlayer(scorer);
+		Player[] expected = {scorer, clean, twin, passer};
+		for (int i = 0; i < expected.length; i++) {
+			if (queue.removeBestPlayer() != expected[i]) {
+				return false;
+			}
+		}
+
+		// Test 3: An update that keeps WAR but changes the tie-breakers still moves the player
+		IndexedQueueWAR indexed = new IndexedQueueWAR();
+		indexed.addNewPlayer(new Player("a", 5, 5, 0));
+		indexed.addNewPlayer(new Player("b", 5, 5, 0));
+		indexed.updateStats("b", 10, 0, 0);
+		if (!indexed.checkHighestPlayer().getName().equals("b") || !isValidIndexedHeap(indexed)) {
+			return false;
+		}
+
+		// Test 4: Ties keep creation order across more than 65536 other Players
+		Player first = new Player("first", 7, 7, 7);
+		for (int i = 0; i < 200000; i++) {
+			new Player("filler", 0, 0, 0);
+		}
+		Player second = new Player("second", 7, 7, 7);
+		queue = new QueueWAR();
+		queue.addNewPlayer(second);
+		queue.addNewPlayer(first);
+		if (first.compareTo(second) <= 0 || queue.removeBestPlayer() != first) {
+			return false;
+		}
+
+		// Test 5: Keys in the earlier 16-bit-sequence layout convert in the same order
+		long older = (15L << 32) | (20L << 24) | ((0xFFL - 5) << 16) | (0xFFFF - 3);
+		long newer = (15L << 32) | (20L << 24) | ((0xFFL - 5) << 16) | (0xFFFF - 4);
+		long fewerGoals = (15L << 32) | (5L << 24) | ((0xFFL - 0) << 16) | 0xFFFF;
+		if (Player.upgradeRankKey(older) <= Player.upgradeRankKey(newer)
+				|| Player.upgradeRankKey(newer) <= Player.upgradeRankKey(fewerGoals)
+				|| Player.fromRankKey("x", Player.upgradeRankKey(older)).getWAR() != 15) {
+			return false;
+		}
+
+		return true;
+	}
+	
+	/**
+	 * Tests NameDictionary and the loaders that share it
+	 * 
+	 * @return true if method functions correctly, false if not
+	 */
+	public static boolean testNameDictionary() {
+		NameDictionary names = new NameDictionary();
+
+		// Test 1: The same name always gets the same id, and the String is shared
+		int crosby = names.intern("Sidney Crosby");
+		if (names.intern(new String("Sidney Crosby")) != crosby || names.size() != 1
+				|| names.nameOf(crosby) != names.nameOf(crosby)) {
+			return false;
+		}
+
+		// Test 2: Byte lookups find the same id as String lookups, including non-ASCII names
+		byte[] line = "G,Teemu Sel\u00e4nne\n".getBytes(java.nio.charset.StandardCharsets.UTF_8);
+		int selanne = names.intern(line, 2, line.length - 1);
+		if (names.find("Teemu Sel\u00e4nne") != selanne
+				|| !names.nameOf(selanne).equals("Teemu Sel\u00e4nne")
+				|| names.find("Wayne Gretzky") != -1) {
+			return false;
+		}
+
+		// Test 3: Ids stay stable as the dictionary grows
+		for (int i = 0; i < 1000; i++) {
+			if (names.intern("p" + i) != i + 2) {
+				return false;
+			}
+		}
+		if (names.size() != 1002 || names.find("Sidney Crosby") != crosby
+				|| names.find("p999") != 1001) {
+			return false;
+		}
+		try {
+			names.nameOf(1002);
+			return false;
+		} catch (IndexOutOfBoundsException e) {
+			// expected
+		}
+
+		// Test 4: Two loads of the same name into one loader share a single String
+		java.nio.file.Path file;
+		try {
+			file = java.nio.file.Files.createTempFile("season", ".csv");
+			java.nio.file.Files.write(file, "Sidney Crosby,30,40,10\n".getBytes("UTF-8"));
+		} catch (java.io.IOException e) {
+			return false;
+		}
+		QueueWAR queue = new QueueWAR();
+		SeasonFileLoader loader = new SeasonFileLoader(queue, 10, names);
+		try {
+			loader.load(file);
+			loader.load(file);
+		} catch (java.io.IOException e) {
+			return false;
+		} finally {
+			file.toFile().delete();
+		}
+		if (queue.checkQueueSize() != 2 || names.size() != 1002
+				|| queue.removeBestPlayer().getName() != queue.removeBestPlayer().getName()) {
+			return false;
+		}
+
+		// Test 5: A PrimitiveQueueWAR sharing the dictionary adds no new names for known players
+		PrimitiveQueueWAR primitive = new PrimitiveQueueWAR(4, 2.0, names);
+		primitive.addNewPlayer(new Player("p5", 3));
+		primitive.addNewPlayer(new Player("Sidney Crosby", 70));
+		if (names.size() != 1002
+				|| primitive.removeBestPlayer().getName() != names.nameOf(crosby)
+				|| names.find("Sidney Crosby") != crosby) {
+			return false;
+		}
+
+		// Test 6: Released names are removed, their ids reused, and pinned names never removed
+		NameDictionary counted = new NameDictionary();
+		int[] ids = new int[200];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = counted.acquire("c" + i);
+		}
+		int pinned = counted.intern("pinned");
+		if (counted.acquire("c7") != ids[7] || counted.acquire("pinned") != pinned) {
+			return false;
+		}
+		counted.release(ids[7]);
+		counted.release(pinned);
+		for (int i = 0; i < ids.length; i += 2) {
+			counted.release(ids[i]);
+		}
+		if (counted.size() != 101 || counted.find("c7") != ids[7] || counted.find("c8") != -1
+				|| counted.find("pinned") != pinned || counted.idBound() != 201) {
+			return false;
+		}
+		for (int i = 1; i < ids.length; i += 2) { // the rest of each probe run is still found
+			if (counted.find("c" + i) != ids[i] || !counted.nameOf(ids[i]).equals("c" + i)) {
+				return false;
+			}
+		}
+		try {
+			counted.nameOf(ids[8]);
+			return false;
+		} catch (IndexOutOfBoundsException e) {
+			// expected
+		}
+		int reused = counted.acquire("new name");
+		if (reused >= 201 || reused % 2 != 0 || counted.idBound() != 201) {
+			return false;
+		}
+
+		// Test 7: A queue churning through distinct names keeps only the names it holds
+		NameDictionary own = new NameDictionary(false);
+		PrimitiveQueueWAR churn = new PrimitiveQueueWAR(8, 2.0, own);
+		for (int i = 0; i < 100000; i++) {
+			churn.addNewPlayer(new Player("churn" + i, i % 50));
+			if (churn.checkQueueSize() > 10) {
+				churn.removeBestPlayer();
+			}
+		}
+		if (own.size() != 10 || own.idBound() > 11 || own.byteSize() > 10 * 11) {
+			return false;
+		}
+		String name = churn.checkHighestPlayer().getName();
+		if (!name.equals(churn.checkHighestPlayer().getName())
+				|| churn.checkHighestPlayer().getName() == name) {
+			return false; // an uncached dictionary makes a new String per call
+		}
+
+		return true;
+	}
+	
+	/**
+	 * Tests PlayerHistoryStore
+	 * 
+	 * @return true if method functions correctly, false if not
+	 */
+	public static boolean testPlayerHistoryStore() {
+		PlayerHistoryStore history = new PlayerHistoryStore();
+		// seasons recorded out of order, with one player's 2023 season split into games
+		history.add(2023, "Crosby", 1, 0, 0, 1, 20);
+		history.add(2023, "Crosby", 2, 1, 1, -1, 21);
+		history.add(2021, "Crosby", 30, 40, 10, 5, 1500);
+		history.add(2021, "Ovechkin", 50, 20, 5, 0, 1400);
+		history.add(2022, "Ovechkin", 40, 30, 4, 0, 1450);
+		history.add(2023, "Makar", 20, 50, 2, 20, 1700);
+
+		// Test 1: Seasons are kept in order
+		if (!java.util.Arrays.equals(history.getSeasons(), new int[] {2021, 2022, 2023})
+				|| history.size() != 6 || history.getSeasonStats(2023).size() != 3
+				|| history.getSeasonStats(2020) != null) {
+			return false;
+		}
+
+		// Test 2: Aggregating one season sums its games
+		StatColumns season = history.aggregate(2023, 2023);
+		if (season.size() != 2 || !season.getName(0).equals("Crosby")
+				|| season.getGoals()[0] != 3 || season.getAssists()[0] != 1
+				|| season.getPenalties()[0] != 1 || season.getPlusMinus()[0] != 0
+				|| season.getTimeOnIce()[0] != 41) {
+			return false;
+		}
+
+		// Test 3: A range only counts the seasons in it
+		Player[] players = history.toPlayers(2021, 2022, WARModel.STANDARD);
+		if (players.length != 2 || !players[0].toString().equals("Crosby (WAR: 60)")
+				|| !players[1].toString().equals("Ovechkin (WAR: 131)")) {
+			return false;
+		}
+
+		// Test 4: A career queue ranks everyone's totals
+		QueueWAR career = history.toQueueWAR(Integer.MIN_VALUE, Integer.MAX_VALUE,
+				WARModel.STANDARD);
+		if (career.checkQueueSize() != 3
+				|| !career.removeBestPlayer().toString().equals("Ovechkin (WAR: 131)")
+				|| !career.removeBestPlayer().toString().equals("Makar (WAR: 68)")
+				|| !career.removeBestPlayer().toString().equals("Crosby (WAR: 63)")) {
+			return false;
+		}
+
+		// Test 5: An empty range and a reversed range
+		if (history.aggregate(1990, 2000).size() != 0) {
+			return false;
+		}
+		try {
+			history.aggregate(2023, 2021);
+			return false;
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+
+		// Test 6: Partitions grow past their first allocation and past eight seasons
+		for (int i = 0; i < 5000; i++) {
+			history.add(2000 + i % 12, "p" + (i % 100), 1, 0, 0, 0, 0);
+		}
+		StatColumns all = history.aggregate(2000, 2011);
+		if (all.size() != 100 || all.getGoals()[0] != 50
+				|| history.getSeasons().length != 15) {
+			return false;
+		}
+
+		// Test 7: One player's history comes back in season order, then recorded order
+		StatColumns crosby = history.getPlayerHistory("Crosby", Integer.MIN_VALUE,
+				Integer.MAX_VALUE);
+		if (crosby.size() != 3 || crosby.getGoals()[0] != 30 || crosby.getGoals()[1] != 1
+				|| crosby.getGoals()[2] != 2 || !crosby.getName(2).equals("Crosby")
+				|| history.getPlayerHistory("Crosby", 2022, 2022).size() != 0
+				|| history.getPlayerHistory("Gretzky", 2000, 2023).size() != 0) {
+			return false;
+		}
+		int lines = 0;
+		for (int year = 2000; year <= 2011; year++) {
+			lines += history.getPlayerHistory("p7", year, year).size();
+		}
+		if (lines != 50 || history.getPlayerHistory("p7", 2000, 2011).size() != 50) {
+			return false;
+		}
+
+		// Test 8: Season stats are a copy, so changing them doesn't change the store
+		StatColumns copy = history.getSeasonStats(2023);
+		copy.getGoals()[0] = 99;
+		copy.add("Intruder", 1, 1, 1, 1, 1);
+		if (history.getSeasonStats(2023).getGoals()[0] != 1
+				|| history.getSeasonStats(2023).size() != 3) {
+			return false;
+		}
+
+		return true;
+	}
+	
+	/**
+	 * Tests QueueWARServer over a local socket
+	 * 
+	 * @return true if method functions correctly, false if not
+	 */
+	public static boolean testQueueWARServer() {
+		RankedQueueWAR queue = new RankedQueueWAR();
+		try (QueueWARServer server = new QueueWARServer(queue, 4)) {
+			int port = server.start(0);
+
+			// Test 1: Commands from one client, with reads seeing earlier buffered writes
+			try (java.net.Socket socket = new java.net.Socket(
+					java.net.InetAddress.getLoopbackAddress(), port);
+					java.io.BufferedReader in = new java.io.BufferedReader(
+							new java.io.InputStreamReader(socket.getInputStream(), "UTF-8"));
+					java.io.PrintWriter out = new java.io.PrintWriter(
+							new java.io.OutputStreamWriter(socket.getOutputStream(), "UTF-8"),
+							true)) {
+				String[] commands = {"ADD Crosby,30,40,10", "ADD Ovechkin,50,20,5",
+						"ADD Makar,20,50,2", "SIZE", "PEEK", "RANK Crosby", "AT 2",
+						"ADD Crosby,60,60,0", "RANK Crosby", "COUNT 60 100", "ADD bad,1,2",
+						"ADD neg,-1,0,0", "RANK nobody", "AT x", "JUMP", "REMOVE", "SIZE"};
+				String[] replies = {"OK", "OK", "OK", "3", "Makar (WAR: 68)", "3",
+						"Ovechkin (WAR: 65)", "OK", "1", "2", "ERR", "ERR", "ERR", "ERR", "ERR",
+						"Crosby (WAR: 120)", "2"};
+				for (int i = 0; i < commands.length; i++) {
+					out.println(commands[i]);
+					if (!in.readLine().startsWith(replies[i])) {
+						return false;
+					}
+				}
+				out.println("TOP 5");
+				if (!in.readLine().equals("2") || !in.readLine().equals("Makar (WAR: 68)")
+						|| !in.readLine().equals("Ovechkin (WAR: 65)")) {
+					return false;
+				}
+				out.println("QUIT");
+				if (in.readLine() != null) {
+					return false;
+				}
+			}
+
+			// Test 2: Several clients writing at once lose no players
+			Thread[] clients = new Thread[4];
+			boolean[] failed = new boolean[1];
+			for (int c = 0; c < clients.length; c++) {
+				int client = c;
+				clients[c] = new Thread(() -> {
+					try (java.net.Socket socket = new java.net.Socket(
+							java.net.InetAddress.getLoopbackAddress(), port);
+							java.io.BufferedReader in = new java.io.BufferedReader(
+									new java.io.InputStreamReader(socket.getInputStream(),
+											"UTF-8"));
+							java.io.PrintWriter out = new java.io.PrintWriter(
+									new java.io.OutputStreamWriter(socket.getOutputStream(),
+											"UTF-8"), true)) {
+						for (int i = 0; i < 250; i++) {
+							out.println("ADD c" + client + "-" + i + "," + i + ",0,0");
+							if (!in.readLine().equals("OK")) {
+								failed[0] = true;
+							}
+						}
+					} catch (java.io.IOException e) {
+						failed[0] = true;
+					}
+				});
+				clients[c].start();
+			}
+			for (Thread client : clients) {
+				client.join();
+			}
+			server.flush();
+			if (failed[0] || queue.checkQueueSize() != 1002
+					|| !isValidIndexedHeap(queue)) {
+				return false;
+			}
+		} catch (java.io.IOException | InterruptedException e) {
+			return false;
+		}
+		return true;
+	}
+	
+	/**
+	 * Tests QueueWAR.runScript with and without pipelining
+	 * 
+	 * @return true if method functions correctly, false if not
+	 */
+	public static boolean testRunScript() {
+		String script = "1 Crosby 30 40 10\n1 Ovechkin 50 20 5\n\n1 bad x 1 1\n2\n"
+				+ "1 Makar 20 50 2\n1 Crosby 1 1 1\n4\n3\nJUMP\n4\n5\n4\n";
+		String[] expected = new String[2];
+		for (int pass = 0; pass < 2; pass++) {
+			boolean pipeline = pass == 1;
+			IndexedQueueWAR queue = new IndexedQueueWAR();
+			java.io.StringWriter out = new java.io.StringWriter();
+			try {
+				// Test 1: Every command up to 5 runs, blank lines don't count
+				if (queue.runScript(new java.io.BufferedReader(new java.io.StringReader(script)),
+						out, pipeline) != 11) {
+					return false;
+				}
+			} catch (java.io.IOException e) {
+				return false;
+			}
+			expected[pass] = out.toString();
+		}
+		// Test 2: Results, including the duplicate Crosby only failing on its own
+		String results = "Player could not be successfully added\n\n"
+				+ "Ovechkin (WAR: 65)\n"
+				+ "Player could not be successfully added\n\n"
+				+ "The queue size is currently 3\n"
+				+ "Makar (WAR: 68) was removed\n"
+				+ "Unknown command JUMP\n"
+				+ "The queue size is currently 2\n";
+		if (!expected[0].equals(results) || !expected[1].equals(results)) {
+			return false;
+		}
+
+		// Test 3: Reading from an empty queue reports instead of throwing
+		java.io.StringWriter out = new java.io.StringWriter();
+		try {
+			new QueueWAR().runScript(new java.io.BufferedReader(new java.io.StringReader("3\n2")),
+					out, true);
+		} catch (java.io.IOException e) {
+			return false;
+		}
+		return out.toString().equals("The queue is empty\nThe queue is empty\n");
+	}
+	
+	/**
+	 * Tests QueueWARMetrics, LatencyHistogram and the JMX registration
+	 * 
+	 * @return true if method functions correctly, false if not
+	 */
+	public static boolean testMetrics() {
+		// Test 1: Buckets stay within 12.5% of the value and percentiles round up
+		for (long value = 0; value < 1_000_000; value = value * 3 / 2 + 1) {
+			long top = LatencyHistogram.highestValueIn(LatencyHistogram.bucketOf(value));
+			if (top < value || top > value + value / 8) {
+				return false;
+			}
+		}
+		if (LatencyHistogram.highestValueIn(LatencyHistogram.bucketOf(Long.MAX_VALUE))
+				!= Long.MAX_VALUE) {
+			return false;
+		}
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int i = 1; i <= 100; i++) {
+			histogram.record(i);
+		}
+		if (histogram.getCount() != 100 || histogram.getMean() != 50.5
+				|| histogram.getPercentile(50) != 51 || histogram.getPercentile(100) != 103
+				|| histogram.getMax() != 103) {
+			return false;
+		}
+
+		// Test 2: Nothing is recorded until metrics are enabled
+		QueueWAR queue = new QueueWAR();
+		queue.addNewPlayer(new Player("a", 1));
+		if (queue.getMetrics() != null) {
+			return false;
+		}
+
+		// Test 3: Operations and sifts are counted exactly
+		QueueWARMetrics metrics = queue.enableMetrics();
+		queue.addNewPlayer(new Player("b", 5)); // moves above a: 1 comparison, 1 move
+		queue.addNewPlayer(new Player("c", 3)); // stays below b: 1 comparison
+		queue.checkHighestPlayer();
+		queue.removeBestPlayer(); // c moves to the root, only child a: 1 comparison
+		if (metrics.getAdds() != 2 || metrics.getPeeks() != 1 || metrics.getRemoves() != 1
+				|| metrics.getSifts() != 3 || metrics.getComparisons() != 3
+				|| metrics.getMoves() != 1 || metrics.getAddLatency().getCount() != 2) {
+			return false;
+		}
+		metrics.reset();
+		if (metrics.getAdds() != 0 || metrics.getAddLatencyMax() != 0) {
+			return false;
+		}
+
+		// Test 4: Metrics are readable through JMX and unregistered when disabled
+		IndexedQueueWAR indexed = new IndexedQueueWAR();
+		QueueWARMetrics registered = indexed.enableMetrics("testMetrics");
+		indexed.addAll(new Player[] {new Player("x", 1), new Player("y", 2)});
+		try {
+			javax.management.MBeanServer server =
+					java.lang.management.ManagementFactory.getPlatformMBeanServer();
+			if (!((Long) server.getAttribute(registered.getObjectName(), "Adds")).equals(2L)) {
+				return false;
+			}
+			try {
+				new QueueWAR().enableMetrics("testMetrics");
+				return false;
+			} catch (IllegalArgumentException e) {
+				// expected, the name is taken
+			}
+			javax.management.ObjectName name = registered.getObjectName();
+			indexed.disableMetrics();
+			if (server.isRegistered(name) || indexed.getMetrics() != null) {
+				return false;
+			}
+		} catch (javax.management.JMException e) {
+			return false;
+		}
+		return true;
+	}
+	
+	/**
+	 * Tests toSortedArray on QueueWAR, PrimitiveQueueWAR and ConcurrentQueueWAR
+	 * 
+	 * @return true if method functions correctly, false if not
+	 */
+	public static boolean testToSortedArray() {
+		// Test 1: An empty queue exports an empty array
+		if (new QueueWAR().toSortedArray().length != 0
+				|| new PrimitiveQueueWAR().toSortedArray().length != 0) {
+			return false;
+		}
+
+		// Test 2: A large export matches the ranking and leaves the queue as it was
+		java.util.Random random = new java.util.Random(7);
+		// ParallelRankSort splits this into four pieces sorted in parallel, then merges them
+		Player[] players = new Player[4 * ParallelRankSort.PARALLEL_THRESHOLD];
+		for (int i = 0; i < players.length; i++) {
+			players[i] = new Player("p" + i, random.nextInt(50), random.nextInt(50),
+					random.nextInt(20));
+		}
+		IndexedQueueWAR queue = new IndexedQueueWAR();
+		queue.addAll(players);
+		Player[] before = java.util.Arrays.copyOf(queue.array, queue.size);
+		Player[] sorted = queue.toSortedArray();
+		java.util.Iterator<Player> ranking = queue.ranking();
+		for (int i = 0; i < sorted.length; i++) {
+			if (sorted[i] != ranking.next()) {
+				return false;
+			}
+		}
+		if (sorted.length != players.length || ranking.hasNext()
+				|| !java.util.Arrays.equals(before, java.util.Arrays.copyOf(queue.array,
+						queue.size)) || !isValidIndexedHeap(queue)) {
+			return false;
+		}
+
+		// Test 3: PrimitiveQueueWAR exports by WAR alone
+		PrimitiveQueueWAR primitive = new PrimitiveQueueWAR();
+		for (int i = 0; i < players.length; i++) {
+			primitive.addNewPlayer(players[i]);
+		}
+		Player[] primitiveSorted = primitive.toSortedArray();
+		for (int i = 0; i < players.length; i++) {
+			if (primitiveSorted[i].getWAR() != sorted[i].getWAR()) {
+				return false;
+			}
+		}
+		if (primitive.checkQueueSize() != players.length) {
+			return false;
+		}
+
+		// Test 4: Keys and players must line up
+		try {
+			ParallelRankSort.sortDescending(new long[2], new Player[1]);
+			return false;
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+
+		// Test 5: ConcurrentQueueWAR includes players still buffered
+		ConcurrentQueueWAR concurrent = new ConcurrentQueueWAR(new QueueWAR(), 2, 1000);
+		for (int i = 0; i < 10; i++) {
+			concurrent.addNewPlayer(new Player("c" + i, i));
+		}
+		Player[] concurrentSorted = concurrent.toSortedArray();
+		if (concurrentSorted.length != 10 || concurrentSorted[0].getWAR() != 9
+				|| concurrentSorted[9].getWAR() != 0 || concurrent.checkQueueSize() != 10) {
+			return false;
+		}
+		return true;
+	}
+	
 	/**
 	 * Main method that runs tests
 	 * 
@@ -641,6 +2707,38 @@ public class HockeyWARTests extends QueueWAR{
 		System.out.println("testSwap returns: " + HockeyWARTests.testSwap());
 		System.out.println("testPropagateUp returns: " + HockeyWARTests.testPropagateUp());
 		System.out.println("testPropagateDown returns: " + HockeyWARTests.testPropagateDown());
+		System.out.println("testGrowable returns: " + HockeyWARTests.testGrowable());
+		System.out.println("testHeapOrder returns: " + HockeyWARTests.testHeapOrder());
+		System.out.println("testAddAll returns: " + HockeyWARTests.testAddAll());
+		System.out.println("testSeasonFileLoader returns: " +
+				HockeyWARTests.testSeasonFileLoader());
+		System.out.println("testPrimitiveQueueWAR returns: " +
+				HockeyWARTests.testPrimitiveQueueWAR());
+		System.out.println("testTopKLeaderboard returns: " +
+				HockeyWARTests.testTopKLeaderboard());
+		System.out.println("testUpdateStats returns: " + HockeyWARTests.testUpdateStats());
+		System.out.println("testRemovePlayer returns: " + HockeyWARTests.testRemovePlayer());
+		System.out.println("testConcurrentQueueWAR returns: " +
+				HockeyWARTests.testConcurrentQueueWAR());
+		System.out.println("testDaryQueueWAR returns: " + HockeyWARTests.testDaryQueueWAR());
+		System.out.println("testRanking returns: " + HockeyWARTests.testRanking());
+		System.out.println("testRankQueries returns: " + HockeyWARTests.testRankQueries());
+		System.out.println("testRangeQueries returns: " + HockeyWARTests.testRangeQueries());
+		System.out.println("testWARModel returns: " + HockeyWARTests.testWARModel());
+		System.out.println("testPlayByPlayProcessor returns: " +
+				HockeyWARTests.testPlayByPlayProcessor());
+		System.out.println("testDurableQueueWAR returns: " + HockeyWARTests.testDurableQueueWAR());
+		System.out.println("testMappedQueueWAR returns: " + HockeyWARTests.testMappedQueueWAR());
+		System.out.println("testRankKey returns: " + HockeyWARTests.testRankKey());
+		System.out.println("testNameDictionary returns: " +
+				HockeyWARTests.testNameDictionary());
+		System.out.println("testPlayerHistoryStore returns: " +
+				HockeyWARTests.testPlayerHistoryStore());
+		System.out.println("testQueueWARServer returns: " +
+				HockeyWARTests.testQueueWARServer());
+		System.out.println("testRunScript returns: " + HockeyWARTests.testRunScript());
+		System.out.println("testMetrics returns: " + HockeyWARTests.testMetrics());
+		System.out.println("testToSortedArray returns: " + HockeyWARTests.testToSortedArray());
 	}
 
 }
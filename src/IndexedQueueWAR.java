@@ -0,0 +1,384 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+
+/**
+ * @author Connor Flint
+ *
+ * IndexedQueueWAR is a QueueWAR that knows where every player sits in the heap, so a single
+ * player's stats can be changed while it is in the queue. The queue keeps a Slot for each of its
+ * players, holding the player and its heap index; a map from name to Slot finds it, and an array
+ * of Slots kept parallel to the heap array lets every sift and swap update the indexes of the
+ * players it moves. After updateStats the player is sifted up or down from its slot in O(log n)
+ * instead of rebuilding the queue, which keeps a live ranking cheap to maintain during games. The
+ * same index lets findPlayer run in O(1) and removePlayer pull an injured or traded player out
+ * in O(log n).
+ *
+ * Player names must be unique within the queue. Nothing about the queue is stored on the Players
+ * themselves, so the same Player can be in any number of queues, and updateStats replaces the
+ * queued Player with an updated copy rather than changing a Player other queues may hold.
+ */
+public class IndexedQueueWAR extends QueueWAR {
+	protected HashMap<String, Slot> players;
+	protected Slot[] slots; // slots[i] belongs to array[i]; always as long as array
+
+	/**
+	 * Where one queued player sits in the heap
+	 */
+	static final class Slot {
+		Player player;
+		int index;
+
+		Slot(Player player, int index) {
+			this.player = player;
+			this.index = index;
+		}
+	}
+
+	/**
+	 * Constructor to create a growable IndexedQueueWAR with the default capacity
+	 */
+	public IndexedQueueWAR() {
+		super();
+		this.players = new HashMap<>();
+		this.slots = new Slot[array.length];
+	}
+
+	/**
+	 * Constructor to create IndexedQueueWAR with a fixed capacity
+	 *
+	 * @param arrayCapacity
+	 */
+	public IndexedQueueWAR(int arrayCapacity) {
+		super(arrayCapacity);
+		this.players = new HashMap<>();
+		this.slots = new Slot[array.length];
+	}
+
+	/**
+	 * Constructor to create a growable IndexedQueueWAR
+	 *
+	 * @param arrayCapacity initial capacity
+	 * @param growthFactor factor the capacity is multiplied by when the array is full
+	 * @throws IllegalArgumentException if capacity is negative or growthFactor is not above 1
+	 */
+	public IndexedQueueWAR(int arrayCapacity, double growthFactor)
+			throws IllegalArgumentException {
+		super(arrayCapacity, growthFactor);
+		this.players = new HashMap<>();
+		this.slots = new Slot[array.length];
+	}
+
+	/**
+	 * Adds a given player to IndexedQueueWAR
+	 *
+	 * @param player to be added
+	 * @throws NullPointerException if player is null
+	 * @throws IllegalArgumentException if a player with the same name is already queued
+	 * @throws IndexOutOfBoundsException if the queue is at capacity and not growable
+	 */
+	@Override
+	public void addNewPlayer(Player player) throws NullPointerException,
+	IllegalArgumentException, IndexOutOfBoundsException {
+		if (player == null) {
+			throw new NullPointerException("Player can't be null!");
+		}
+		checkNotQueued(player);
+		// grown here so the slot is in place before QueueWAR.addNewPlayer sifts the player up
+		if (array.length == size) {
+			grow(size + 1);
+		}
+		Slot slot = new Slot(player, size);
+		slots[size] = slot;
+		super.addNewPlayer(player);
+		players.put(player.getName(), slot);
+	}
+
+	/**
+	 * Adds every player in the given array to IndexedQueueWAR
+	 *
+	 * @param players to be added
+	 * @throws NullPointerException if players or any player in it is null
+	 * @throws IllegalArgumentException if two players share a name, or a player with the same
+	 *                                  name is already queued
+	 * @throws IndexOutOfBoundsException if the players don't fit and the queue isn't growable
+	 */
+	@Override
+	public void addAll(Player[] players) throws NullPointerException,
+	IllegalArgumentException, IndexOutOfBoundsException {
+		if (players == null) {
+			throw new NullPointerException("Players can't be null!");
+		}
+		HashSet<String> batchNames = new HashSet<>();
+		for (int i = 0; i < players.length; i++) {
+			if (players[i] == null) {
+				throw new NullPointerException("Player can't be null!");
+			}
+			checkNotQueued(players[i]);
+			if (!batchNames.add(players[i].getName())) {
+				throw new IllegalArgumentException(players[i].getName()
+						+ " is in the batch twice!");
+			}
+		}
+		if (players.length > array.length - size) {
+			grow(size + players.length);
+		}
+
+		// players that never move during the sifts keep the slot they were appended to
+		Slot[] added = new Slot[players.length];
+		for (int i = 0; i < players.length; i++) {
+			added[i] = new Slot(players[i], size + i);
+		}
+		System.arraycopy(added, 0, slots, size, added.length);
+		super.addAll(players);
+		for (int i = 0; i < added.length; i++) {
+			this.players.put(players[i].getName(), added[i]);
+		}
+	}
+
+	/**
+	 * Removes Player with the highest WAR from IndexedQueueWAR
+	 *
+	 * @return player that is removed
+	 * @throws IllegalStateException if the queue is empty
+	 */
+	@Override
+	public Player removeBestPlayer() throws IllegalStateException {
+		if (size == 0) {
+			throw new IllegalStateException("QueueWAR is empty!");
+		}
+		// moved the same way QueueWAR.removeBestPlayer moves the Players
+		slots[0] = slots[size - 1];
+		slots[size - 1] = null;
+		Player removed = super.removeBestPlayer();
+		players.remove(removed.getName());
+		return removed;
+	}
+
+	/**
+	 * Finds a queued player by name in O(1)
+	 *
+	 * @param name of the player
+	 * @return the player, or null if no queued player has that name
+	 * @throws NullPointerException if name is null
+	 */
+	public Player findPlayer(String name) throws NullPointerException {
+		if (name == null) {
+			throw new NullPointerException("Name can't be null!");
+		}
+		Slot slot = players.get(name);
+		return slot == null ? null : slot.player;
+	}
+
+	/**
+	 * Returns whether a player with the given name is queued
+	 *
+	 * @param name of the player
+	 * @return true if the player is queued
+	 * @throws NullPointerException if name is null
+	 */
+	public boolean containsPlayer(String name) throws NullPointerException {
+		return findPlayer(name) != null;
+	}
+
+	/**
+	 * Removes a queued player by name in O(log n)
+	 *
+	 * @param name of the player
+	 * @return the removed player, or null if no queued player has that name
+	 * @throws NullPointerException if name is null
+	 */
+	public Player removePlayer(String name) throws NullPointerException {
+		if (name == null) {
+			throw new NullPointerException("Name can't be null!");
+		}
+		Slot slot = players.remove(name);
+		if (slot == null) {
+			return null;
+		}
+		removeAt(slot.index);
+		return slot.player;
+	}
+
+	/**
+	 * Replaces a queued player's season totals, recalculates its WAR, and moves it to its new
+	 * place in the queue in O(log n). The queued Player is replaced by a new one with the new
+	 * totals and the old one's creation sequence; the old Player isn't changed.
+	 *
+	 * @param name of the player
+	 * @param goals new number of goals
+	 * @param assists new number of assists
+	 * @param penalties new number of penalties
+	 * @return the updated player, which is now the one queued
+	 * @throws NullPointerException if name is null
+	 * @throws IllegalArgumentException if no player has that name, or a stat is less than 0
+	 */
+	public Player updateStats(String name, int goals, int assists, int penalties)
+			throws NullPointerException, IllegalArgumentException {
+		if (name == null) {
+			throw new NullPointerException("Name can't be null!");
+		}
+		Slot slot = players.get(name);
+		if (slot == null) {
+			throw new IllegalArgumentException("No player named " + name + " is queued!");
+		}
+
+		Player old = slot.player;
+		Player updated = old.withStats(goals, assists, penalties);
+		slot.player = updated;
+		array[slot.index] = updated;
+		modCount += 1;
+		if (updated.rankKey > old.rankKey) {
+			siftUp(slot.index);
+		} else if (updated.rankKey < old.rankKey) {
+			siftDown(slot.index);
+		}
+		return updated;
+	}
+
+	/**
+	 * Checks that a player can be added
+	 *
+	 * @param player to check
+	 * @throws IllegalArgumentException if a player with the same name is already queued
+	 */
+	private void checkNotQueued(Player player) throws IllegalArgumentException {
+		if (players.containsKey(player.getName())) {
+			throw new IllegalArgumentException(player.getName() + " is already queued!");
+		}
+	}
+
+	/**
+	 * Grows the heap array and the slot array with it
+	 *
+	 * @param minCapacity
+	 * @throws IndexOutOfBoundsException if the queue isn't growable or can't get any bigger
+	 */
+	@Override
+	protected void grow(int minCapacity) throws IndexOutOfBoundsException {
+		super.grow(minCapacity);
+		slots = Arrays.copyOf(slots, array.length);
+	}
+
+	/**
+	 * Grows the heap array and the slot array to at least the given capacity
+	 *
+	 * @param minCapacity
+	 * @throws IndexOutOfBoundsException if minCapacity is larger than the maximum array size
+	 */
+	@Override
+	public void ensureCapacity(int minCapacity) throws IndexOutOfBoundsException {
+		super.ensureCapacity(minCapacity);
+		if (slots.length != array.length) {
+			slots = Arrays.copyOf(slots, array.length);
+		}
+	}
+
+	/**
+	 * Shrinks the heap array and the slot array to the current size
+	 */
+	@Override
+	public void trimToSize() {
+		super.trimToSize();
+		if (slots.length != array.length) {
+			slots = Arrays.copyOf(slots, array.length);
+		}
+	}
+
+	/**
+	 * Removes the Player at any index, moving the slots the same way QueueWAR.removeAt moves
+	 * the Players
+	 *
+	 * @param index of the Player to remove, must be valid
+	 * @return player that is removed
+	 */
+	@Override
+	protected Player removeAt(int index) {
+		Slot last = slots[size - 1];
+		slots[size - 1] = null;
+		if (index < size - 1) {
+			slots[index] = last;
+		}
+		return super.removeAt(index);
+	}
+
+	/**
+	 * Swaps the Players at two indexes along with their slots
+	 *
+	 * @param indexA
+	 * @param indexB
+	 * @throws Exception if either index is below 0 or out of range
+	 */
+	@Override
+	protected void swap(int indexA, int indexB) throws Exception {
+		super.swap(indexA, indexB);
+		Slot slotA = slots[indexB];
+		Slot slotB = slots[indexA];
+		slots[indexA] = slotA;
+		slots[indexB] = slotB;
+		slotA.index = indexA;
+		slotB.index = indexB;
+	}
+
+	/**
+	 * QueueWAR.siftUp that moves every Player's slot along with it
+	 *
+	 * @param index to start
+	 */
+	@Override
+	protected void siftUp(int index) {
+		Player moving = array[index];
+		Slot movingSlot = slots[index];
+		int start = index;
+		while (index > 0) {
+			int parentIndex = (index - 1) >>> 1;
+			Player parent = array[parentIndex];
+			if (moving.rankKey <= parent.rankKey) {
+				break;
+			}
+			array[index] = parent;
+			Slot parentSlot = slots[parentIndex];
+			slots[index] = parentSlot;
+			parentSlot.index = index;
+			index = parentIndex;
+		}
+		array[index] = moving;
+		slots[index] = movingSlot;
+		movingSlot.index = index;
+		recordSiftUp(start, index);
+	}
+
+	/**
+	 * QueueWAR.siftDown that moves every Player's slot along with it
+	 *
+	 * @param index to start
+	 */
+	@Override
+	protected void siftDown(int index) {
+		Player moving = array[index];
+		Slot movingSlot = slots[index];
+		int firstLeaf = size >>> 1;
+		int start = index;
+		while (index < firstLeaf) {
+			int childIndex = (index << 1) + 1;
+			Player greatestChild = array[childIndex];
+			int rightIndex = childIndex + 1;
+			if (rightIndex < size && array[rightIndex].rankKey >= greatestChild.rankKey) {
+				childIndex = rightIndex;
+				greatestChild = array[rightIndex];
+			}
+			if (moving.rankKey >= greatestChild.rankKey) {
+				break;
+			}
+			array[index] = greatestChild;
+			Slot childSlot = slots[childIndex];
+			slots[index] = childSlot;
+			childSlot.index = index;
+			index = childIndex;
+		}
+		array[index] = moving;
+		slots[index] = movingSlot;
+		movingSlot.index = index;
+		recordSiftDown(start, index);
+	}
+}
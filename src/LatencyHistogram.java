@@ -0,0 +1,144 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author Connor Flint
+ *
+ * LatencyHistogram records durations in nanoseconds into log-linear buckets, in the style of an
+ * HDR histogram: every power of two is split into SUB_BUCKETS equal buckets, so any recorded
+ * value is known to within 1/SUB_BUCKETS (12.5%) of itself whether it is 50 nanoseconds or 5
+ * seconds, in a fixed 4 KB of counts. Recording is one bit count, a shift and an atomic
+ * increment, with no allocation and no locks, so it can be called from any thread while another
+ * thread reads percentiles.
+ */
+public class LatencyHistogram {
+	private static final int SUB_BUCKET_BITS = 3;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	// values below 2 * SUB_BUCKETS each get their own bucket
+	private static final int LINEAR_LIMIT = SUB_BUCKETS << 1;
+	private static final int BUCKETS = LINEAR_LIMIT + (63 - SUB_BUCKET_BITS - 1) * SUB_BUCKETS;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final LongAdder total = new LongAdder();
+	private final LongAdder sum = new LongAdder();
+
+	/**
+	 * Records one duration
+	 *
+	 * @param nanos duration, negative values are recorded as 0
+	 */
+	public void record(long nanos) {
+		long value = Math.max(0, nanos);
+		counts.incrementAndGet(bucketOf(value));
+		total.increment();
+		sum.add(value);
+	}
+
+	/**
+	 * Returns the number of recorded durations
+	 *
+	 * @return count
+	 */
+	public long getCount() {
+		return total.sum();
+	}
+
+	/**
+	 * Returns the mean of the recorded durations
+	 *
+	 * @return mean in nanoseconds, 0 if nothing has been recorded
+	 */
+	public double getMean() {
+		long count = total.sum();
+		return count == 0 ? 0 : (double) sum.sum() / count;
+	}
+
+	/**
+	 * Returns the duration at a percentile, rounded up to the top of its bucket, for example
+	 * getPercentile(99) is a duration at least 99% of recorded durations are at or below
+	 *
+	 * @param p percentile from 0 to 100
+	 * @return duration in nanoseconds, 0 if nothing has been recorded
+	 * @throws IllegalArgumentException if p is outside 0 to 100
+	 */
+	public long getPercentile(double p) throws IllegalArgumentException {
+		if (!(p >= 0 && p <= 100)) {
+			throw new IllegalArgumentException("Percentile must be from 0 to 100!");
+		}
+		long count = 0;
+		long[] snapshot = new long[BUCKETS];
+		for (int i = 0; i < BUCKETS; i++) {
+			snapshot[i] = counts.get(i);
+			count += snapshot[i];
+		}
+		if (count == 0) {
+			return 0;
+		}
+		long target = Math.max(1, (long) Math.ceil(count * p / 100));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += snapshot[i];
+			if (seen >= target) {
+				return highestValueIn(i);
+			}
+		}
+		return highestValueIn(BUCKETS - 1);
+	}
+
+	/**
+	 * Returns the largest recorded duration, rounded up to the top of its bucket
+	 *
+	 * @return duration in nanoseconds, 0 if nothing has been recorded
+	 */
+	public long getMax() {
+		for (int i = BUCKETS - 1; i >= 0; i--) {
+			if (counts.get(i) != 0) {
+				return highestValueIn(i);
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Clears every recorded duration. Durations recorded while resetting may be lost.
+	 */
+	public void reset() {
+		for (int i = 0; i < BUCKETS; i++) {
+			counts.set(i, 0);
+		}
+		total.reset();
+		sum.reset();
+	}
+
+	/**
+	 * Returns the bucket a value belongs to
+	 *
+	 * @param value at least 0
+	 * @return bucket index
+	 */
+	static int bucketOf(long value) {
+		if (value < LINEAR_LIMIT) {
+			return (int) value;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(value); // at least SUB_BUCKET_BITS + 1
+		int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return LINEAR_LIMIT + (exponent - SUB_BUCKET_BITS - 1) * SUB_BUCKETS + subBucket;
+	}
+
+	/**
+	 * Returns the largest value that falls in a bucket
+	 *
+	 * @param bucket index
+	 * @return largest value
+	 */
+	static long highestValueIn(int bucket) {
+		if (bucket < LINEAR_LIMIT) {
+			return bucket;
+		}
+		int exponent = (bucket - LINEAR_LIMIT) / SUB_BUCKETS + SUB_BUCKET_BITS + 1;
+		int subBucket = (bucket - LINEAR_LIMIT) % SUB_BUCKETS;
+		int shift = exponent - SUB_BUCKET_BITS;
+		long lowest = ((long) (SUB_BUCKETS + subBucket)) << shift;
+		return lowest + (1L << shift) - 1; // Long.MAX_VALUE for the top bucket
+	}
+}
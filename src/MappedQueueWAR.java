@@ -0,0 +1,307 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * @author Connor Flint
+ *
+ * MappedQueueWAR opens a binary roster file straight into a max-heap, without parsing text or
+ * creating a Player per record. The file is memory-mapped read-only with FileChannel.map and its
+ * records are already in heap order, so opening only reads the header and costs the same for ten
+ * players or ten million; pages of the file are loaded by the operating system the first time
+ * they are touched. Player objects are only created when checkHighestPlayer or removeBestPlayer
+ * returns one.
+ *
+ * Roster file layout, big-endian:
+ *
+ *     header   int magic "WARR", int version, int player count, int reserved
+ *     heap     one 8-byte entry per player in heap order: int WAR, int name offset
+ *     names    per player: unsigned short length, then that many UTF-8 bytes
+ *
+ * A name offset counts bytes from the start of the name table. Each heap entry has the same
+ * layout as a PrimitiveQueueWAR slot, WAR in the high half and the name reference in the low
+ * half, so the heap is sifted by reading and writing single longs.
+ *
+ * Entries are ordered by WAR, then by name offset, lowest first. writeRoster writes players and
+ * their names from highest to lowest rank, so the name offset is the player's position in the
+ * source queue's ranking, and a mapped roster returns players in exactly the order the source
+ * queue ranked them, ties included. The goals and penalties behind that order aren't stored, so
+ * returned Players carry only WAR.
+ *
+ * The file is only opened for reading, so read-only rosters can be opened, and it is never
+ * modified. Removing players copies on write: the player count is kept in a field, and a block of
+ * PAGE_ENTRIES heap entries is copied onto the Java heap the first time a sift writes to it, so
+ * only the parts of the heap that removals touch are ever copied. Players can't be added to a
+ * mapped roster; call toQueueWAR for a growable copy.
+ */
+public class MappedQueueWAR {
+	private static final int MAGIC = 0x57415252; // "WARR"
+	private static final int VERSION = 1;
+	private static final int HEADER_BYTES = 16;
+	private static final int ENTRY_BYTES = 8;
+	private static final int MAX_NAME_BYTES = 0xFFFF;
+	private static final int PAGE_SHIFT = 9;
+	private static final int PAGE_ENTRIES = 1 << PAGE_SHIFT; // 4 KB of entries
+
+	private final MappedByteBuffer buffer;
+	private final int namesStart; // position of the name table
+	private final long[][] pages; // copied blocks of heap entries, null until first written
+	private int size;
+
+	/**
+	 * Opens a roster file written by writeRoster
+	 *
+	 * @param path of the roster file
+	 * @throws NullPointerException if path is null
+	 * @throws IOException if the file can't be read, isn't a roster file, or is larger than
+	 *                     2 GB
+	 */
+	public MappedQueueWAR(Path path) throws NullPointerException, IOException {
+		if (path == null) {
+			throw new NullPointerException("Path can't be null!");
+		}
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long length = channel.size();
+			if (length > Integer.MAX_VALUE) {
+				throw new IOException(path + " is larger than 2 GB");
+			}
+			if (length < HEADER_BYTES) {
+				throw new IOException(path + " isn't a roster file");
+			}
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+		}
+		if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+			throw new IOException(path + " isn't a roster file");
+		}
+		size = buffer.getInt(8);
+		if (size < 0 || HEADER_BYTES + (long) size * ENTRY_BYTES > buffer.capacity()) {
+			throw new IOException(path + " is corrupt");
+		}
+		namesStart = HEADER_BYTES + size * ENTRY_BYTES;
+		pages = new long[(size + PAGE_ENTRIES - 1) >>> PAGE_SHIFT][];
+	}
+
+	/**
+	 * Writes a queue's players to a roster file from highest to lowest rank. A sorted array is a
+	 * valid binary heap, so any QueueWAR can be written, whatever its arity or heap layout.
+	 *
+	 * @param queue to write; it isn't changed
+	 * @param path of the roster file, replaced if it exists
+	 * @throws NullPointerException if queue or path is null
+	 * @throws IllegalArgumentException if a name is longer than 65535 bytes or the roster
+	 *                                  would be larger than 2 GB
+	 * @throws IOException if the file can't be written
+	 */
+	public static void writeRoster(QueueWAR queue, Path path) throws NullPointerException,
+	IllegalArgumentException, IOException {
+		if (queue == null || path == null) {
+			throw new NullPointerException("Queue and path can't be null!");
+		}
+		Player[] players = queue.toSortedArray();
+		int count = players.length;
+		byte[][] names = new byte[count][];
+		long namesLength = 0;
+		for (int i = 0; i < count; i++) {
+			names[i] = players[i].getName().getBytes(StandardCharsets.UTF_8);
+			if (names[i].length > MAX_NAME_BYTES) {
+				throw new IllegalArgumentException("Name is longer than " + MAX_NAME_BYTES
+						+ " bytes!");
+			}
+			namesLength += 2 + names[i].length;
+		}
+		if (HEADER_BYTES + (long) count * ENTRY_BYTES + namesLength > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Roster would be larger than 2 GB!");
+		}
+
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+				Files.newOutputStream(path), 1 << 16))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(count);
+			out.writeInt(0);
+			int offset = 0;
+			for (int i = 0; i < count; i++) {
+				out.writeInt(players[i].getWAR());
+				out.writeInt(offset);
+				offset += 2 + names[i].length;
+			}
+			for (int i = 0; i < count; i++) {
+				out.writeShort(names[i].length);
+				out.write(names[i]);
+			}
+		}
+	}
+
+	/**
+	 * Returns player in queue with the highest WAR
+	 *
+	 * @return new Player object for the highest entry
+	 * @throws IllegalStateException if the queue is empty
+	 */
+	public Player checkHighestPlayer() throws IllegalStateException {
+		if (size == 0) {
+			throw new IllegalStateException("MappedQueueWAR is empty!");
+		}
+		return toPlayer(entry(0));
+	}
+
+	/**
+	 * Removes the player with the highest WAR
+	 *
+	 * @return player that is removed
+	 * @throws IllegalStateException if the queue is empty
+	 */
+	public Player removeBestPlayer() throws IllegalStateException {
+		if (size == 0) {
+			throw new IllegalStateException("MappedQueueWAR is empty!");
+		}
+		Player removed = toPlayer(entry(0));
+		size -= 1;
+		if (size > 0) {
+			setEntry(0, entry(size));
+			siftDown(0);
+		}
+		return removed;
+	}
+
+	/**
+	 * Returns the current size of MappedQueueWAR
+	 *
+	 * @return size of the queue
+	 */
+	public int checkQueueSize() {
+		return size;
+	}
+
+	/**
+	 * Copies the remaining players into a new growable QueueWAR. Players are created from
+	 * highest to lowest rank, so the copy breaks ties between them in the same order, by
+	 * creation (see Player).
+	 *
+	 * @return new QueueWAR
+	 */
+	public QueueWAR toQueueWAR() {
+		long[] keys = new long[size];
+		for (int i = 0; i < size; i++) {
+			keys[i] = rankOf(entry(i));
+		}
+		Arrays.sort(keys);
+		Player[] players = new Player[size];
+		for (int i = 0; i < size; i++) {
+			players[i] = toPlayer(rankOf(keys[size - 1 - i])); // rankOf is its own inverse
+		}
+		// a sorted array is already a heap, so fromArray's heapify moves nothing
+		return QueueWAR.fromArray(players);
+	}
+
+	/**
+	 * Moves the entry at index down until both children rank lower
+	 *
+	 * @param index to start
+	 */
+	private void siftDown(int index) {
+		long moving = entry(index);
+		long rank = rankOf(moving);
+		int firstLeaf = size >>> 1;
+		while (index < firstLeaf) {
+			int childIndex = (index << 1) + 1;
+			long greatestChild = entry(childIndex);
+			int rightIndex = childIndex + 1;
+			if (rightIndex < size && rankOf(entry(rightIndex)) > rankOf(greatestChild)) {
+				childIndex = rightIndex;
+				greatestChild = entry(rightIndex);
+			}
+			if (rank >= rankOf(greatestChild)) {
+				break;
+			}
+			setEntry(index, greatestChild);
+			index = childIndex;
+		}
+		setEntry(index, moving);
+	}
+
+	/**
+	 * Reads a heap entry
+	 *
+	 * @param index of the entry
+	 * @return WAR in the high 32 bits, name offset in the low 32 bits
+	 */
+	private long entry(int index) {
+		long[] page = pages[index >>> PAGE_SHIFT];
+		if (page != null) {
+			return page[index & (PAGE_ENTRIES - 1)];
+		}
+		return buffer.getLong(HEADER_BYTES + index * ENTRY_BYTES);
+	}
+
+	/**
+	 * Writes a heap entry, copying its page of entries out of the mapping first if this is the
+	 * first write to it
+	 *
+	 * @param index of the entry
+	 * @param entry to write
+	 */
+	private void setEntry(int index, long entry) {
+		int p = index >>> PAGE_SHIFT;
+		long[] page = pages[p];
+		if (page == null) {
+			int first = p << PAGE_SHIFT;
+			int entries = (namesStart - HEADER_BYTES) / ENTRY_BYTES; // players in the file
+			page = new long[Math.min(PAGE_ENTRIES, entries - first)];
+			for (int i = 0; i < page.length; i++) {
+				page[i] = buffer.getLong(HEADER_BYTES + (first + i) * ENTRY_BYTES);
+			}
+			pages[p] = page;
+		}
+		page[index & (PAGE_ENTRIES - 1)] = entry;
+	}
+
+	/**
+	 * Creates a Player from a heap entry, decoding its name from the name table
+	 *
+	 * @param entry heap entry
+	 * @return new Player object
+	 * @throws IllegalStateException if the name offset points outside the file
+	 */
+	private Player toPlayer(long entry) throws IllegalStateException {
+		int position = namesStart + (int) entry;
+		if ((int) entry < 0 || position < namesStart || position > buffer.capacity() - 2) {
+			throw new IllegalStateException("Roster file is corrupt!");
+		}
+		int length = buffer.getShort(position) & 0xFFFF;
+		if (position + 2 + length > buffer.capacity()) {
+			throw new IllegalStateException("Roster file is corrupt!");
+		}
+		byte[] name = new byte[length];
+		buffer.get(position + 2, name);
+		return new Player(new String(name, StandardCharsets.UTF_8), warOf(entry));
+	}
+
+	/**
+	 * Returns a heap entry with its name offset inverted, so that a greater value ranks higher:
+	 * higher WAR first, then lower name offset
+	 *
+	 * @param entry heap entry
+	 * @return ranking value
+	 */
+	private static long rankOf(long entry) {
+		return entry ^ 0xFFFFFFFFL;
+	}
+
+	/**
+	 * Returns the WAR stored in a heap entry
+	 *
+	 * @param entry
+	 * @return WAR
+	 */
+	private static int warOf(long entry) {
+		return (int) (entry >> 32);
+	}
+}
@@ -0,0 +1,432 @@
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * @author Connor Flint
+ *
+ * NameDictionary gives every distinct player name a compact int id and stores each name once,
+ * no matter how many seasons or rows it appears in. The names are kept as UTF-8 bytes in one
+ * shared byte array, found through an open-addressing hash table of ids, so a name the
+ * dictionary holds costs its bytes plus a few ints instead of a String object, its backing array
+ * and their headers. Loaders can look names up straight from their read buffers without building
+ * a String.
+ *
+ * A dictionary can also cache one String per name, created the first time nameOf is called and
+ * handed out for every Player with that name, so a ten-million-row history with fifty thousand
+ * distinct players holds fifty thousand name Strings, not ten million. Cached names cost their
+ * String on top of their bytes, so the cache is optional; without it nameOf creates a new String
+ * each time. Players keep a String, not an id, so the dictionary saves memory by sharing those
+ * Strings and by letting columnar stores such as PlayerHistoryStore and PrimitiveQueueWAR keep
+ * ids instead of references.
+ *
+ * Names come in two kinds. intern pins a name for the life of the dictionary, for users like
+ * PlayByPlayProcessor whose arrays are indexed by id. acquire and release count references
+ * instead, for users like PrimitiveQueueWAR whose names come and go: when the last reference to
+ * an unpinned name is released, the name is removed, its id is reused by the next new name, and
+ * its bytes are reclaimed once dead bytes make up half of the byte array.
+ */
+public class NameDictionary {
+	private static final int DEFAULT_NAMES = 64;
+	private static final int PINNED = -1; // reference count of a name that is never removed
+
+	private byte[] bytes = new byte[DEFAULT_NAMES * 16]; // every name's UTF-8
+	private int byteCount; // bytes used, including those of removed names
+	private int deadBytes; // bytes of removed names, reclaimed by compactBytes
+	private int[] starts = new int[DEFAULT_NAMES]; // name id's bytes are starts[id]..+lengths[id]
+	private int[] lengths = new int[DEFAULT_NAMES];
+	private int[] hashes = new int[DEFAULT_NAMES];
+	private int[] refs = new int[DEFAULT_NAMES]; // references, PINNED, or 0 for an unused id
+	private String[] strings; // shared instances, created lazily; null if not caching
+	private int[] freeIds = new int[0]; // stack of ids that can be reused
+	private int freeCount;
+	private int nextId; // one past the largest id ever handed out
+	private int size;
+
+	// open-addressing table of name id + 1, 0 for an empty slot; at most half full
+	private int[] table = new int[DEFAULT_NAMES * 2];
+
+	/**
+	 * Creates an empty dictionary that caches one String per name
+	 */
+	public NameDictionary() {
+		this(true);
+	}
+
+	/**
+	 * Creates an empty dictionary
+	 *
+	 * @param cacheStrings whether nameOf should hand out one shared String per name
+	 */
+	public NameDictionary(boolean cacheStrings) {
+		if (cacheStrings) {
+			strings = new String[DEFAULT_NAMES];
+		}
+	}
+
+	/**
+	 * Returns the id of a name, adding it if it's new, and pins it so it is never removed
+	 *
+	 * @param name to look up
+	 * @return id of the name
+	 * @throws NullPointerException if name is null
+	 * @throws IllegalStateException if the dictionary can't hold any more names
+	 */
+	public int intern(String name) throws NullPointerException, IllegalStateException {
+		int id = lookUp(name);
+		refs[id] = PINNED;
+		return id;
+	}
+
+	/**
+	 * Returns the id of a name given as UTF-8 bytes, adding it if it's new, and pins it so it is
+	 * never removed. Nothing is allocated for a name that is already in the dictionary.
+	 *
+	 * @param utf8 holding the name
+	 * @param from index of the first byte of the name
+	 * @param to index just past the last byte of the name
+	 * @return id of the name
+	 * @throws IndexOutOfBoundsException if from and to aren't a range of utf8
+	 * @throws IllegalStateException if the dictionary can't hold any more names
+	 */
+	public int intern(byte[] utf8, int from, int to) throws IndexOutOfBoundsException,
+	IllegalStateException {
+		int id = lookUp(utf8, from, to);
+		refs[id] = PINNED;
+		return id;
+	}
+
+	/**
+	 * Returns the id of a name, adding it if it's new, and counts one more reference to it.
+	 * Every acquire should be matched by a release once the id is no longer used.
+	 *
+	 * @param name to look up
+	 * @return id of the name
+	 * @throws NullPointerException if name is null
+	 * @throws IllegalStateException if the dictionary can't hold any more names
+	 */
+	public int acquire(String name) throws NullPointerException, IllegalStateException {
+		int id = lookUp(name);
+		if (refs[id] != PINNED) {
+			refs[id]++;
+		}
+		return id;
+	}
+
+	/**
+	 * Drops one reference to a name acquired with acquire. The name is removed and its id
+	 * freed for reuse when no references are left, unless it has been pinned by intern.
+	 *
+	 * @param id of the name
+	 * @throws IndexOutOfBoundsException if id isn't in the dictionary
+	 */
+	public void release(int id) throws IndexOutOfBoundsException {
+		checkId(id);
+		if (refs[id] == PINNED || --refs[id] > 0) {
+			return;
+		}
+		removeFromTable(id);
+		deadBytes += lengths[id];
+		lengths[id] = 0;
+		if (strings != null) {
+			strings[id] = null;
+		}
+		if (freeCount == freeIds.length) {
+			freeIds = Arrays.copyOf(freeIds, Math.max(DEFAULT_NAMES, freeCount * 2));
+		}
+		freeIds[freeCount++] = id;
+		size--;
+	}
+
+	/**
+	 * Returns the id of a name without adding it
+	 *
+	 * @param name to look up
+	 * @return id of the name, or -1 if it isn't in the dictionary
+	 * @throws NullPointerException if name is null
+	 */
+	public int find(String name) throws NullPointerException {
+		if (name == null) {
+			throw new NullPointerException("Name can't be null!");
+		}
+		byte[] utf8 = name.getBytes(StandardCharsets.UTF_8);
+		int slot = findSlot(utf8, 0, utf8.length, hash(utf8, 0, utf8.length));
+		return table[slot] - 1;
+	}
+
+	/**
+	 * Returns the name with the given id. With the String cache on, every call for the same id
+	 * returns the same String.
+	 *
+	 * @param id of the name
+	 * @return name
+	 * @throws IndexOutOfBoundsException if id isn't in the dictionary
+	 */
+	public String nameOf(int id) throws IndexOutOfBoundsException {
+		checkId(id);
+		if (strings == null) {
+			return new String(bytes, starts[id], lengths[id], StandardCharsets.UTF_8);
+		}
+		String name = strings[id];
+		if (name == null) {
+			name = new String(bytes, starts[id], lengths[id], StandardCharsets.UTF_8);
+			strings[id] = name;
+		}
+		return name;
+	}
+
+	/**
+	 * Returns the number of distinct names
+	 *
+	 * @return size of the dictionary
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns one more than the largest id handed out, so arrays indexed by id must be at least
+	 * this long. Equal to size() until a name has been removed.
+	 *
+	 * @return bound on ids
+	 */
+	public int idBound() {
+		return nextId;
+	}
+
+	/**
+	 * Returns the number of UTF-8 bytes stored for the names in the dictionary
+	 *
+	 * @return total name bytes
+	 */
+	public int byteSize() {
+		return byteCount - deadBytes;
+	}
+
+	/**
+	 * Looks a name up, adding it if it's new, and caches the given String for it
+	 *
+	 * @param name to look up
+	 * @return id of the name
+	 * @throws NullPointerException if name is null
+	 * @throws IllegalStateException if the dictionary can't hold any more names
+	 */
+	private int lookUp(String name) throws NullPointerException, IllegalStateException {
+		if (name == null) {
+			throw new NullPointerException("Name can't be null!");
+		}
+		byte[] utf8 = name.getBytes(StandardCharsets.UTF_8);
+		int id = lookUp(utf8, 0, utf8.length);
+		if (strings != null && strings[id] == null) {
+			strings[id] = name;
+		}
+		return id;
+	}
+
+	/**
+	 * Looks a name up, adding it if it's new. A new name has no references until the caller
+	 * pins or counts it.
+	 *
+	 * @param utf8 holding the name
+	 * @param from index of the first byte of the name
+	 * @param to index just past the last byte of the name
+	 * @return id of the name
+	 * @throws IndexOutOfBoundsException if from and to aren't a range of utf8
+	 * @throws IllegalStateException if the dictionary can't hold any more names
+	 */
+	private int lookUp(byte[] utf8, int from, int to) throws IndexOutOfBoundsException,
+	IllegalStateException {
+		if (from < 0 || to > utf8.length || from > to) {
+			throw new IndexOutOfBoundsException("Range " + from + " to " + to
+					+ " is out of range!");
+		}
+		int hash = hash(utf8, from, to);
+		int slot = findSlot(utf8, from, to, hash);
+		if (table[slot] != 0) {
+			return table[slot] - 1;
+		}
+
+		int length = to - from;
+		if (byteCount + length > bytes.length) {
+			makeRoom(length);
+		}
+		int id;
+		if (freeCount > 0) {
+			id = freeIds[--freeCount];
+		} else {
+			if (nextId == hashes.length) {
+				growNames();
+				slot = findSlot(utf8, from, to, hash);
+			}
+			id = nextId++;
+		}
+		System.arraycopy(utf8, from, bytes, byteCount, length);
+		starts[id] = byteCount;
+		lengths[id] = length;
+		byteCount += length;
+		hashes[id] = hash;
+		refs[id] = 0;
+		table[slot] = id + 1;
+		size++;
+		return id;
+	}
+
+	/**
+	 * Makes room for a new name's bytes, reclaiming removed names' bytes if they make up half
+	 * the array, and growing the array otherwise or if that isn't enough
+	 *
+	 * @param length of the new name
+	 * @throws IllegalStateException if the dictionary can't hold any more bytes
+	 */
+	private void makeRoom(int length) throws IllegalStateException {
+		if (deadBytes >= byteCount / 2) {
+			compactBytes();
+		}
+		if (byteCount + (long) length > QueueWAR.MAX_CAPACITY) {
+			throw new IllegalStateException("NameDictionary can't hold any more names!");
+		}
+		if (byteCount + length > bytes.length) {
+			bytes = Arrays.copyOf(bytes, (int) Math.min(QueueWAR.MAX_CAPACITY,
+					Math.max(byteCount + (long) length, bytes.length * 2L)));
+		}
+	}
+
+	/**
+	 * Copies the bytes of every name still in the dictionary to the start of a new array,
+	 * dropping the bytes of removed names
+	 */
+	private void compactBytes() {
+		byte[] packed = new byte[bytes.length];
+		int end = 0;
+		for (int id = 0; id < nextId; id++) {
+			if (refs[id] != 0) {
+				System.arraycopy(bytes, starts[id], packed, end, lengths[id]);
+				starts[id] = end;
+				end += lengths[id];
+			}
+		}
+		bytes = packed;
+		byteCount = end;
+		deadBytes = 0;
+	}
+
+	/**
+	 * Checks that an id belongs to a name in the dictionary
+	 *
+	 * @param id to check
+	 * @throws IndexOutOfBoundsException if id isn't in the dictionary
+	 */
+	private void checkId(int id) throws IndexOutOfBoundsException {
+		if (id < 0 || id >= nextId || refs[id] == 0) {
+			throw new IndexOutOfBoundsException("No name with id " + id);
+		}
+	}
+
+	/**
+	 * Finds the table slot holding an id, which must be in the table
+	 *
+	 * @param id to look for
+	 * @return slot index
+	 */
+	private int slotOf(int id) {
+		int mask = table.length - 1;
+		int slot = hashes[id] & mask;
+		while (table[slot] != id + 1) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	/**
+	 * Removes an id from the hash table, shifting later entries of its probe run back so every
+	 * remaining name can still be found without tombstones
+	 *
+	 * @param id to remove, which must be in the table
+	 */
+	private void removeFromTable(int id) {
+		int mask = table.length - 1;
+		int hole = slotOf(id);
+		table[hole] = 0;
+		int slot = (hole + 1) & mask;
+		while (table[slot] != 0) {
+			int home = hashes[table[slot] - 1] & mask;
+			// an entry can fill the hole if the hole lies between its home slot and its slot
+			if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+				table[hole] = table[slot];
+				table[slot] = 0;
+				hole = slot;
+			}
+			slot = (slot + 1) & mask;
+		}
+	}
+
+	/**
+	 * Hashes a name's bytes
+	 *
+	 * @param utf8 holding the name
+	 * @param from index of the first byte
+	 * @param to index just past the last byte
+	 * @return hash
+	 */
+	private static int hash(byte[] utf8, int from, int to) {
+		int hash = 1;
+		for (int i = from; i < to; i++) {
+			hash = 31 * hash + utf8[i];
+		}
+		return hash ^ (hash >>> 16);
+	}
+
+	/**
+	 * Finds the table slot holding a name, or the empty slot where it would go
+	 *
+	 * @param utf8 holding the name
+	 * @param from index of the first byte
+	 * @param to index just past the last byte
+	 * @param hash of the name
+	 * @return slot index
+	 */
+	private int findSlot(byte[] utf8, int from, int to, int hash) {
+		int mask = table.length - 1;
+		int slot = hash & mask;
+		while (table[slot] != 0) {
+			int id = table[slot] - 1;
+			if (hashes[id] == hash && Arrays.equals(bytes, starts[id], starts[id] + lengths[id],
+					utf8, from, to)) {
+				return slot;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	/**
+	 * Doubles the per-name arrays and rebuilds the hash table
+	 *
+	 * @throws IllegalStateException if the dictionary can't hold any more names
+	 */
+	private void growNames() throws IllegalStateException {
+		if (hashes.length > QueueWAR.MAX_CAPACITY / 4) {
+			throw new IllegalStateException("NameDictionary can't hold any more names!");
+		}
+		int capacity = hashes.length * 2;
+		starts = Arrays.copyOf(starts, capacity);
+		lengths = Arrays.copyOf(lengths, capacity);
+		hashes = Arrays.copyOf(hashes, capacity);
+		refs = Arrays.copyOf(refs, capacity);
+		if (strings != null) {
+			strings = Arrays.copyOf(strings, capacity);
+		}
+
+		table = new int[capacity * 2];
+		int mask = table.length - 1;
+		for (int id = 0; id < nextId; id++) {
+			if (refs[id] == 0) {
+				continue; // freed
+			}
+			int slot = hashes[id] & mask;
+			while (table[slot] != 0) {
+				slot = (slot + 1) & mask;
+			}
+			table[slot] = id + 1;
+		}
+	}
+}
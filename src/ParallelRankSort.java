@@ -0,0 +1,156 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * @author Connor Flint
+ *
+ * ParallelRankSort sorts Players from highest to lowest rank key with a fork/join merge sort.
+ * The keys are copied into a long[] beside the Player[] first, so every comparison reads two
+ * longs that sit next to each other in memory instead of following two pointers into Player
+ * objects scattered across the heap; the Players are only moved, never read, while sorting.
+ *
+ * The array is split in half until the pieces are PARALLEL_THRESHOLD long, the halves are
+ * sorted as separate fork/join tasks on the common pool, and each pair is merged on the way
+ * back up. Pieces below INSERTION_THRESHOLD are insertion sorted. The sort is stable, so
+ * players with equal keys keep their order in the input.
+ */
+public class ParallelRankSort {
+	static final int PARALLEL_THRESHOLD = 1 << 13; // package-private so tests can size past it
+	private static final int INSERTION_THRESHOLD = 32;
+
+	/**
+	 * Sorts keys from highest to lowest, moving players[i] along with keys[i]
+	 *
+	 * @param keys rank keys, one per player
+	 * @param players to sort along with their keys
+	 * @throws NullPointerException if keys or players is null
+	 * @throws IllegalArgumentException if keys and players aren't the same length
+	 */
+	public static void sortDescending(long[] keys, Player[] players)
+			throws NullPointerException, IllegalArgumentException {
+		if (keys == null || players == null) {
+			throw new NullPointerException("Keys and players can't be null!");
+		}
+		if (keys.length != players.length) {
+			throw new IllegalArgumentException("Keys and players must be the same length!");
+		}
+		int n = keys.length;
+		if (n < 2) {
+			return;
+		}
+		SortTask task = new SortTask(keys, players, new long[n], new Player[n], 0, n);
+		if (n <= PARALLEL_THRESHOLD) {
+			task.compute();
+		} else {
+			ForkJoinPool.commonPool().invoke(task);
+		}
+	}
+
+	/**
+	 * Sorts one range of the arrays, forking the halves while they are large enough
+	 */
+	private static final class SortTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final long[] keys;
+		private final Player[] players;
+		private final long[] keyBuffer; // scratch space for merging, as long as keys
+		private final Player[] playerBuffer;
+		private final int from;
+		private final int to;
+
+		SortTask(long[] keys, Player[] players, long[] keyBuffer, Player[] playerBuffer,
+				int from, int to) {
+			this.keys = keys;
+			this.players = players;
+			this.keyBuffer = keyBuffer;
+			this.playerBuffer = playerBuffer;
+			this.from = from;
+			this.to = to;
+		}
+
+		/**
+		 * Sorts the range, in parallel if it is large
+		 */
+		@Override
+		protected void compute() {
+			if (to - from <= PARALLEL_THRESHOLD) {
+				sortSequential(from, to);
+				return;
+			}
+			int middle = (from + to) >>> 1;
+			invokeAll(new SortTask(keys, players, keyBuffer, playerBuffer, from, middle),
+					new SortTask(keys, players, keyBuffer, playerBuffer, middle, to));
+			merge(from, middle, to);
+		}
+
+		/**
+		 * Merge sorts a range on the current thread
+		 *
+		 * @param start first index of the range
+		 * @param end index just past the range
+		 */
+		private void sortSequential(int start, int end) {
+			if (end - start <= INSERTION_THRESHOLD) {
+				insertionSort(start, end);
+				return;
+			}
+			int middle = (start + end) >>> 1;
+			sortSequential(start, middle);
+			sortSequential(middle, end);
+			merge(start, middle, end);
+		}
+
+		/**
+		 * Insertion sorts a short range
+		 *
+		 * @param start first index of the range
+		 * @param end index just past the range
+		 */
+		private void insertionSort(int start, int end) {
+			for (int i = start + 1; i < end; i++) {
+				long key = keys[i];
+				Player player = players[i];
+				int j = i - 1;
+				while (j >= start && keys[j] < key) {
+					keys[j + 1] = keys[j];
+					players[j + 1] = players[j];
+					j--;
+				}
+				keys[j + 1] = key;
+				players[j + 1] = player;
+			}
+		}
+
+		/**
+		 * Merges two sorted neighbouring ranges into one, through the scratch buffers
+		 *
+		 * @param start first index of the first range
+		 * @param middle first index of the second range
+		 * @param end index just past the second range
+		 */
+		private void merge(int start, int middle, int end) {
+			if (keys[middle - 1] >= keys[middle]) {
+				return; // already in order, common for heap arrays
+			}
+			int length = middle - start;
+			System.arraycopy(keys, start, keyBuffer, start, length);
+			System.arraycopy(players, start, playerBuffer, start, length);
+			int left = start;
+			int right = middle;
+			int out = start;
+			// ties take the left element, which keeps the sort stable
+			while (left < middle && right < end) {
+				if (keyBuffer[left] >= keys[right]) {
+					keys[out] = keyBuffer[left];
+					players[out++] = playerBuffer[left++];
+				} else {
+					keys[out] = keys[right];
+					players[out++] = players[right++];
+				}
+			}
+			System.arraycopy(keyBuffer, left, keys, out, middle - left);
+			System.arraycopy(playerBuffer, left, players, out, middle - left);
+		}
+	}
+}
@@ -0,0 +1,352 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * @author Connor Flint
+ *
+ * Streams a play-by-play event log into an IndexedQueueWAR, updating each player's WAR one game
+ * event at a time. Each line holds an event type and a player name separated by a comma or tab:
+ *
+ *     G,Sidney Crosby
+ *     A,Evgeni Malkin
+ *     P,Kris Letang
+ *
+ * where G is a goal, A an assist and P a penalty. The processor keeps every player's running
+ * totals in primitive arrays indexed by a player id. A player's first event adds them to the
+ * queue; every later event bumps one total and calls IndexedQueueWAR.updateStats, which moves
+ * the player up or down from its current slot in O(log n) without rebuilding the queue.
+ * Players who are already queued with season totals must be passed to seed first: the processor
+ * can't read their totals back from the queue, so events for a queued player it doesn't track are
+ * rejected rather than replacing those totals. Events for a player who has been removed from the
+ * queue since are rejected too, so a removed player stays removed until seeded again.
+ *
+ * Names are looked up straight from the read buffer's bytes in a NameDictionary, whose ids index
+ * the stat arrays, so once a player has been seen their events allocate nothing: no String, no
+ * boxed id, no Player.
+ * Malformed lines and rejected events are counted and skipped instead of stopping the stream.
+ */
+public class PlayByPlayProcessor {
+	private static final int BUFFER_SIZE = 1 << 16;
+	private static final int DEFAULT_PLAYERS = 64;
+
+	private final IndexedQueueWAR queue;
+
+	private final NameDictionary names;
+
+	// running totals, indexed by the player's name id
+	private int[] goals;
+	private int[] assists;
+	private int[] penalties;
+	private boolean[] tracked; // whether the totals above are the queued player's
+
+	private long eventsProcessed;
+	private long eventsSkipped;
+	private long elapsedNanos;
+
+	/**
+	 * Creates a processor that ranks players in the given queue
+	 *
+	 * @param queue to add and update players in
+	 * @throws NullPointerException if queue is null
+	 */
+	public PlayByPlayProcessor(IndexedQueueWAR queue) throws NullPointerException {
+		this(queue, new NameDictionary());
+	}
+
+	/**
+	 * Creates a processor that ranks players in the given queue and shares a name dictionary,
+	 * for example with the SeasonFileLoader that filled the queue
+	 *
+	 * @param queue to add and update players in
+	 * @param names dictionary to intern player names in
+	 * @throws NullPointerException if queue or names is null
+	 */
+	public PlayByPlayProcessor(IndexedQueueWAR queue, NameDictionary names)
+			throws NullPointerException {
+		if (queue == null || names == null) {
+			throw new NullPointerException("Queue and names can't be null!");
+		}
+		this.queue = queue;
+		this.names = names;
+		goals = new int[DEFAULT_PLAYERS];
+		assists = new int[DEFAULT_PLAYERS];
+		penalties = new int[DEFAULT_PLAYERS];
+		tracked = new boolean[DEFAULT_PLAYERS];
+	}
+
+	/**
+	 * Starts a player from existing totals, such as their season so far, so later events add to
+	 * them. The player is added to the queue, or updated if already queued.
+	 *
+	 * @param name of player
+	 * @param goals number of goals so far
+	 * @param assists number of assists so far
+	 * @param penalties number of penalties so far
+	 * @throws NullPointerException if name is null
+	 * @throws IllegalArgumentException if goals, assists, or penalties is less than 0
+	 */
+	public void seed(String name, int goals, int assists, int penalties)
+			throws NullPointerException, IllegalArgumentException {
+		if (name == null) {
+			throw new NullPointerException("Name can't be null!");
+		}
+		Player player = new Player(name, goals, assists, penalties); // validates the stats
+		int id = findOrCreate(name);
+		this.goals[id] = goals;
+		this.assists[id] = assists;
+		this.penalties[id] = penalties;
+		tracked[id] = true;
+		if (queue.containsPlayer(name)) {
+			queue.updateStats(name, goals, assists, penalties);
+		} else {
+			queue.addNewPlayer(player);
+		}
+	}
+
+	/**
+	 * Applies one event
+	 *
+	 * @param type 'G' for a goal, 'A' for an assist, or 'P' for a penalty, in either case
+	 * @param name of the player
+	 * @throws NullPointerException if name is null
+	 * @throws IllegalArgumentException if type isn't G, A, or P, or the player is queued but
+	 *                                  wasn't seeded, or was removed from the queue since
+	 */
+	public void apply(char type, String name) throws NullPointerException,
+	IllegalArgumentException {
+		if (name == null) {
+			throw new NullPointerException("Name can't be null!");
+		}
+		if (!isEventType(type)) {
+			throw new IllegalArgumentException("Event type must be G, A, or P!");
+		}
+		if (!apply(type, findOrCreate(name))) {
+			throw new IllegalArgumentException(queue.containsPlayer(name)
+					? name + " is queued but wasn't seeded!"
+					: name + " was removed from the queue!");
+		}
+	}
+
+	/**
+	 * Streams every event of the given file into the queue
+	 *
+	 * @param path of the event log
+	 * @return number of events applied from this file
+	 * @throws IOException if the file can't be read or a line is longer than the read buffer
+	 */
+	public long process(Path path) throws IOException {
+		long start = System.nanoTime();
+		long processedBefore = eventsProcessed;
+
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+			byte[] bytes = buffer.array();
+			boolean endOfFile = false;
+
+			while (!endOfFile) {
+				endOfFile = channel.read(buffer) < 0;
+				int limit = buffer.position();
+				int lineStart = 0;
+
+				for (int i = 0; i < limit; i++) {
+					if (bytes[i] == '\n') {
+						processLine(bytes, lineStart, i);
+						lineStart = i + 1;
+					}
+				}
+				if (endOfFile) {
+					if (lineStart < limit) {
+						processLine(bytes, lineStart, limit);
+					}
+				} else {
+					if (lineStart == 0 && limit == bytes.length) {
+						throw new IOException("Line is longer than " + BUFFER_SIZE + " bytes");
+					}
+					// move the unfinished line to the front and read more after it
+					System.arraycopy(bytes, lineStart, bytes, 0, limit - lineStart);
+					buffer.position(limit - lineStart);
+				}
+			}
+		} finally {
+			elapsedNanos += System.nanoTime() - start;
+		}
+
+		return eventsProcessed - processedBefore;
+	}
+
+	/**
+	 * Parses one line of the log and applies its event
+	 *
+	 * @param bytes holding the line
+	 * @param from index of the first byte of the line
+	 * @param to index just past the last byte of the line
+	 */
+	private void processLine(byte[] bytes, int from, int to) {
+		if (to > from && bytes[to - 1] == '\r') {
+			to--;
+		}
+		while (from < to && bytes[from] == ' ') {
+			from++;
+		}
+		if (to == from) {
+			return;
+		}
+
+		// a one-letter type, then a delimiter, then the name
+		int delimiter = from + 1;
+		while (delimiter < to && bytes[delimiter] == ' ') {
+			delimiter++;
+		}
+		char type = (char) bytes[from];
+		if (delimiter >= to || (bytes[delimiter] != ',' && bytes[delimiter] != '\t')
+				|| !isEventType(type)) {
+			eventsSkipped++;
+			return;
+		}
+		int nameStart = delimiter + 1;
+		while (nameStart < to && bytes[nameStart] == ' ') {
+			nameStart++;
+		}
+		int nameEnd = to;
+		while (nameEnd > nameStart && bytes[nameEnd - 1] == ' ') {
+			nameEnd--;
+		}
+		if (nameEnd == nameStart) {
+			eventsSkipped++;
+			return;
+		}
+
+		if (apply(type, findOrCreate(bytes, nameStart, nameEnd))) {
+			eventsProcessed++;
+		} else {
+			eventsSkipped++;
+		}
+	}
+
+	/**
+	 * Returns whether a character is an event type
+	 *
+	 * @param type to check
+	 * @return true for G, A, or P in either case
+	 */
+	private static boolean isEventType(char type) {
+		switch (type) {
+		case 'G': case 'g': case 'A': case 'a': case 'P': case 'p':
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Bumps one of a player's totals and moves them in the queue, adding them if this is their
+	 * first event
+	 *
+	 * @param type event type, already checked
+	 * @param id of the player
+	 * @return false if the event was rejected because the player is queued but untracked, or
+	 *         tracked but no longer queued
+	 */
+	private boolean apply(char type, int id) {
+		String name = names.nameOf(id);
+		boolean queued = queue.containsPlayer(name);
+		if (tracked[id] != queued) {
+			return false;
+		}
+		switch (type) {
+		case 'G': case 'g':
+			goals[id]++;
+			break;
+		case 'A': case 'a':
+			assists[id]++;
+			break;
+		default:
+			penalties[id]++;
+			break;
+		}
+		if (queued) {
+			queue.updateStats(name, goals[id], assists[id], penalties[id]);
+		} else {
+			queue.addNewPlayer(new Player(name, goals[id], assists[id], penalties[id]));
+			tracked[id] = true;
+		}
+		return true;
+	}
+
+	/**
+	 * Finds a player's id by name bytes, adding the name to the dictionary if it's new
+	 *
+	 * @param bytes holding the name
+	 * @param from index of the first byte of the name
+	 * @param to index just past the last byte of the name
+	 * @return player id, which is the name's dictionary id
+	 */
+	private int findOrCreate(byte[] bytes, int from, int to) {
+		int id = names.intern(bytes, from, to);
+		if (id >= goals.length) {
+			growPlayers(id + 1);
+		}
+		return id;
+	}
+
+	/**
+	 * Finds a player's id by name, adding the name to the dictionary if it's new
+	 *
+	 * @param name of the player
+	 * @return player id, which is the name's dictionary id
+	 */
+	private int findOrCreate(String name) {
+		int id = names.intern(name);
+		if (id >= goals.length) {
+			growPlayers(id + 1);
+		}
+		return id;
+	}
+
+	/**
+	 * Grows the per-player arrays to hold at least minPlayers players
+	 *
+	 * @param minPlayers number of player ids that must fit
+	 */
+	private void growPlayers(int minPlayers) {
+		int capacity = Math.max(minPlayers, goals.length * 2);
+		goals = Arrays.copyOf(goals, capacity);
+		assists = Arrays.copyOf(assists, capacity);
+		penalties = Arrays.copyOf(penalties, capacity);
+		tracked = Arrays.copyOf(tracked, capacity);
+	}
+
+	/**
+	 * Returns the number of events read from logs so far
+	 *
+	 * @return events processed
+	 */
+	public long getEventsProcessed() {
+		return eventsProcessed;
+	}
+
+	/**
+	 * Returns the number of malformed lines and rejected events skipped so far
+	 *
+	 * @return events skipped
+	 */
+	public long getEventsSkipped() {
+		return eventsSkipped;
+	}
+
+	/**
+	 * Returns how many events per second have been processed across every call to process
+	 *
+	 * @return events per second
+	 */
+	public double getEventsPerSecond() {
+		if (elapsedNanos == 0) {
+			return 0;
+		}
+		return eventsProcessed / (elapsedNanos / 1_000_000_000.0);
+	}
+}
@@ -1,11 +1,35 @@
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * @author Connor Flint
  *
  * Class for a player object that can be added to QueueWAR
+ *
+ * Players are ranked by a composite key packed into one long, so heaps order them with a single
+ * primitive comparison. From the most significant bits down the key holds:
+ *
+ *     32 bits  WAR
+ *      7 bits  goals, more ranks higher (capped at 127, above the single-season record)
+ *      5 bits  penalties, fewer ranks higher (capped at 31)
+ *     20 bits  creation sequence, earlier ranks higher
+ *
+ * The sequence is one counter shared by every Player in the JVM, so every player gets a distinct
+ * sequence and players who tie on WAR, goals and penalties come out of every queue in the order
+ * they were created, whatever the heap layout. The field holds the counter's low 20 bits, so this
+ * holds for players created fewer than 1,048,576 Players apart, a range that covers several
+ * whole leagues' worth of players; only past that can the counter wrap between two players, and
+ * the later one rank first. Stat updates and restores keep a player's sequence rather than
+ * taking a new one.
  */
 public class Player implements Comparable<Player>{
-	private int war;
+	private static final AtomicLong nextSequence = new AtomicLong();
+	private static final int GOALS_MAX = 0x7F;
+	private static final int PENALTIES_MAX = 0x1F;
+	private static final int SEQUENCE_BITS = 20;
+	private static final int SEQUENCE_MASK = (1 << SEQUENCE_BITS) - 1;
+
 	private String name;
+	final long rankKey; // composite ranking key, see the class comment; WAR is its high 32 bits
 	
 	/**
 	 * Creates a new player object given player's name, number of goals, number of assists, and 
@@ -23,6 +47,80 @@ public class Player implements Comparable<Player>{
 		if (name == null) {
 			throw new NullPointerException("Name can't be null!");
 		}
+		checkStats(goals, assists, penalties);
+		
+		this.name = name;
+		this.rankKey = rankKey(Player.calculateWAR(goals, assists, penalties), goals, penalties)
+				| nextSequenceBits();
+	}
+	
+	/**
+	 * Creates a player object with an already calculated WAR. Used by queues that store players
+	 * in a compact form and rebuild the Player object when it is returned.
+	 * 
+	 * @param name of player
+	 * @param war already calculated WAR
+	 * @throws NullPointerException if name is null
+	 */
+	Player(String name, int war) throws NullPointerException {
+		if (name == null) {
+			throw new NullPointerException("Name can't be null!");
+		}
+		this.name = name;
+		this.rankKey = rankKey(war, 0, 0) | nextSequenceBits();
+	}
+	
+	/**
+	 * Recreates a player from a saved ranking key, so it ranks exactly where it did when it was
+	 * saved. Used by DurableQueueWAR when it restores a queue.
+	 * 
+	 * @param name of player
+	 * @param rankKey saved by getRankKey
+	 * @return new Player object
+	 * @throws NullPointerException if name is null
+	 */
+	static Player fromRankKey(String name, long rankKey) throws NullPointerException {
+		if (name == null) {
+			throw new NullPointerException("Name can't be null!");
+		}
+		return new Player(name, rankKey);
+	}
+	
+	/**
+	 * Creates a player with a saved ranking key
+	 * 
+	 * @param name of player
+	 * @param rankKey saved by getRankKey
+	 */
+	private Player(String name, long rankKey) {
+		this.name = name;
+		this.rankKey = rankKey;
+	}
+	
+	/**
+	 * Returns a new player with this one's name and creation sequence and the given season
+	 * totals. Used by IndexedQueueWAR.updateStats, which replaces the queued player with it, so a
+	 * Player never changes once created and can safely be held by several queues.
+	 * 
+	 * @param goals new number of goals
+	 * @param assists new number of assists
+	 * @param penalties new number of penalties
+	 * @return updated player
+	 * @throws IllegalArgumentException if goals, assists, or penalties is less than 0
+	 */
+	Player withStats(int goals, int assists, int penalties) throws IllegalArgumentException {
+		checkStats(goals, assists, penalties);
+		return new Player(name, rankKey(Player.calculateWAR(goals, assists, penalties), goals,
+				penalties) | (rankKey & SEQUENCE_MASK));
+	}
+	
+	/**
+	 * Checks that a player's stats are valid
+	 * 
+	 * @throws IllegalArgumentException if goals, assists, or penalties is less than 0
+	 */
+	private static void checkStats(int goals, int assists, int penalties)
+			throws IllegalArgumentException {
 		if (goals < 0) {
 			throw new IllegalArgumentException("Goals can't be less than 0!");
 		}
@@ -32,9 +130,6 @@ public class Player implements Comparable<Player>{
 		if (penalties < 0) {
 			throw new IllegalArgumentException("Penalties can't be less than 0!");
 		}
-		
-		this.name = name;
-		this.war = Player.calculateWAR(goals, assists, penalties);
 	}
 	
 	public static int calculateWAR(int goals, int assists, int penalties) {
@@ -42,6 +137,67 @@ public class Player implements Comparable<Player>{
 		return warNum;
 	}
 	
+	/**
+	 * Packs everything but the creation sequence into a ranking key, where a greater key ranks
+	 * higher
+	 * 
+	 * @param war
+	 * @param goals at least 0
+	 * @param penalties at least 0
+	 * @return ranking key with the sequence bits left 0
+	 */
+	private static long rankKey(int war, int goals, int penalties) {
+		return ((long) war << 32)
+				| ((long) Math.min(goals, GOALS_MAX) << (SEQUENCE_BITS + 5))
+				| ((long) (PENALTIES_MAX - Math.min(penalties, PENALTIES_MAX)) << SEQUENCE_BITS);
+	}
+
+	/**
+	 * Converts a ranking key saved in the earlier layout, with 8 bits each of goals and inverted
+	 * penalties and a 16-bit sequence, to the current one. Used by DurableQueueWAR to read
+	 * snapshots and log records written in that layout; the players' relative order is kept,
+	 * except where the narrower goals and penalties fields cap them.
+	 *
+	 * @param key ranking key in the earlier layout
+	 * @return ranking key in the current layout
+	 */
+	static long upgradeRankKey(long key) {
+		int goals = (int) (key >>> 24) & 0xFF;
+		int penalties = 0xFF - ((int) (key >>> 16) & 0xFF);
+		long sequence = SEQUENCE_MASK - (0xFFFF - (key & 0xFFFF));
+		return rankKey((int) (key >> 32), goals, penalties) | sequence;
+	}
+	
+	/**
+	 * Takes the next creation sequence number and returns its key bits, which are inverted so
+	 * earlier players rank higher
+	 * 
+	 * @return low 20 bits of a ranking key
+	 */
+	private static long nextSequenceBits() {
+		return SEQUENCE_MASK - (nextSequence.getAndIncrement() & SEQUENCE_MASK);
+	}
+	
+	/**
+	 * Returns the creation sequence number the next Player will get
+	 * 
+	 * @return next sequence number
+	 */
+	static long currentSequence() {
+		return nextSequence.get();
+	}
+	
+	/**
+	 * Moves the creation sequence forward to at least the given number, so players created
+	 * after a restore continue the sequence of the players they were saved with. Never moves
+	 * it back.
+	 * 
+	 * @param sequence sequence number the next Player should get at least
+	 */
+	static void advanceSequence(long sequence) {
+		nextSequence.accumulateAndGet(sequence, Math::max);
+	}
+	
 	
 	/**
 	 * Public getter method that returns WAR for given player
@@ -49,7 +205,26 @@ public class Player implements Comparable<Player>{
 	 * @return WAR for given Player object
 	 */
 	public int getWAR() {
-		return this.war;
+		return (int) (this.rankKey >> 32);
+	}
+	
+	/**
+	 * Public getter method that returns the name of given player
+	 * 
+	 * @return name of given Player object
+	 */
+	public String getName() {
+		return this.name;
+	}
+	
+	/**
+	 * Returns the composite key this player is ranked by: WAR, then goals, then fewest
+	 * penalties, then the wrapping creation sequence described in the class comment
+	 * 
+	 * @return ranking key, greater ranks higher
+	 */
+	public long getRankKey() {
+		return this.rankKey;
 	}
 	
 	/**
@@ -58,17 +233,18 @@ public class Player implements Comparable<Player>{
 	 * @returns string representation of a Player
 	 */
 	public String toString() {
-		String s = this.name + " (WAR: " + war + ")";
+		String s = this.name + " (WAR: " + getWAR() + ")";
 		return s;
 	}
 	
 	/**
-	 * Compares Player's WAR to a given Player
+	 * Compares Player's ranking key to a given Player's
 	 * 
-	 * @returns int that represents difference in WAR in compared Players
+	 * @returns positive if this Player ranks higher, negative if lower, 0 if every part of the
+	 *          key ties
 	 */
 	@Override
 	public int compareTo(Player p) {
-		return (war - p.getWAR());
+		return Long.compare(rankKey, p.rankKey);
 	}
 }
@@ -0,0 +1,371 @@
+import java.util.Arrays;
+
+/**
+ * @author Connor Flint
+ *
+ * PlayerHistoryStore keeps every stat line ever recorded, partitioned by season, so WAR can be
+ * recomputed and rankings rebuilt for any range of seasons. A Player only keeps its WAR; the
+ * goals, assists and penalties behind it live here.
+ *
+ * Each season is one partition of primitive columns, one per stat plus a column of player ids
+ * from a NameDictionary; names are only stored once, in the dictionary. A stat line can be a
+ * single game or a whole season; aggregating sums every line of a player in the chosen seasons.
+ * Aggregation is one pass down the primitive columns of each season in range, adding into per-id
+ * totals, so it never creates a Player or looks up a name per row, and seasons outside the range
+ * are skipped without being read.
+ *
+ * One player's history is found through an index instead of a scan. Each partition links every
+ * row to the same player's previous row in that season and keeps each player's last row, so
+ * getPlayerHistory reads only that player's rows, plus one lookup per season in range.
+ *
+ * Seasons are identified by an int such as the year they start in. Totals are summed as ints.
+ */
+public class PlayerHistoryStore {
+	private static final int DEFAULT_SEASONS = 8;
+	private static final int DEFAULT_ROWS = 1024;
+
+	private final NameDictionary names;
+
+	// partitions sorted by season number
+	private int[] seasons = new int[DEFAULT_SEASONS];
+	private Partition[] partitions = new Partition[DEFAULT_SEASONS];
+	private int seasonCount;
+	private long size;
+
+	/**
+	 * One season's stat lines, the id of the player each line belongs to, and the index linking
+	 * each player's lines
+	 */
+	private static class Partition {
+		int[] goals = new int[DEFAULT_ROWS];
+		int[] assists = new int[DEFAULT_ROWS];
+		int[] penalties = new int[DEFAULT_ROWS];
+		int[] plusMinus = new int[DEFAULT_ROWS];
+		int[] timeOnIce = new int[DEFAULT_ROWS];
+		int[] ids = new int[DEFAULT_ROWS];
+		int[] previousRows = new int[DEFAULT_ROWS]; // row + 1 of the line before, 0 if none
+		int[] lastRows = new int[0]; // by id, row + 1 of the player's last line, 0 if none
+		int rows;
+
+		/**
+		 * Appends a stat line and links it to the player's previous line in this season
+		 *
+		 * @param id of player
+		 * @param goals number of goals
+		 * @param assists number of assists
+		 * @param penalties number of penalties
+		 * @param plusMinus goal differential while on the ice
+		 * @param timeOnIce minutes played
+		 * @throws IllegalStateException if the partition is already as large as an array can be
+		 */
+		void add(int id, int goals, int assists, int penalties, int plusMinus, int timeOnIce)
+				throws IllegalStateException {
+			if (rows == ids.length) {
+				grow();
+			}
+			if (id >= lastRows.length) {
+				lastRows = Arrays.copyOf(lastRows, Math.max(id + 1, lastRows.length * 2));
+			}
+			this.goals[rows] = goals;
+			this.assists[rows] = assists;
+			this.penalties[rows] = penalties;
+			this.plusMinus[rows] = plusMinus;
+			this.timeOnIce[rows] = timeOnIce;
+			ids[rows] = id;
+			previousRows[rows] = lastRows[id];
+			rows++;
+			lastRows[id] = rows;
+		}
+
+		/**
+		 * Grows every column by half
+		 *
+		 * @throws IllegalStateException if the columns are already as large as an array can be
+		 */
+		private void grow() throws IllegalStateException {
+			if (ids.length >= QueueWAR.MAX_CAPACITY) {
+				throw new IllegalStateException("Season can't hold any more stat lines!");
+			}
+			int capacity = (int) Math.min(QueueWAR.MAX_CAPACITY,
+					ids.length + (long) ids.length / 2);
+			goals = Arrays.copyOf(goals, capacity);
+			assists = Arrays.copyOf(assists, capacity);
+			penalties = Arrays.copyOf(penalties, capacity);
+			plusMinus = Arrays.copyOf(plusMinus, capacity);
+			timeOnIce = Arrays.copyOf(timeOnIce, capacity);
+			ids = Arrays.copyOf(ids, capacity);
+			previousRows = Arrays.copyOf(previousRows, capacity);
+		}
+	}
+
+	/**
+	 * Creates an empty store with its own name dictionary
+	 */
+	public PlayerHistoryStore() {
+		this(new NameDictionary());
+	}
+
+	/**
+	 * Creates an empty store that shares a name dictionary, for example with a SeasonFileLoader
+	 *
+	 * @param names dictionary to intern player names in
+	 * @throws NullPointerException if names is null
+	 */
+	public PlayerHistoryStore(NameDictionary names) throws NullPointerException {
+		if (names == null) {
+			throw new NullPointerException("Names can't be null!");
+		}
+		this.names = names;
+	}
+
+	/**
+	 * Records one stat line, for a game or a whole season
+	 *
+	 * @param season the line belongs to
+	 * @param name of player
+	 * @param goals number of goals
+	 * @param assists number of assists
+	 * @param penalties number of penalties
+	 * @param plusMinus goal differential while on the ice, may be negative
+	 * @param timeOnIce minutes played
+	 * @throws NullPointerException if name is null
+	 * @throws IllegalArgumentException if goals, assists, penalties, or timeOnIce is less than 0
+	 */
+	public void add(int season, String name, int goals, int assists, int penalties,
+			int plusMinus, int timeOnIce) throws NullPointerException, IllegalArgumentException {
+		if (name == null) {
+			throw new NullPointerException("Name can't be null!");
+		}
+		StatColumns.checkStats(goals, assists, penalties, timeOnIce);
+		int id = names.intern(name);
+		partitionFor(season).add(id, goals, assists, penalties, plusMinus, timeOnIce);
+		size++;
+	}
+
+	/**
+	 * Sums every player's stat lines over a range of seasons, one row per player who has at least
+	 * one line in the range, in the order the players were first recorded
+	 *
+	 * @param fromSeason first season, inclusive
+	 * @param toSeason last season, inclusive
+	 * @return new StatColumns of totals, ready for a WARModel
+	 * @throws IllegalArgumentException if fromSeason is greater than toSeason
+	 */
+	public StatColumns aggregate(int fromSeason, int toSeason) throws IllegalArgumentException {
+		if (fromSeason > toSeason) {
+			throw new IllegalArgumentException("From season can't be after to season!");
+		}
+		int players = names.idBound();
+		int[] goals = new int[players];
+		int[] assists = new int[players];
+		int[] penalties = new int[players];
+		int[] plusMinus = new int[players];
+		int[] timeOnIce = new int[players];
+		boolean[] seen = new boolean[players];
+
+		for (int p = firstPartition(fromSeason); p < seasonCount && seasons[p] <= toSeason; p++) {
+			Partition partition = partitions[p];
+			// locals so the loop only touches primitive arrays
+			int[] ids = partition.ids;
+			int[] rowGoals = partition.goals;
+			int[] rowAssists = partition.assists;
+			int[] rowPenalties = partition.penalties;
+			int[] rowPlusMinus = partition.plusMinus;
+			int[] rowTimeOnIce = partition.timeOnIce;
+			int rows = partition.rows;
+			for (int r = 0; r < rows; r++) {
+				int id = ids[r];
+				goals[id] += rowGoals[r];
+				assists[id] += rowAssists[r];
+				penalties[id] += rowPenalties[r];
+				plusMinus[id] += rowPlusMinus[r];
+				timeOnIce[id] += rowTimeOnIce[r];
+				seen[id] = true;
+			}
+		}
+
+		int count = 0;
+		for (int id = 0; id < players; id++) {
+			if (seen[id]) {
+				count++;
+			}
+		}
+		StatColumns totals = new StatColumns(count);
+		for (int id = 0; id < players; id++) {
+			if (seen[id]) {
+				totals.add(names.nameOf(id), goals[id], assists[id], penalties[id], plusMinus[id],
+						timeOnIce[id]);
+			}
+		}
+		return totals;
+	}
+
+	/**
+	 * Scores every player's totals over a range of seasons
+	 *
+	 * @param fromSeason first season, inclusive
+	 * @param toSeason last season, inclusive
+	 * @param model to score with
+	 * @return one new Player per player with a line in the range
+	 * @throws NullPointerException if model is null
+	 * @throws IllegalArgumentException if fromSeason is greater than toSeason
+	 */
+	public Player[] toPlayers(int fromSeason, int toSeason, WARModel model)
+			throws NullPointerException, IllegalArgumentException {
+		if (model == null) {
+			throw new NullPointerException("Model can't be null!");
+		}
+		return aggregate(fromSeason, toSeason).toPlayers(model);
+	}
+
+	/**
+	 * Builds a new QueueWAR ranking every player by their totals over a range of seasons
+	 *
+	 * @param fromSeason first season, inclusive
+	 * @param toSeason last season, inclusive
+	 * @param model to score with
+	 * @return new QueueWAR
+	 * @throws NullPointerException if model is null
+	 * @throws IllegalArgumentException if fromSeason is greater than toSeason
+	 */
+	public QueueWAR toQueueWAR(int fromSeason, int toSeason, WARModel model)
+			throws NullPointerException, IllegalArgumentException {
+		return QueueWAR.fromArray(toPlayers(fromSeason, toSeason, model));
+	}
+
+	/**
+	 * Returns a copy of the stat lines recorded for one season, in the order they were recorded
+	 *
+	 * @param season to look up
+	 * @return new StatColumns of that season's stat lines, or null if none were recorded
+	 */
+	public StatColumns getSeasonStats(int season) {
+		int p = Arrays.binarySearch(seasons, 0, seasonCount, season);
+		if (p < 0) {
+			return null;
+		}
+		Partition partition = partitions[p];
+		StatColumns stats = new StatColumns(partition.rows);
+		for (int r = 0; r < partition.rows; r++) {
+			copyRow(partition, r, stats);
+		}
+		return stats;
+	}
+
+	/**
+	 * Returns a copy of one player's stat lines over a range of seasons, in season order and
+	 * then in the order they were recorded. Only the player's own rows are read.
+	 *
+	 * @param name of player
+	 * @param fromSeason first season, inclusive
+	 * @param toSeason last season, inclusive
+	 * @return new StatColumns of the player's stat lines, empty if there are none
+	 * @throws NullPointerException if name is null
+	 * @throws IllegalArgumentException if fromSeason is greater than toSeason
+	 */
+	public StatColumns getPlayerHistory(String name, int fromSeason, int toSeason)
+			throws NullPointerException, IllegalArgumentException {
+		if (fromSeason > toSeason) {
+			throw new IllegalArgumentException("From season can't be after to season!");
+		}
+		int id = names.find(name);
+		StatColumns history = new StatColumns();
+		if (id < 0) {
+			return history;
+		}
+		int[] rows = new int[DEFAULT_SEASONS];
+		for (int p = firstPartition(fromSeason); p < seasonCount && seasons[p] <= toSeason; p++) {
+			Partition partition = partitions[p];
+			if (id >= partition.lastRows.length) {
+				continue;
+			}
+			// the index links rows newest first, so collect them and copy them oldest first
+			int count = 0;
+			for (int row = partition.lastRows[id]; row != 0;
+					row = partition.previousRows[row - 1]) {
+				if (count == rows.length) {
+					rows = Arrays.copyOf(rows, count * 2);
+				}
+				rows[count++] = row - 1;
+			}
+			while (count > 0) {
+				copyRow(partition, rows[--count], history);
+			}
+		}
+		return history;
+	}
+
+	/**
+	 * Returns every season with at least one stat line, in increasing order
+	 *
+	 * @return new array of seasons
+	 */
+	public int[] getSeasons() {
+		return Arrays.copyOf(seasons, seasonCount);
+	}
+
+	/**
+	 * Returns the number of stat lines in every season
+	 *
+	 * @return size of the store
+	 */
+	public long size() {
+		return size;
+	}
+
+	/**
+	 * Returns the dictionary player names are interned in
+	 *
+	 * @return name dictionary
+	 */
+	public NameDictionary getNameDictionary() {
+		return names;
+	}
+
+	/**
+	 * Adds one of a partition's stat lines to StatColumns
+	 *
+	 * @param partition holding the line
+	 * @param row of the line
+	 * @param stats to add to
+	 */
+	private void copyRow(Partition partition, int row, StatColumns stats) {
+		stats.add(names.nameOf(partition.ids[row]), partition.goals[row], partition.assists[row],
+				partition.penalties[row], partition.plusMinus[row], partition.timeOnIce[row]);
+	}
+
+	/**
+	 * Returns the index of the first partition whose season is at least the given season
+	 *
+	 * @param season to look for
+	 * @return partition index, seasonCount if every season is earlier
+	 */
+	private int firstPartition(int season) {
+		int p = Arrays.binarySearch(seasons, 0, seasonCount, season);
+		return p >= 0 ? p : -(p + 1);
+	}
+
+	/**
+	 * Returns a season's partition, creating it in order if it doesn't exist yet
+	 *
+	 * @param season to look up
+	 * @return partition
+	 */
+	private Partition partitionFor(int season) {
+		int p = Arrays.binarySearch(seasons, 0, seasonCount, season);
+		if (p >= 0) {
+			return partitions[p];
+		}
+		p = -(p + 1);
+		if (seasonCount == seasons.length) {
+			seasons = Arrays.copyOf(seasons, seasonCount * 2);
+			partitions = Arrays.copyOf(partitions, seasonCount * 2);
+		}
+		System.arraycopy(seasons, p, seasons, p + 1, seasonCount - p);
+		System.arraycopy(partitions, p, partitions, p + 1, seasonCount - p);
+		seasons[p] = season;
+		partitions[p] = new Partition();
+		seasonCount++;
+		return partitions[p];
+	}
+}
@@ -0,0 +1,367 @@
+import java.util.Arrays;
+
+/**
+ * @author Connor Flint
+ *
+ * PrimitiveQueueWAR is the same max-heap priority queue as QueueWAR, but it doesn't keep a
+ * Player object per entry. Each heap slot is a single long holding the player's WAR in the high
+ * 32 bits and a name id in the low 32 bits, and the names live in a NameDictionary as UTF-8
+ * bytes, stored once however many entries share them. Sifting therefore only reads and writes
+ * one primitive array, with WAR and id side by side in the same slot, and never follows a
+ * pointer or calls compareTo. Player objects are only created when checkHighestPlayer or
+ * removeBestPlayer returns one.
+ *
+ * Each entry holds a reference to its name in the dictionary, released when the entry is
+ * removed, so a queue that churns through many distinct names only keeps the names of the
+ * players it still holds and reuses the ids of the rest. A queue's own dictionary doesn't cache
+ * Strings, so a name costs its bytes while queued and removed players get a new String; a shared
+ * dictionary hands out its cached String if it has one.
+ *
+ * Entries are ordered by WAR, then by name id, lowest first. The id is stored inverted, so a whole
+ * slot compares as one long and a greater slot always ranks higher. Players with equal WAR
+ * therefore come out by the id of their name, whatever the heap layout. Ids of removed names are
+ * reused, so this is the order names were stored only while no name has been removed. This is
+ * deliberately not QueueWAR's order: a slot has no room for the goals, penalties and creation
+ * sequence QueueWAR breaks ties with (see Player), so the two queues agree on WAR but can return
+ * tied players in a different order.
+ */
+public class PrimitiveQueueWAR {
+	private long[] heap; // zero-indexed max-heap of (war << 32 | ~nameId)
+	private int size;
+	private double growthFactor; // 0 means the capacity is fixed
+
+	private final NameDictionary names;
+
+	/**
+	 * Constructor to create a growable PrimitiveQueueWAR with the default capacity
+	 */
+	public PrimitiveQueueWAR() {
+		this(QueueWAR.DEFAULT_CAPACITY, QueueWAR.DEFAULT_GROWTH_FACTOR);
+	}
+
+	/**
+	 * Constructor to create PrimitiveQueueWAR with a fixed capacity
+	 *
+	 * @param arrayCapacity
+	 */
+	public PrimitiveQueueWAR(int arrayCapacity) {
+		this(arrayCapacity, new NameDictionary(false));
+	}
+
+	/**
+	 * Constructor to create PrimitiveQueueWAR with a fixed capacity
+	 *
+	 * @param arrayCapacity
+	 * @param names dictionary to keep player names in, which may be shared
+	 * @throws NullPointerException if names is null
+	 * @throws IllegalArgumentException if capacity is negative
+	 */
+	private PrimitiveQueueWAR(int arrayCapacity, NameDictionary names)
+			throws NullPointerException, IllegalArgumentException {
+		if (arrayCapacity < 0) {
+			throw new IllegalArgumentException("Capacity can't be less than 0!");
+		}
+		if (names == null) {
+			throw new NullPointerException("Names can't be null!");
+		}
+		this.heap = new long[arrayCapacity];
+		this.names = names;
+	}
+
+	/**
+	 * Constructor to create a growable PrimitiveQueueWAR
+	 *
+	 * @param arrayCapacity initial capacity
+	 * @param growthFactor factor the capacity is multiplied by when the queue is full
+	 * @throws IllegalArgumentException if capacity is negative or growthFactor is not above 1
+	 */
+	public PrimitiveQueueWAR(int arrayCapacity, double growthFactor)
+			throws IllegalArgumentException {
+		this(arrayCapacity, growthFactor, new NameDictionary(false));
+	}
+
+	/**
+	 * Constructor to create a growable PrimitiveQueueWAR that shares a name dictionary, for
+	 * example with the other seasons of a multi-season history
+	 *
+	 * @param arrayCapacity initial capacity
+	 * @param growthFactor factor the capacity is multiplied by when the queue is full
+	 * @param names dictionary to keep player names in
+	 * @throws NullPointerException if names is null
+	 * @throws IllegalArgumentException if capacity is negative or growthFactor is not above 1
+	 */
+	public PrimitiveQueueWAR(int arrayCapacity, double growthFactor, NameDictionary names)
+			throws NullPointerException, IllegalArgumentException {
+		this(arrayCapacity, names);
+		if (!(growthFactor > 1)) {
+			throw new IllegalArgumentException("Growth factor must be greater than 1!");
+		}
+		this.growthFactor = growthFactor;
+	}
+
+	/**
+	 * Adds a given player to PrimitiveQueueWAR
+	 *
+	 * @param player to be added
+	 * @throws NullPointerException if player is null
+	 * @throws IndexOutOfBoundsException if the queue is at capacity and not growable
+	 */
+	public void addNewPlayer(Player player) throws NullPointerException,
+	IndexOutOfBoundsException {
+		if (player == null) {
+			throw new NullPointerException("Player can't be null!");
+		}
+		add(player.getName(), player.getWAR());
+	}
+
+	/**
+	 * Adds a player to PrimitiveQueueWAR without creating a Player object
+	 *
+	 * @param name of player
+	 * @param goals number of goals that player has scored
+	 * @param assists number of assists that player has
+	 * @param penalties number of penalties player has
+	 * @throws NullPointerException if name is null
+	 * @throws IllegalArgumentException if goals, assists, or penalties is less than 0
+	 * @throws IndexOutOfBoundsException if the queue is at capacity and not growable
+	 */
+	public void addNewPlayer(String name, int goals, int assists, int penalties)
+			throws NullPointerException, IllegalArgumentException, IndexOutOfBoundsException {
+		if (name == null) {
+			throw new NullPointerException("Name can't be null!");
+		}
+		if (goals < 0 || assists < 0 || penalties < 0) {
+			throw new IllegalArgumentException("Stats can't be less than 0!");
+		}
+		add(name, Player.calculateWAR(goals, assists, penalties));
+	}
+
+	/**
+	 * Returns player in queue with the highest WAR
+	 *
+	 * @return new Player object for the highest entry
+	 * @throws IllegalStateException if the queue is empty
+	 */
+	public Player checkHighestPlayer() throws IllegalStateException {
+		if (size == 0) {
+			throw new IllegalStateException("PrimitiveQueueWAR is empty!");
+		}
+		return new Player(names.nameOf(idOf(heap[0])), warOf(heap[0]));
+	}
+
+	/**
+	 * Returns the highest WAR in the queue without creating a Player object
+	 *
+	 * @return highest WAR
+	 * @throws IllegalStateException if the queue is empty
+	 */
+	public int checkHighestWAR() throws IllegalStateException {
+		if (size == 0) {
+			throw new IllegalStateException("PrimitiveQueueWAR is empty!");
+		}
+		return warOf(heap[0]);
+	}
+
+	/**
+	 * Removes the player with the highest WAR
+	 *
+	 * @return player that is removed
+	 * @throws IllegalStateException if the queue is empty
+	 */
+	public Player removeBestPlayer() throws IllegalStateException {
+		if (size == 0) {
+			throw new IllegalStateException("PrimitiveQueueWAR is empty!");
+		}
+		long top = heap[0];
+		Player removed = new Player(names.nameOf(idOf(top)), warOf(top));
+		names.release(idOf(top));
+		size -= 1;
+		if (size > 0) {
+			heap[0] = heap[size];
+			siftDown(0);
+		}
+		return removed;
+	}
+
+	/**
+	 * Returns every player from highest to lowest WAR without changing the queue. The packed
+	 * heap slots are copied and sorted as plain longs with Arrays.parallelSort, which splits the
+	 * work across cores and never compares through an object, then read back from the highest
+	 * slot down, so players with equal WAR come out in the same order removeBestPlayer returns
+	 * them.
+	 *
+	 * @return new array of new Player objects in ranking order
+	 */
+	public Player[] toSortedArray() {
+		long[] sorted = Arrays.copyOf(heap, size);
+		Arrays.parallelSort(sorted);
+		Player[] players = new Player[size];
+		for (int i = 0; i < size; i++) {
+			long entry = sorted[size - 1 - i];
+			players[i] = new Player(names.nameOf(idOf(entry)), warOf(entry));
+		}
+		return players;
+	}
+
+	/**
+	 * Returns the current size of PrimitiveQueueWAR
+	 *
+	 * @return size of the queue
+	 */
+	public int checkQueueSize() {
+		return size;
+	}
+
+	/**
+	 * Returns the number of players the queue can hold before it has to grow
+	 *
+	 * @return capacity
+	 */
+	public int checkCapacity() {
+		return heap.length;
+	}
+
+	/**
+	 * Makes sure the queue can hold at least minCapacity players without resizing
+	 *
+	 * @param minCapacity
+	 * @throws IndexOutOfBoundsException if minCapacity is larger than the maximum array size
+	 */
+	public void ensureCapacity(int minCapacity) throws IndexOutOfBoundsException {
+		if (minCapacity > QueueWAR.MAX_CAPACITY) {
+			throw new IndexOutOfBoundsException("Capacity can't be larger than "
+					+ QueueWAR.MAX_CAPACITY);
+		}
+		if (minCapacity > heap.length) {
+			resize(minCapacity);
+		}
+	}
+
+	/**
+	 * Shrinks the queue so its capacity equals its current size
+	 */
+	public void trimToSize() {
+		if (size == heap.length) {
+			return;
+		}
+		heap = Arrays.copyOf(heap, size);
+	}
+
+	/**
+	 * Stores a player's name and sifts its entry into the heap
+	 *
+	 * @param name of player
+	 * @param war of player
+	 */
+	private void add(String name, int war) {
+		if (size == heap.length) {
+			grow(size + 1);
+		}
+		heap[size] = pack(war, names.acquire(name));
+		size += 1;
+		siftUp(size - 1);
+	}
+
+	/**
+	 * Grows the queue by the growth factor
+	 *
+	 * @param minCapacity
+	 * @throws IndexOutOfBoundsException if the queue isn't growable or can't get any bigger
+	 */
+	private void grow(int minCapacity) throws IndexOutOfBoundsException {
+		if (growthFactor == 0) {
+			throw new IndexOutOfBoundsException("PrimitiveQueueWAR is already full!");
+		}
+		if (minCapacity < 0 || minCapacity > QueueWAR.MAX_CAPACITY) {
+			throw new IndexOutOfBoundsException("PrimitiveQueueWAR can't get any bigger!");
+		}
+		long newCapacity = (long) (heap.length * growthFactor);
+		newCapacity = Math.max(newCapacity, (long) heap.length + QueueWAR.DEFAULT_CAPACITY);
+		newCapacity = Math.min(Math.max(newCapacity, minCapacity), QueueWAR.MAX_CAPACITY);
+		resize((int) newCapacity);
+	}
+
+	/**
+	 * Resizes the heap
+	 *
+	 * @param capacity new capacity, at least size
+	 */
+	private void resize(int capacity) {
+		heap = Arrays.copyOf(heap, capacity);
+	}
+
+	/**
+	 * Moves the entry at index up until its parent ranks higher
+	 *
+	 * @param index to start
+	 */
+	private void siftUp(int index) {
+		long moving = heap[index];
+		while (index > 0) {
+			int parentIndex = (index - 1) >>> 1;
+			long parent = heap[parentIndex];
+			if (moving <= parent) {
+				break;
+			}
+			heap[index] = parent;
+			index = parentIndex;
+		}
+		heap[index] = moving;
+	}
+
+	/**
+	 * Moves the entry at index down until both children rank lower
+	 *
+	 * @param index to start
+	 */
+	private void siftDown(int index) {
+		long moving = heap[index];
+		int firstLeaf = size >>> 1;
+		while (index < firstLeaf) {
+			int childIndex = (index << 1) + 1;
+			long greatestChild = heap[childIndex];
+			int rightIndex = childIndex + 1;
+			if (rightIndex < size && heap[rightIndex] > greatestChild) {
+				childIndex = rightIndex;
+				greatestChild = heap[rightIndex];
+			}
+			if (moving >= greatestChild) {
+				break;
+			}
+			heap[index] = greatestChild;
+			index = childIndex;
+		}
+		heap[index] = moving;
+	}
+
+	/**
+	 * Packs a WAR and name id into one heap entry, inverting the id so lower ids rank higher
+	 *
+	 * @param war
+	 * @param id at least 0
+	 * @return heap entry
+	 */
+	private static long pack(int war, int id) {
+		return ((long) war << 32) | (~id & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Returns the WAR stored in a heap entry
+	 *
+	 * @param entry
+	 * @return WAR
+	 */
+	private static int warOf(long entry) {
+		return (int) (entry >> 32);
+	}
+
+	/**
+	 * Returns the name id stored in a heap entry
+	 *
+	 * @param entry
+	 * @return name id
+	 */
+	private static int idOf(long entry) {
+		return ~(int) entry;
+	}
+}
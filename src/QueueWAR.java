@@ -1,4 +1,22 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 import java.util.Scanner;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * @author Connor Flint
@@ -13,18 +31,53 @@ import java.util.Scanner;
  * functions such as adding to queue, checking highest WAR, removing highest WAR, and checking the
  * length of the queue. 
  */
-public class QueueWAR {
+public class QueueWAR implements Iterable<Player> {
+	protected static final int DEFAULT_CAPACITY = 10;
+	protected static final double DEFAULT_GROWTH_FACTOR = 1.5;
+	// largest array size the JVM reliably allows
+	protected static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
 	protected Player[] array; // zero-indexed max-heap
 	protected int size;
+	protected double growthFactor; // 0 means the capacity is fixed
+	protected int modCount; // changes whenever Players move, so iterators can detect it
+	protected QueueWARMetrics metrics; // null unless metrics are enabled
+	
+	/**
+	 * Constructor to create a growable QueueWAR with the default capacity and growth factor
+	 */
+	public QueueWAR() {
+		this(DEFAULT_CAPACITY, DEFAULT_GROWTH_FACTOR);
+	}
 	
 	/**
-	 * Constructor to create QueueWAR
+	 * Constructor to create QueueWAR with a fixed capacity
 	 * 
 	 * @param arrayCapacity
 	 */
 	public QueueWAR(int arrayCapacity) {
+		if (arrayCapacity < 0) {
+			throw new IllegalArgumentException("Capacity can't be less than 0!");
+		}
 		this.size = 0;
 		this.array = new Player[arrayCapacity];
+		this.growthFactor = 0;
+	}
+	
+	/**
+	 * Constructor to create a growable QueueWAR. When the array is full it is resized to
+	 * (capacity * growthFactor), so n adds cost amortized O(1) copies each.
+	 * 
+	 * @param arrayCapacity initial capacity
+	 * @param growthFactor factor the capacity is multiplied by when the array is full
+	 * @throws IllegalArgumentException if capacity is negative or growthFactor is not above 1
+	 */
+	public QueueWAR(int arrayCapacity, double growthFactor) throws IllegalArgumentException {
+		this(arrayCapacity);
+		if (!(growthFactor > 1)) {
+			throw new IllegalArgumentException("Growth factor must be greater than 1!");
+		}
+		this.growthFactor = growthFactor;
 	}
 	
 	//Priority Queue ADT Operations
@@ -33,27 +86,106 @@ public class QueueWAR {
 	 * 
 	 * @param player to be added
 	 * @throws NullPointerException if player is null
-	 * @throws IndexOutofBoundsException if QueueWAR is at capacity
+	 * @throws IndexOutofBoundsException if QueueWAR is at capacity and not growable
 	 */
 	public void addNewPlayer(Player player) throws NullPointerException, 
 	IndexOutOfBoundsException {
 		if (player == null) {
 			throw new NullPointerException("Player can't be null!");
 		}
+		QueueWARMetrics metrics = this.metrics;
+		long start = metrics == null ? 0 : System.nanoTime();
 		if (array.length == size) {
-			throw new IndexOutOfBoundsException("QueueWAR is already full!");
+			grow(size + 1);
 		}
 
 		array[size] = player;
 
 		this.size += 1;
+		this.modCount += 1;
 
-		try {
-			propagateUp(size - 1);
-		} catch (Exception e) {
+		siftUp(size - 1);
+		if (metrics != null) {
+			metrics.recordAdd(System.nanoTime() - start);
+		}
+	}
+	
+	/**
+	 * Adds every player in the given array to QueueWAR. Small batches are inserted one at a
+	 * time; once the batch is large enough that inserting costs more than rebuilding, the
+	 * players are appended and the whole heap is rebuilt bottom-up in O(n).
+	 * 
+	 * @param players to be added
+	 * @throws NullPointerException if players or any player in it is null
+	 * @throws IndexOutOfBoundsException if the players don't fit and QueueWAR isn't growable
+	 */
+	public void addAll(Player[] players) throws NullPointerException, IndexOutOfBoundsException {
+		if (players == null) {
+			throw new NullPointerException("Players can't be null!");
+		}
+		// check everything first so a bad batch leaves QueueWAR unchanged
+		for (int i = 0; i < players.length; i++) {
+			if (players[i] == null) {
+				throw new NullPointerException("Player can't be null!");
+			}
+		}
+		int count = players.length;
+		if (count == 0) {
+			return;
+		}
+		if (count > array.length - size) {
+			grow(size + count);
+		}
+
+		int newSize = size + count;
+		boolean rebuild = shouldRebuild(size, count);
+		modCount += 1;
+		System.arraycopy(players, 0, array, size, count);
+		if (rebuild) {
+			size = newSize;
+			heapify();
+		} else {
+			while (size < newSize) {
+				size += 1;
+				siftUp(size - 1);
+			}
+		}
+		if (metrics != null) {
+			metrics.recordAdds(count);
 		}
 	}
 	
+	/**
+	 * Adds every player in the given collection to QueueWAR. See addAll(Player[]).
+	 * 
+	 * @param players to be added
+	 * @throws NullPointerException if players or any player in it is null
+	 * @throws IndexOutOfBoundsException if the players don't fit and QueueWAR isn't growable
+	 */
+	public void addAll(Collection<? extends Player> players) throws NullPointerException,
+	IndexOutOfBoundsException {
+		if (players == null) {
+			throw new NullPointerException("Players can't be null!");
+		}
+		addAll(players.toArray(new Player[0]));
+	}
+	
+	/**
+	 * Creates a growable QueueWAR holding the given players, built bottom-up in O(n)
+	 * 
+	 * @param players to be added
+	 * @return new QueueWAR
+	 * @throws NullPointerException if players or any player in it is null
+	 */
+	public static QueueWAR fromArray(Player[] players) throws NullPointerException {
+		if (players == null) {
+			throw new NullPointerException("Players can't be null!");
+		}
+		QueueWAR queue = new QueueWAR(players.length, DEFAULT_GROWTH_FACTOR);
+		queue.addAll(players);
+		return queue;
+	}
+	
 	/**
 	 * Returns player in queue with the highest WAR
 	 * 
@@ -61,10 +193,15 @@ public class QueueWAR {
 	 * @throws IllegalStateException QueueWAR is empty
 	 */
 	public Player checkHighestPlayer() throws IllegalStateException {
+		QueueWARMetrics metrics = this.metrics;
+		long start = metrics == null ? 0 : System.nanoTime();
 		if (this.size == 0) {
 			throw new IllegalStateException("QueueWAR is empty!");
 		}
 		Player highestPlayer = this.array[0];
+		if (metrics != null) {
+			metrics.recordPeek(System.nanoTime() - start);
+		}
 		return highestPlayer;
 		}
 	
@@ -79,19 +216,23 @@ public class QueueWAR {
 		if (this.size == 0) {
 			throw new IllegalStateException("QueueWAR is empty!");
 		}
+		QueueWARMetrics metrics = this.metrics;
+		long start = metrics == null ? 0 : System.nanoTime();
 
-		Player toRemove = this.checkHighestPlayer();
+		Player toRemove = array[0];
 
 		// moves last element to front and propagates down
 		array[0] = array[size - 1];
 		array[size - 1] = null;
 
 		this.size -= 1;
+		this.modCount += 1;
 
-		try {
-			this.propagateDown(0);
-		} catch (Exception e) {
-
+		if (size > 0) {
+			siftDown(0);
+		}
+		if (metrics != null) {
+			metrics.recordRemove(System.nanoTime() - start);
 		}
 
 		return toRemove;
@@ -106,8 +247,261 @@ public class QueueWAR {
 		return this.size;
 	}
 	
+	/**
+	 * Returns the players from highest to lowest WAR without changing QueueWAR. The iterator
+	 * keeps a small frontier heap of array indexes: it starts with the root, and every index it
+	 * returns is replaced by that slot's children, so the first k players cost O(k log k) and the
+	 * heap array is never modified or copied. Adding or removing players while iterating makes
+	 * the iterator throw ConcurrentModificationException.
+	 * 
+	 * @return iterator over the ranking
+	 */
+	public Iterator<Player> ranking() {
+		return new RankingIterator();
+	}
+	
+	/**
+	 * Same as ranking(), so QueueWAR can be used in a for-each loop
+	 * 
+	 * @return iterator over the ranking
+	 */
+	@Override
+	public Iterator<Player> iterator() {
+		return ranking();
+	}
+	
+	/**
+	 * Returns a lazy stream of the players from highest to lowest WAR. See ranking().
+	 * 
+	 * @return stream over the ranking
+	 */
+	public Stream<Player> rankingStream() {
+		return StreamSupport.stream(Spliterators.spliterator(ranking(), size,
+				Spliterator.ORDERED | Spliterator.NONNULL), false);
+	}
+	
+	/**
+	 * Returns every player from highest to lowest WAR without changing QueueWAR. The heap is
+	 * copied and the copy is sorted by ParallelRankSort, a fork/join merge sort over the players'
+	 * rank keys, so exporting millions of players uses every core instead of draining the heap
+	 * on one thread. Only players with equal rank keys, such as one Player added twice, can come
+	 * out in either order (see Player for when creation sequences can collide).
+	 * 
+	 * @return new array of the players in ranking order
+	 */
+	public Player[] toSortedArray() {
+		Player[] sorted = Arrays.copyOf(array, size);
+		sortByRank(sorted);
+		return sorted;
+	}
+	
+	/**
+	 * Sorts players from highest to lowest rank key in parallel
+	 * 
+	 * @param players to sort in place
+	 */
+	protected static void sortByRank(Player[] players) {
+		long[] keys = new long[players.length];
+		for (int i = 0; i < players.length; i++) {
+			keys[i] = players[i].rankKey;
+		}
+		ParallelRankSort.sortDescending(keys, players);
+	}
+	
+	/**
+	 * Returns one page of the ranking, for example rankingPage(50, 25) for ranks 51 to 75.
+	 * 
+	 * @param offset number of higher ranked players to skip
+	 * @param count most players to return
+	 * @return players on the page, fewer than count at the end of the ranking
+	 * @throws IllegalArgumentException if offset or count is less than 0
+	 */
+	public Player[] rankingPage(int offset, int count) throws IllegalArgumentException {
+		if (offset < 0 || count < 0) {
+			throw new IllegalArgumentException("Offset and count can't be less than 0!");
+		}
+		int end = (int) Math.min(size, (long) offset + count);
+		Player[] page = new Player[Math.max(0, end - offset)];
+		Iterator<Player> ranking = ranking();
+		for (int i = 0; i < end; i++) {
+			Player player = ranking.next();
+			if (i >= offset) {
+				page[i - offset] = player;
+			}
+		}
+		return page;
+	}
+	
+	/**
+	 * Iterator behind ranking(). The frontier is a max-heap of indexes into array, ordered by
+	 * the Players at those indexes.
+	 */
+	private class RankingIterator implements Iterator<Player> {
+		private int[] frontier = new int[16];
+		private int frontierSize;
+		private final int expectedModCount = modCount;
+
+		RankingIterator() {
+			if (size > 0) {
+				frontier[frontierSize++] = 0;
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			return frontierSize > 0;
+		}
+
+		@Override
+		public Player next() {
+			if (modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			if (frontierSize == 0) {
+				throw new NoSuchElementException();
+			}
+			int top = frontier[0];
+			frontierSize -= 1;
+			if (frontierSize > 0) {
+				frontier[0] = frontier[frontierSize];
+				siftFrontierDown();
+			}
+
+			int firstChild = top * arity() + 1;
+			int lastChild = (int) Math.min(size, (long) firstChild + arity());
+			for (int child = firstChild; child < lastChild && child > 0; child++) {
+				if (frontierSize == frontier.length) {
+					frontier = Arrays.copyOf(frontier, frontier.length * 2);
+				}
+				frontier[frontierSize++] = child;
+				siftFrontierUp(frontierSize - 1);
+			}
+			return array[top];
+		}
+
+		/**
+		 * Moves the index at the given frontier slot up while its Player is greater
+		 * 
+		 * @param index slot in the frontier
+		 */
+		private void siftFrontierUp(int index) {
+			int moving = frontier[index];
+			while (index > 0) {
+				int parentIndex = (index - 1) >>> 1;
+				if (array[moving].rankKey <= array[frontier[parentIndex]].rankKey) {
+					break;
+				}
+				frontier[index] = frontier[parentIndex];
+				index = parentIndex;
+			}
+			frontier[index] = moving;
+		}
+
+		/**
+		 * Moves the index at the root of the frontier down while a child's Player is greater
+		 */
+		private void siftFrontierDown() {
+			int index = 0;
+			int moving = frontier[0];
+			int firstLeaf = frontierSize >>> 1;
+			while (index < firstLeaf) {
+				int childIndex = (index << 1) + 1;
+				Player greatestChild = array[frontier[childIndex]];
+				int rightIndex = childIndex + 1;
+				if (rightIndex < frontierSize
+						&& array[frontier[rightIndex]].rankKey > greatestChild.rankKey) {
+					childIndex = rightIndex;
+					greatestChild = array[frontier[rightIndex]];
+				}
+				if (array[moving].rankKey >= greatestChild.rankKey) {
+					break;
+				}
+				frontier[index] = frontier[childIndex];
+				index = childIndex;
+			}
+			frontier[index] = moving;
+		}
+	}
+	
+	/**
+	 * Returns the number of Players QueueWAR can hold before it has to grow
+	 * 
+	 * @return length of the heap array
+	 */
+	public int checkCapacity() {
+		return this.array.length;
+	}
+	
+	/**
+	 * Returns whether QueueWAR resizes itself when it is full
+	 * 
+	 * @return true if growable, false if the capacity is fixed
+	 */
+	public boolean isGrowable() {
+		return this.growthFactor > 0;
+	}
+	
+	/**
+	 * Changes the factor the capacity is multiplied by when QueueWAR is full. A factor of 0 fixes
+	 * the capacity so adding to a full QueueWAR throws again.
+	 * 
+	 * @param growthFactor new growth factor, 0 or greater than 1
+	 * @throws IllegalArgumentException if growthFactor is not 0 and not above 1
+	 */
+	public void setGrowthFactor(double growthFactor) throws IllegalArgumentException {
+		if (growthFactor != 0 && !(growthFactor > 1)) {
+			throw new IllegalArgumentException("Growth factor must be 0 or greater than 1!");
+		}
+		this.growthFactor = growthFactor;
+	}
+	
+	/**
+	 * Makes sure the heap array can hold at least minCapacity Players without resizing. This
+	 * works even if QueueWAR isn't growable, so a known load can be sized up front.
+	 * 
+	 * @param minCapacity
+	 * @throws IndexOutOfBoundsException if minCapacity is larger than the maximum array size
+	 */
+	public void ensureCapacity(int minCapacity) throws IndexOutOfBoundsException {
+		if (minCapacity > MAX_CAPACITY) {
+			throw new IndexOutOfBoundsException("Capacity can't be larger than " + MAX_CAPACITY);
+		}
+		if (minCapacity > array.length) {
+			array = Arrays.copyOf(array, minCapacity);
+		}
+	}
+	
+	/**
+	 * Shrinks the heap array so its capacity equals the current size of QueueWAR
+	 */
+	public void trimToSize() {
+		if (size < array.length) {
+			array = Arrays.copyOf(array, size);
+		}
+	}
+	
 	//Supplementary methods for heap array functionality
 	
+	/**
+	 * Resizes the heap array by the growth factor so it holds at least minCapacity Players.
+	 * 
+	 * @param minCapacity
+	 * @throws IndexOutOfBoundsException if QueueWAR isn't growable or can't get any bigger
+	 */
+	protected void grow(int minCapacity) throws IndexOutOfBoundsException {
+		if (growthFactor == 0) {
+			throw new IndexOutOfBoundsException("QueueWAR is already full!");
+		}
+		if (minCapacity < 0 || minCapacity > MAX_CAPACITY) {
+			throw new IndexOutOfBoundsException("QueueWAR can't get any bigger!");
+		}
+		long newCapacity = (long) (array.length * growthFactor);
+		// small arrays would otherwise grow by 0 or 1 slot at a time
+		newCapacity = Math.max(newCapacity, (long) array.length + DEFAULT_CAPACITY);
+		newCapacity = Math.min(Math.max(newCapacity, minCapacity), MAX_CAPACITY);
+		array = Arrays.copyOf(array, (int) newCapacity);
+	}
+	
 	/**
 	 * Given an index into the heap array, this method returns that index's parent index.
 	 * 
@@ -170,102 +564,249 @@ public class QueueWAR {
 	}
 
 	/**
-	 * Given an index into the heap array, this method recursively swaps any Players necessary to
-	 * enforce the heap's order property between this index and the heap's root.
+	 * Given an index into the heap array, this method moves any Players necessary to enforce the
+	 * heap's order property between this index and the heap's root.
 	 * 
 	 * @param index to start
-	 * @throws Exception if index is invalid
+	 * @throws IndexOutOfBoundsException if index is invalid
 	 */
-	protected void propagateUp(int index) throws Exception {
+	protected void propagateUp(int index) throws IndexOutOfBoundsException {
 		if (index < 0 || index >= size) {
-			throw new Exception("Index is invalid");
+			throw new IndexOutOfBoundsException("Index is invalid");
 		}
+		siftUp(index);
+	}
 
-		int parentIndex = QueueWAR.parentOf(index);
+	/**
+	 * Given an index into the heap array, this method moves any Players necessary to enforce the
+	 * heap's order property between this index and it's children.
+	 * 
+	 * @param index to start
+	 * @throws IndexOutOfBoundsException if index is invalid
+	 */
+	protected void propagateDown(int index) throws IndexOutOfBoundsException {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Not an acceptable index");
+		}
+		siftDown(index);
+	}
 
-		// checks that parent index exists
-		if (parentIndex < 0 || parentIndex >= size) {
-			return;
+	/**
+	 * Removes the Player at any index of the heap array. The last Player fills the slot and is
+	 * sifted down, or up if it turns out to be greater than its new parent.
+	 * 
+	 * @param index of the Player to remove, must be valid
+	 * @return player that is removed
+	 */
+	protected Player removeAt(int index) {
+		Player removed = array[index];
+		size -= 1;
+		modCount += 1;
+		Player last = array[size];
+		array[size] = null;
+		if (index < size) {
+			array[index] = last;
+			siftDown(index);
+			if (array[index] == last) {
+				siftUp(index);
+			}
 		}
+		return removed;
+	}
 
-		Player parent = array[parentIndex];
-		Player curTicket = array[index];
+	/**
+	 * Returns the number of children each node of the heap has
+	 * 
+	 * @return 2 for QueueWAR's binary heap
+	 */
+	protected int arity() {
+		return 2;
+	}
 
-		if (curTicket.compareTo(parent) > 0) {
-			try {
-				this.swap(parentIndex, index);
-			} catch (Exception e) {
-				System.out.println("Invalid swap here.");
-			}
-			propagateUp(parentIndex);
-		} else {
-			return;
+	/**
+	 * Restores the heap's order property over the whole array bottom-up (Floyd's method), which
+	 * takes O(n) instead of the O(n log n) of adding one Player at a time.
+	 */
+	protected void heapify() {
+		for (int i = (size >>> 1) - 1; i >= 0; i--) {
+			siftDown(i);
 		}
+	}
 
+	/**
+	 * Decides whether adding a batch should rebuild the heap instead of inserting one by one.
+	 * Inserting costs up to log2(n) moves per Player while rebuilding costs about 2n in total.
+	 * 
+	 * @param currentSize number of Players already in the heap
+	 * @param count number of Players being added
+	 * @return true if rebuilding is cheaper
+	 */
+	protected static boolean shouldRebuild(int currentSize, int count) {
+		long total = (long) currentSize + count;
+		int levels = 64 - Long.numberOfLeadingZeros(total);
+		return (long) count * levels > 2 * total;
 	}
 
 	/**
-	 * Given an index into the heap array, this method recursively swaps any Players necessary to 
-	 * enforce the heap's order property between this index and it's children.
+	 * Hot path of propagateUp. Instead of swapping at every level, the Player at index is held
+	 * aside while smaller parents are shifted down into the "hole", then it is written once into
+	 * its final slot. The index must be valid; it isn't checked.
 	 * 
 	 * @param index to start
-	 * @throws Exception if index is invalid
 	 */
-	protected void propagateDown(int index) throws Exception {
-		if (index < 0 || index >= size) {
-			throw new Exception("Not an acceptable index");
+	protected void siftUp(int index) {
+		Player moving = array[index];
+		int start = index;
+		while (index > 0) {
+			int parentIndex = (index - 1) >>> 1;
+			Player parent = array[parentIndex];
+			if (moving.rankKey <= parent.rankKey) {
+				break;
+			}
+			array[index] = parent;
+			index = parentIndex;
 		}
+		array[index] = moving;
+		recordSiftUp(start, index);
+	}
 
-		Player parent = array[index];
-		Player greatestChild;
-		int greatestChildIndex;
-		int leftIndex = QueueWAR.leftChildOf(index);
-		int rightIndex = QueueWAR.rightChildOf(index);
-
-		// neither a left or right child exists
-		if (leftIndex >= size && rightIndex >= size) {
-			return;
+	/**
+	 * Hot path of propagateDown. The Player at index is held aside while the greater child at
+	 * each level is shifted up into the "hole", then it is written once into its final slot. The
+	 * index must be valid; it isn't checked.
+	 * 
+	 * @param index to start
+	 */
+	protected void siftDown(int index) {
+		Player moving = array[index];
+		int firstLeaf = size >>> 1; // nodes from here on have no children
+		int start = index;
+		while (index < firstLeaf) {
+			int childIndex = (index << 1) + 1;
+			Player greatestChild = array[childIndex];
+			int rightIndex = childIndex + 1;
+			// ties go to the right child, as they always have
+			if (rightIndex < size && array[rightIndex].rankKey >= greatestChild.rankKey) {
+				childIndex = rightIndex;
+				greatestChild = array[rightIndex];
+			}
+			if (moving.rankKey >= greatestChild.rankKey) {
+				break;
+			}
+			array[index] = greatestChild;
+			index = childIndex;
 		}
-		// only a left child
-		else if (rightIndex >= size) {
-			greatestChild = array[leftIndex];
-			greatestChildIndex = leftIndex;
-		}
-		// only a right child
-		else if (leftIndex >= size) {
-			greatestChild = array[rightIndex];
-			greatestChildIndex = rightIndex;
-		}
-		// both a right and left child exist
-		else {
-			Player leftChild = array[leftIndex];
-			Player rightChild = array[rightIndex];
-
-			// find the greater child
-			if (leftChild.compareTo(rightChild) > 0) {
-				greatestChild = leftChild;
-				greatestChildIndex = leftIndex;
-			} else {
-				greatestChild = rightChild;
-				greatestChildIndex = rightIndex;
+		array[index] = moving;
+		recordSiftDown(start, index);
+	}
+	
+	
+	
+	/**
+	 * Records a finished sift up in the metrics, if they are enabled. The sift loops don't count
+	 * anything themselves; the comparisons and moves are worked out here from the slot the
+	 * sift started in and the slot it ended in, so the loops cost the same with metrics off.
+	 * 
+	 * @param start slot the sift started in
+	 * @param end slot the Player ended up in
+	 */
+	protected final void recordSiftUp(int start, int end) {
+		QueueWARMetrics metrics = this.metrics;
+		if (metrics != null) {
+			int d = arity();
+			int moves = 0;
+			for (int i = start; i > end; i = (i - 1) / d) {
+				moves++;
 			}
+			// one comparison per level moved, plus the one that stopped it below the root
+			metrics.recordSift(end > 0 ? moves + 1 : moves, moves);
 		}
-
-		// compare greatest child to parent
-		if (parent.compareTo(greatestChild) < 0) {
-			try {
-				this.swap(index, greatestChildIndex);
-			} catch (Exception e) {
-				System.out.println("Invalid swap here.");
+	}
+	
+	/**
+	 * Records a finished sift down in the metrics, if they are enabled. See recordSiftUp.
+	 * 
+	 * @param start slot the sift started in
+	 * @param end slot the Player ended up in
+	 */
+	protected final void recordSiftDown(int start, int end) {
+		QueueWARMetrics metrics = this.metrics;
+		if (metrics != null) {
+			int d = arity();
+			// a slot with c children costs c - 1 comparisons among them and one with the Player
+			int comparisons = childCount(end, d);
+			int moves = 0;
+			for (int i = end; i > start; i = (i - 1) / d) {
+				moves++;
+				comparisons += childCount((i - 1) / d, d);
 			}
-			propagateDown(greatestChildIndex);
-		} else {
-			return;
+			metrics.recordSift(comparisons, moves);
 		}
-
 	}
 	
+	/**
+	 * Returns how many children a slot has
+	 * 
+	 * @param index of the slot
+	 * @param d arity of the heap
+	 * @return number of children, from 0 to d
+	 */
+	private int childCount(int index, int d) {
+		long firstChild = (long) index * d + 1;
+		return (int) Math.max(0, Math.min(d, size - firstChild));
+	}
+	
+	/**
+	 * Starts recording operation counts, sift counts and latencies. Metrics stay off, and cost
+	 * only a null check per operation, until this is called.
+	 * 
+	 * @return the metrics being recorded, already enabled metrics if there are some
+	 */
+	public QueueWARMetrics enableMetrics() {
+		if (metrics == null) {
+			metrics = new QueueWARMetrics();
+		}
+		return metrics;
+	}
+	
+	/**
+	 * Starts recording metrics and registers them with the platform MBean server as
+	 * "HockeyWAR:type=QueueWAR,name=<name>", so JMX clients such as JConsole can read them
+	 * 
+	 * @param name to register the metrics under
+	 * @return the metrics being recorded
+	 * @throws NullPointerException if name is null
+	 * @throws IllegalArgumentException if metrics with that name are already registered
+	 * @throws IllegalStateException if this queue's metrics are already registered
+	 */
+	public QueueWARMetrics enableMetrics(String name) throws NullPointerException,
+	IllegalArgumentException, IllegalStateException {
+		if (name == null) {
+			throw new NullPointerException("Name can't be null!");
+		}
+		QueueWARMetrics enabled = enableMetrics();
+		enabled.register(name);
+		return enabled;
+	}
 	
+	/**
+	 * Stops recording metrics and unregisters them from JMX if they were registered
+	 */
+	public void disableMetrics() {
+		if (metrics != null) {
+			metrics.unregister();
+			metrics = null;
+		}
+	}
+	
+	/**
+	 * Returns the metrics being recorded
+	 * 
+	 * @return metrics, or null if they aren't enabled
+	 */
+	public QueueWARMetrics getMetrics() {
+		return metrics;
+	}
 	
 	//Command Interface that allows user to interact with priority queue
 	public void printCommandMenu() {
@@ -335,16 +876,222 @@ public class QueueWAR {
 		}
 	}
 	
+	/**
+	 * Runs a command script without the menu or prompts. Each line holds one command in the
+	 * same form as the interactive menu, for example "1 Crosby 30 40 10" or "2"; blank lines are
+	 * skipped and "5" ends the script early. Results are written to out, which is flushed once
+	 * at the end instead of after every line.
+	 * 
+	 * With pipeline on, consecutive adds are collected and inserted with one addAll when the
+	 * next other command or the end of the script is reached, so a long run of adds is heapified
+	 * in O(n) instead of sifted one player at a time. Reads between adds still see every earlier
+	 * add. If the batch is rejected, for example because IndexedQueueWAR finds a name twice, its
+	 * players are added one at a time so only the bad ones fail.
+	 * 
+	 * @param script to read commands from
+	 * @param out to write results to
+	 * @param pipeline whether to group consecutive adds into one bulk insert
+	 * @return number of commands run
+	 * @throws NullPointerException if script or out is null
+	 * @throws IOException if the script can't be read or out can't be written
+	 */
+	public int runScript(BufferedReader script, Writer out, boolean pipeline)
+			throws NullPointerException, IOException {
+		if (script == null || out == null) {
+			throw new NullPointerException("Script and output can't be null!");
+		}
+		ArrayList<Player> batch = new ArrayList<>();
+		int commands = 0;
+		String line;
+		while ((line = script.readLine()) != null) {
+			String[] tokens = line.trim().split("\\s+");
+			if (tokens[0].isEmpty()) {
+				continue;
+			}
+			commands++;
+			if (tokens[0].equals("1")) {
+				Player player = parsePlayer(tokens);
+				if (player == null) {
+					out.write("Player could not be successfully added\n\n");
+				} else if (pipeline) {
+					batch.add(player);
+				} else {
+					addFromScript(player, out);
+				}
+				continue;
+			}
+			addBatchFromScript(batch, out);
+			switch (tokens[0]) {
+			case "2":
+				out.write(size == 0 ? "The queue is empty" : checkHighestPlayer().toString());
+				out.write('\n');
+				break;
+			case "3":
+				out.write(size == 0 ? "The queue is empty" : removeBestPlayer() + " was removed");
+				out.write('\n');
+				break;
+			case "4":
+				out.write("The queue size is currently " + checkQueueSize() + "\n");
+				break;
+			case "5":
+				out.flush();
+				return commands;
+			default:
+				out.write("Unknown command " + tokens[0] + "\n");
+				break;
+			}
+		}
+		addBatchFromScript(batch, out);
+		out.flush();
+		return commands;
+	}
+	
+	/**
+	 * Parses the player of an add command
+	 * 
+	 * @param tokens "1", name, goals, assists, penalties
+	 * @return new Player, or null if the command is malformed or a stat is negative
+	 */
+	private static Player parsePlayer(String[] tokens) {
+		if (tokens.length != 5) {
+			return null;
+		}
+		try {
+			return new Player(tokens[1], Integer.parseInt(tokens[2]), Integer.parseInt(tokens[3]),
+					Integer.parseInt(tokens[4]));
+		} catch (IllegalArgumentException e) { // includes NumberFormatException
+			return null;
+		}
+	}
+	
+	/**
+	 * Adds one player from a script, reporting instead of throwing if the queue rejects it
+	 * 
+	 * @param player to add
+	 * @param out to report failures to
+	 * @throws IOException if out can't be written
+	 */
+	private void addFromScript(Player player, Writer out) throws IOException {
+		try {
+			addNewPlayer(player);
+		} catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+			out.write("Player could not be successfully added\n\n");
+		}
+	}
+	
+	/**
+	 * Adds a script's pending adds with one addAll and empties the batch. If the queue rejects
+	 * the batch, the players are added one at a time instead.
+	 * 
+	 * @param batch players to add, emptied afterwards
+	 * @param out to report failures to
+	 * @throws IOException if out can't be written
+	 */
+	private void addBatchFromScript(ArrayList<Player> batch, Writer out) throws IOException {
+		if (batch.isEmpty()) {
+			return;
+		}
+		try {
+			addAll(batch);
+		} catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+			for (Player player : batch) {
+				addFromScript(player, out);
+			}
+		}
+		batch.clear();
+	}
+	
+	/**
+	 * Streams season stats files into the queue and reports how fast they loaded
+	 * 
+	 * @param files paths of the stats files
+	 * @return false if a file couldn't be read or the queue rejected its players
+	 */
+	public boolean loadSeasonFiles(String[] files) {
+		SeasonFileLoader loader = new SeasonFileLoader(this);
+		for (String file : files) {
+			try {
+				loader.load(Paths.get(file));
+			} catch (IOException | RuntimeException e) {
+				// RuntimeException: the queue rejected a batch, for example a full fixed queue
+				System.out.println("Could not load " + file + ": " + e.getMessage());
+				return false;
+			}
+		}
+		System.out.printf("Loaded %d players (%d rows skipped) at %,.0f rows/s%n",
+				loader.getRowsLoaded(), loader.getRowsSkipped(), loader.getRowsPerSecond());
+		return true;
+	}
+	
+	/**
+	 * Runs QueueWAR. With "-data <directory>" the queue is a DurableQueueWAR kept in that
+	 * directory, so it is restored on the next run. With "-script <file>" the commands in the file
+	 * are run instead of the interactive menu, and "-pipeline" after it groups consecutive adds
+	 * into bulk inserts. With "-load <file>..." the season stats files are streamed into the
+	 * queue before any commands run.
+	 * 
+	 * @param args
+	 */
 	public static void main(String[] args) {
 		Scanner scanner = new Scanner(System.in);
-		QueueWAR queue = new QueueWAR(10);
-		System.out.println("\n--------------------------------------------------------");
-		System.out.println("    QueueWAR");
-		System.out.println("--------------------------------------------------------");
-		queue.readCommand(scanner);
-		System.out.println("\n--------------------------------------------------------");
-		System.out.println("    QueueWAR has been closed");
-		System.out.println("--------------------------------------------------------");
+		int next = 0;
+		QueueWAR queue;
+		if (args.length > 1 && args[0].equals("-data")) {
+			try {
+				queue = new DurableQueueWAR(Paths.get(args[1]));
+			} catch (IOException e) {
+				System.out.println("Could not open " + args[1] + ": " + e.getMessage());
+				return;
+			}
+			next = 2;
+		} else {
+			queue = new QueueWAR();
+		}
+		String script = null;
+		boolean pipeline = false;
+		if (args.length > next + 1 && args[next].equals("-script")) {
+			script = args[next + 1];
+			next += 2;
+			if (args.length > next && args[next].equals("-pipeline")) {
+				pipeline = true;
+				next += 1;
+			}
+		}
+		if (script == null) {
+			System.out.println("\n--------------------------------------------------------");
+			System.out.println("    QueueWAR");
+			System.out.println("--------------------------------------------------------");
+		}
+		try {
+			if (args.length > next + 1 && args[next].equals("-load")) {
+				queue.loadSeasonFiles(Arrays.copyOfRange(args, next + 1, args.length));
+			}
+			if (script == null) {
+				queue.readCommand(scanner);
+			} else {
+				try (BufferedReader in = Files.newBufferedReader(Paths.get(script))) {
+					Writer out = new BufferedWriter(new OutputStreamWriter(System.out,
+							StandardCharsets.UTF_8), 1 << 16);
+					queue.runScript(in, out, pipeline);
+				} catch (IOException e) {
+					System.out.println("Could not run " + script + ": " + e.getMessage());
+				}
+			}
+		} finally {
+			// saves everything logged so far, even if a command failed unexpectedly
+			if (queue instanceof DurableQueueWAR) {
+				try {
+					((DurableQueueWAR) queue).close();
+				} catch (IOException e) {
+					System.out.println("Could not save the queue: " + e.getMessage());
+				}
+			}
+		}
+		if (script == null) {
+			System.out.println("\n--------------------------------------------------------");
+			System.out.println("    QueueWAR has been closed");
+			System.out.println("--------------------------------------------------------");
+		}
 		scanner.close();
 	}
 }
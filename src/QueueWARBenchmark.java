@@ -0,0 +1,694 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * @author Connor Flint
+ *
+ * Benchmark suite for the QueueWAR and Player hot paths, with java.util.PriorityQueue as the
+ * baseline. Every benchmark runs a few warmup rounds so the JIT has compiled it, then several
+ * measured rounds; each round repeats the benchmark until at least MIN_ROUND_NANOS have been
+ * timed. Set-up work such as building the queue to drain is not timed.
+ *
+ * Usage: java -Xmx3g QueueWARBenchmark [-sizes 1000,100000,10000000] [-filter text]
+ *                                       [-save file] [-compare file] [-threshold percent]
+ *
+ * -save writes the results so a later run can -compare against them; the comparison prints
+ * the change for every benchmark and exits with status 1 if any got slower by more than the
+ * threshold (default 10%), so regressions can be caught before deploying.
+ */
+public class QueueWARBenchmark {
+	private static final int WARMUP_ROUNDS = 3;
+	private static final int MEASURED_ROUNDS = 5;
+	private static final long MIN_ROUND_NANOS = 100_000_000L;
+	private static final int PEEKS_PER_RUN = 1_000_000;
+	private static final int NAME_POOL_SIZE = 1024; // keeps 10M players from needing 10M names
+
+	// keeps results alive so the JIT can't remove the work being measured
+	private static long sink;
+
+	private final String filter;
+	private final Map<String, Double> results = new LinkedHashMap<>();
+
+	/**
+	 * One benchmark. setUp prepares untimed state, run does the timed work.
+	 */
+	protected interface Trial {
+		/**
+		 * Prepares state for the next run; not timed
+		 */
+		default void setUp() {
+		}
+
+		/**
+		 * Does the timed work
+		 *
+		 * @return number of operations performed
+		 * @throws Exception if the benchmark fails
+		 */
+		long run() throws Exception;
+	}
+
+	/**
+	 * Creates a benchmark suite
+	 *
+	 * @param filter only benchmarks whose name contains this run, or null for all
+	 */
+	public QueueWARBenchmark(String filter) {
+		this.filter = filter;
+	}
+
+	/**
+	 * Creates an array of players with random WAR values
+	 *
+	 * @param count number of players
+	 * @param seed for the random number generator
+	 * @return array of players
+	 */
+	protected static Player[] randomPlayers(int count, long seed) {
+		Random random = new Random(seed);
+		String[] names = new String[Math.min(count, NAME_POOL_SIZE)];
+		for (int i = 0; i < names.length; i++) {
+			names[i] = "p" + i;
+		}
+		Player[] players = new Player[count];
+		for (int i = 0; i < count; i++) {
+			players[i] = new Player(names[i % names.length], random.nextInt(100),
+					random.nextInt(100), random.nextInt(50));
+		}
+		return players;
+	}
+
+	/**
+	 * Runs one benchmark and records its mean throughput
+	 *
+	 * @param name of the benchmark
+	 * @param trial to run
+	 * @throws Exception if the benchmark fails
+	 */
+	protected void benchmark(String name, Trial trial) throws Exception {
+		if (!selected(name)) {
+			return;
+		}
+		double[] measured = new double[MEASURED_ROUNDS];
+		for (int round = 0; round < WARMUP_ROUNDS + MEASURED_ROUNDS; round++) {
+			long ops = 0;
+			long nanos = 0;
+			do {
+				trial.setUp();
+				long start = System.nanoTime();
+				ops += trial.run();
+				nanos += System.nanoTime() - start;
+			} while (nanos < MIN_ROUND_NANOS);
+			if (round >= WARMUP_ROUNDS) {
+				measured[round - WARMUP_ROUNDS] = opsPerSecond(ops, nanos);
+			}
+		}
+
+		double mean = 0;
+		for (double value : measured) {
+			mean += value;
+		}
+		mean /= measured.length;
+		double variance = 0;
+		for (double value : measured) {
+			variance += (value - mean) * (value - mean);
+		}
+		double error = Math.sqrt(variance / measured.length) / mean * 100;
+		System.out.printf("%-44s %,16.0f ops/s  +- %4.1f%%%n", name, mean, error);
+		results.put(name, mean);
+	}
+
+	/**
+	 * Returns whether any of the given benchmarks passes the filter. Fixtures that only some
+	 * benchmarks use are built only when one of them will run.
+	 *
+	 * @param names of the benchmarks
+	 * @return true if at least one of them will run
+	 */
+	protected boolean selected(String... names) {
+		if (filter == null) {
+			return true;
+		}
+		for (String name : names) {
+			if (name.contains(filter)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Runs every benchmark at one heap size
+	 *
+	 * @param count number of players
+	 * @throws Exception if a benchmark fails
+	 */
+	protected void runAll(int count) throws Exception {
+		Player[] players = randomPlayers(count, 42);
+		List<Player> playerList = Arrays.asList(players);
+		String size = "/" + count;
+
+		// Player hot paths
+		String calculateWAR = "Player.calculateWAR" + size;
+		String modelOne = "WeightedWARModel.calculateWAR" + size;
+		String modelAll = "WeightedWARModel.calculateAll" + size;
+		String aggregate = "PlayerHistoryStore.aggregate" + size;
+		if (selected(calculateWAR, modelOne, modelAll, aggregate)) {
+			int[] goals = new int[count];
+			int[] assists = new int[count];
+			int[] penalties = new int[count];
+			Random random = new Random(1);
+			for (int i = 0; i < count; i++) {
+				goals[i] = random.nextInt(100);
+				assists[i] = random.nextInt(100);
+				penalties[i] = random.nextInt(50);
+			}
+			benchmark(calculateWAR, () -> {
+				long total = 0;
+				for (int i = 0; i < count; i++) {
+					total += Player.calculateWAR(goals[i], assists[i], penalties[i]);
+				}
+				sink += total;
+				return count;
+			});
+			if (selected(modelOne, modelAll, aggregate)) {
+				StatColumns stats = new StatColumns(count);
+				for (int i = 0; i < count; i++) {
+					stats.add("p" + (i % NAME_POOL_SIZE), goals[i], assists[i], penalties[i],
+							random.nextInt(61) - 30, random.nextInt(1500));
+				}
+				if (selected(modelOne, modelAll)) {
+					WARModel model = new WeightedWARModel(1.0, 0.75, 0.5, 0.25, 0.01);
+					int[] war = new int[count];
+					benchmark(modelOne, () -> {
+						for (int i = 0; i < count; i++) {
+							war[i] = model.calculateWAR(stats, i);
+						}
+						sink += war[count - 1];
+						return count;
+					});
+					benchmark(modelAll, () -> {
+						model.calculateAll(stats, war);
+						sink += war[count - 1];
+						return count;
+					});
+				}
+				if (selected(aggregate)) {
+					PlayerHistoryStore history = new PlayerHistoryStore();
+					for (int i = 0; i < count; i++) {
+						history.add(2000 + i % 10, stats.getName(i), goals[i], assists[i],
+								penalties[i], stats.getPlusMinus()[i], stats.getTimeOnIce()[i]);
+					}
+					benchmark(aggregate, () -> {
+						sink += history.aggregate(2000, 2009).size();
+						return count;
+					});
+				}
+			}
+		}
+		benchmark("Player.compareTo" + size, () -> {
+			long total = 0;
+			for (int i = 1; i < count; i++) {
+				total += players[i].compareTo(players[i - 1]);
+			}
+			sink += total;
+			return count - 1;
+		});
+
+		// addNewPlayer
+		benchmark("QueueWAR.addNewPlayer" + size, new Trial() {
+			QueueWAR queue;
+
+			public void setUp() {
+				queue = new QueueWAR(count);
+			}
+
+			public long run() {
+				for (int i = 0; i < count; i++) {
+					queue.addNewPlayer(players[i]);
+				}
+				return count;
+			}
+		});
+		benchmark("PrimitiveQueueWAR.addNewPlayer" + size, new Trial() {
+			PrimitiveQueueWAR queue;
+
+			public void setUp() {
+				queue = new PrimitiveQueueWAR(count);
+			}
+
+			public long run() {
+				for (int i = 0; i < count; i++) {
+					queue.addNewPlayer(players[i]);
+				}
+				return count;
+			}
+		});
+		for (int arity = 4; arity <= 8; arity *= 2) {
+			int d = arity;
+			benchmark("DaryQueueWAR(" + d + ").addNewPlayer" + size, new Trial() {
+				DaryQueueWAR queue;
+
+				public void setUp() {
+					queue = new DaryQueueWAR(d, count);
+				}
+
+				public long run() {
+					for (int i = 0; i < count; i++) {
+						queue.addNewPlayer(players[i]);
+					}
+					return count;
+				}
+			});
+		}
+		benchmark("PriorityQueue.add" + size, new Trial() {
+			PriorityQueue<Player> queue;
+
+			public void setUp() {
+				queue = new PriorityQueue<>(count, Collections.reverseOrder());
+			}
+
+			public long run() {
+				for (int i = 0; i < count; i++) {
+					queue.add(players[i]);
+				}
+				return count;
+			}
+		});
+
+		// removeBestPlayer
+		benchmark("QueueWAR.removeBestPlayer" + size, new Trial() {
+			QueueWAR queue;
+
+			public void setUp() {
+				queue = QueueWAR.fromArray(players);
+			}
+
+			public long run() {
+				long total = 0;
+				for (int i = 0; i < count; i++) {
+					total += queue.removeBestPlayer().getWAR();
+				}
+				sink += total;
+				return count;
+			}
+		});
+		if (selected("QueueWAR.toSortedArray" + size)) {
+			QueueWAR exportQueue = QueueWAR.fromArray(players);
+			benchmark("QueueWAR.toSortedArray" + size, () -> {
+				sink += exportQueue.toSortedArray()[0].getWAR();
+				return count;
+			});
+		}
+		if (selected("PrimitiveQueueWAR.toSortedArray" + size)) {
+			PrimitiveQueueWAR exportPrimitive = new PrimitiveQueueWAR(count);
+			for (int i = 0; i < count; i++) {
+				exportPrimitive.addNewPlayer(players[i]);
+			}
+			benchmark("PrimitiveQueueWAR.toSortedArray" + size, () -> {
+				sink += exportPrimitive.toSortedArray()[0].getWAR();
+				return count;
+			});
+		}
+		benchmark("QueueWAR.removeBestPlayer+metrics" + size, new Trial() {
+			QueueWAR queue;
+
+			public void setUp() {
+				queue = QueueWAR.fromArray(players);
+				queue.enableMetrics();
+			}
+
+			public long run() {
+				long total = 0;
+				for (int i = 0; i < count; i++) {
+					total += queue.removeBestPlayer().getWAR();
+				}
+				sink += total;
+				return count;
+			}
+		});
+		benchmark("PrimitiveQueueWAR.removeBestPlayer" + size, new Trial() {
+			PrimitiveQueueWAR queue;
+
+			public void setUp() {
+				queue = new PrimitiveQueueWAR(count);
+				for (int i = 0; i < count; i++) {
+					queue.addNewPlayer(players[i]);
+				}
+			}
+
+			public long run() {
+				long total = 0;
+				for (int i = 0; i < count; i++) {
+					total += queue.removeBestPlayer().getWAR();
+				}
+				sink += total;
+				return count;
+			}
+		});
+		for (int arity = 4; arity <= 8; arity *= 2) {
+			int d = arity;
+			benchmark("DaryQueueWAR(" + d + ").removeBestPlayer" + size, new Trial() {
+				DaryQueueWAR queue;
+
+				public void setUp() {
+					queue = DaryQueueWAR.fromArray(players, d);
+				}
+
+				public long run() {
+					long total = 0;
+					for (int i = 0; i < count; i++) {
+						total += queue.removeBestPlayer().getWAR();
+					}
+					sink += total;
+					return count;
+				}
+			});
+		}
+		benchmark("PriorityQueue.poll" + size, new Trial() {
+			PriorityQueue<Player> queue;
+
+			public void setUp() {
+				queue = new PriorityQueue<>(count, Collections.reverseOrder());
+				queue.addAll(playerList);
+			}
+
+			public long run() {
+				long total = 0;
+				for (int i = 0; i < count; i++) {
+					total += queue.poll().getWAR();
+				}
+				sink += total;
+				return count;
+			}
+		});
+
+		// checkHighestPlayer
+		if (selected("QueueWAR.checkHighestPlayer" + size)) {
+			QueueWAR peekQueue = QueueWAR.fromArray(players);
+			benchmark("QueueWAR.checkHighestPlayer" + size, () -> {
+				long total = 0;
+				for (int i = 0; i < PEEKS_PER_RUN; i++) {
+					total += peekQueue.checkHighestPlayer().getWAR();
+				}
+				sink += total;
+				return PEEKS_PER_RUN;
+			});
+		}
+		if (selected("PriorityQueue.peek" + size)) {
+			PriorityQueue<Player> peekBaseline = new PriorityQueue<>(playerList);
+			benchmark("PriorityQueue.peek" + size, () -> {
+				long total = 0;
+				for (int i = 0; i < PEEKS_PER_RUN; i++) {
+					total += peekBaseline.peek().getWAR();
+				}
+				sink += total;
+				return PEEKS_PER_RUN;
+			});
+		}
+
+		// bulk loading
+		benchmark("QueueWAR.fromArray" + size, () -> {
+			sink += QueueWAR.fromArray(players).checkQueueSize();
+			return count;
+		});
+		benchmark("PriorityQueue(Collection)" + size, () -> {
+			sink += new PriorityQueue<>(playerList).size();
+			return count;
+		});
+
+		// opening a mapped roster; one operation is one open
+		if (selected("MappedQueueWAR.open" + size)) {
+			Path rosterFile = Files.createTempFile("roster", ".bin");
+			try {
+				MappedQueueWAR.writeRoster(QueueWAR.fromArray(players), rosterFile);
+				benchmark("MappedQueueWAR.open" + size, () -> {
+					sink += new MappedQueueWAR(rosterFile).checkHighestPlayer().getWAR();
+					return 1;
+				});
+			} finally {
+				Files.delete(rosterFile);
+			}
+		}
+
+		// play-by-play ingestion, capped so the event log stays small on disk
+		if (selected("PlayByPlayProcessor.process" + size)) {
+			int events = Math.min(count, 1_000_000);
+			Random random = new Random(2);
+			StringBuilder log = new StringBuilder(events * 8);
+			for (int i = 0; i < events; i++) {
+				log.append("GAP".charAt(random.nextInt(3))).append(",p")
+				.append(random.nextInt(NAME_POOL_SIZE)).append('\n');
+			}
+			Path eventFile = Files.createTempFile("events", ".csv");
+			try {
+				Files.write(eventFile, log.toString().getBytes(StandardCharsets.UTF_8));
+				log = null;
+				benchmark("PlayByPlayProcessor.process" + size, () ->
+						new PlayByPlayProcessor(new IndexedQueueWAR()).process(eventFile));
+			} finally {
+				Files.delete(eventFile);
+			}
+		}
+
+		// several producers and one consumer
+		int producers = Math.max(2, Runtime.getRuntime().availableProcessors());
+		benchmark("globalLock.addRemove" + size, () ->
+				concurrentAddRemove(players, producers, false));
+		benchmark("ConcurrentQueueWAR.addRemove" + size, () ->
+				concurrentAddRemove(players, producers, true));
+	}
+
+	/**
+	 * Runs several producer threads adding players while one consumer thread removes half of
+	 * them, either through ConcurrentQueueWAR or through a QueueWAR behind one global lock
+	 *
+	 * @param players to add, split evenly between the producers
+	 * @param producers number of producer threads
+	 * @param striped true for ConcurrentQueueWAR, false for the global lock
+	 * @return operations (adds and removes) performed
+	 * @throws InterruptedException if interrupted while waiting for the threads
+	 */
+	protected static long concurrentAddRemove(Player[] players, int producers,
+			boolean striped) throws InterruptedException {
+		ConcurrentQueueWAR concurrent = new ConcurrentQueueWAR();
+		QueueWAR locked = new QueueWAR(players.length);
+		int toRemove = players.length / 2;
+		int perProducer = players.length / producers;
+		Thread[] threads = new Thread[producers + 1];
+
+		for (int t = 0; t < producers; t++) {
+			int from = t * perProducer;
+			threads[t] = new Thread(() -> {
+				for (int i = from; i < from + perProducer; i++) {
+					if (striped) {
+						concurrent.addNewPlayer(players[i]);
+					} else {
+						synchronized (locked) {
+							locked.addNewPlayer(players[i]);
+						}
+					}
+				}
+			});
+		}
+		threads[producers] = new Thread(() -> {
+			long total = 0;
+			int removed = 0;
+			while (removed < toRemove) {
+				if (striped) {
+					if (concurrent.checkQueueSize() > 0) {
+						total += concurrent.removeBestPlayer().getWAR();
+						removed++;
+					}
+				} else {
+					synchronized (locked) {
+						if (locked.checkQueueSize() > 0) {
+							total += locked.removeBestPlayer().getWAR();
+							removed++;
+						}
+					}
+				}
+			}
+			sink += total;
+		});
+
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		return (long) perProducer * producers + toRemove;
+	}
+
+	/**
+	 * Measures how many bytes per player QueueWAR and PrimitiveQueueWAR retain. Both queues
+	 * are built from the same name Strings, so only the per-entry cost is compared.
+	 *
+	 * @param count number of players
+	 * @return {QueueWAR bytes per player, PrimitiveQueueWAR bytes per player}
+	 */
+	protected static double[] footprint(int count) {
+		Random random = new Random(42);
+		String[] names = new String[count];
+		int[] stats = new int[count * 3];
+		for (int i = 0; i < count; i++) {
+			names[i] = "p" + i;
+			stats[i * 3] = random.nextInt(100);
+			stats[i * 3 + 1] = random.nextInt(100);
+			stats[i * 3 + 2] = random.nextInt(50);
+		}
+
+		long before = usedMemory();
+		QueueWAR objects = new QueueWAR(count);
+		for (int i = 0; i < count; i++) {
+			objects.addNewPlayer(new Player(names[i], stats[i * 3], stats[i * 3 + 1],
+					stats[i * 3 + 2]));
+		}
+		long objectBytes = usedMemory() - before;
+		sink += objects.checkQueueSize();
+		objects = null;
+
+		before = usedMemory();
+		PrimitiveQueueWAR primitives = new PrimitiveQueueWAR(count);
+		for (int i = 0; i < count; i++) {
+			primitives.addNewPlayer(names[i], stats[i * 3], stats[i * 3 + 1], stats[i * 3 + 2]);
+		}
+		long primitiveBytes = usedMemory() - before;
+		sink += primitives.checkQueueSize();
+
+		return new double[] {(double) objectBytes / count, (double) primitiveBytes / count};
+	}
+
+	/**
+	 * Returns the heap in use after asking for a garbage collection
+	 *
+	 * @return used bytes
+	 */
+	protected static long usedMemory() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	/**
+	 * Converts an operation count and elapsed time into operations per second
+	 *
+	 * @param ops number of operations
+	 * @param nanos elapsed time in nanoseconds
+	 * @return operations per second
+	 */
+	protected static double opsPerSecond(long ops, long nanos) {
+		return ops / (nanos / 1_000_000_000.0);
+	}
+
+	/**
+	 * Writes the results as one "name<TAB>ops per second" line per benchmark
+	 *
+	 * @param file to write
+	 * @throws IOException if the file can't be written
+	 */
+	protected void save(String file) throws IOException {
+		List<String> lines = new ArrayList<>();
+		for (Map.Entry<String, Double> result : results.entrySet()) {
+			lines.add(result.getKey() + "\t" + result.getValue());
+		}
+		Files.write(Paths.get(file), lines, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Compares the results with a file written by save
+	 *
+	 * @param file to compare with
+	 * @param thresholdPercent largest slowdown that isn't a regression
+	 * @return true if no benchmark regressed
+	 * @throws IOException if the file can't be read
+	 */
+	protected boolean compare(String file, double thresholdPercent) throws IOException {
+		boolean passed = true;
+		System.out.println("\nCompared with " + file + ":");
+		for (String line : Files.readAllLines(Paths.get(file), StandardCharsets.UTF_8)) {
+			String[] fields = line.split("\t");
+			Double current = fields.length == 2 ? results.get(fields[0]) : null;
+			if (current == null) {
+				continue;
+			}
+			double change = (current / Double.parseDouble(fields[1]) - 1) * 100;
+			boolean regressed = change < -thresholdPercent;
+			System.out.printf("%-44s %+6.1f%%%s%n", fields[0], change,
+					regressed ? "  REGRESSION" : "");
+			passed &= !regressed;
+		}
+		return passed;
+	}
+
+	/**
+	 * Main method that runs the benchmarks
+	 *
+	 * @param args see the class comment
+	 * @throws Exception if a benchmark fails
+	 */
+	public static void main(String[] args) throws Exception {
+		int[] sizes = {1_000, 100_000, 10_000_000};
+		String filter = null;
+		String saveFile = null;
+		String compareFile = null;
+		double threshold = 10;
+		for (int i = 0; i + 1 < args.length; i += 2) {
+			switch (args[i]) {
+			case "-sizes":
+				sizes = Arrays.stream(args[i + 1].split(",")).mapToInt(Integer::parseInt)
+				.toArray();
+				break;
+			case "-filter":
+				filter = args[i + 1];
+				break;
+			case "-save":
+				saveFile = args[i + 1];
+				break;
+			case "-compare":
+				compareFile = args[i + 1];
+				break;
+			case "-threshold":
+				threshold = Double.parseDouble(args[i + 1]);
+				break;
+			default:
+				System.out.println("Unknown option " + args[i]);
+				return;
+			}
+		}
+
+		QueueWARBenchmark suite = new QueueWARBenchmark(filter);
+		for (int size : sizes) {
+			suite.runAll(size);
+			// measured once runAll's players are garbage so they don't skew the numbers; below
+			// 1M players the GC's accounting granularity swamps the difference
+			if (size >= 1_000_000 && (filter == null || "footprint".contains(filter))) {
+				double[] bytes = footprint(size);
+				System.out.printf("%-44s QueueWAR %.1f, PrimitiveQueueWAR %.1f%n",
+						"footprint bytes per player/" + size, bytes[0], bytes[1]);
+			}
+		}
+		System.out.println("(checksum " + sink + ")");
+
+		if (saveFile != null) {
+			suite.save(saveFile);
+		}
+		if (compareFile != null && !suite.compare(compareFile, threshold)) {
+			System.exit(1);
+		}
+	}
+}
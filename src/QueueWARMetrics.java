@@ -0,0 +1,331 @@
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * @author Connor Flint
+ *
+ * QueueWARMetrics counts what a QueueWAR does: how many players are added, removed and peeked
+ * at, how many sifts run and how many comparisons and moves they make, and how long each add,
+ * remove and peek takes, in LatencyHistograms. Counters are LongAdders, so a JMX client or
+ * another thread can read them while the queue is in use.
+ *
+ * Metrics are off by default. A QueueWAR only records into a QueueWARMetrics after
+ * QueueWAR.enableMetrics; until then every instrumented operation costs one null check of the
+ * metrics field. Sift loops don't count as they go: a sift's comparisons and moves are worked
+ * out from where it started and ended, and only when metrics are enabled.
+ */
+public class QueueWARMetrics implements QueueWARMetricsMBean {
+	public static final String JMX_DOMAIN = "HockeyWAR";
+
+	private final LongAdder adds = new LongAdder();
+	private final LongAdder removes = new LongAdder();
+	private final LongAdder peeks = new LongAdder();
+	private final LongAdder sifts = new LongAdder();
+	private final LongAdder comparisons = new LongAdder();
+	private final LongAdder moves = new LongAdder();
+	private final LatencyHistogram addLatency = new LatencyHistogram();
+	private final LatencyHistogram removeLatency = new LatencyHistogram();
+	private final LatencyHistogram peekLatency = new LatencyHistogram();
+
+	private ObjectName objectName; // null unless registered
+
+	/**
+	 * Records one addNewPlayer
+	 *
+	 * @param nanos how long it took
+	 */
+	void recordAdd(long nanos) {
+		adds.increment();
+		addLatency.record(nanos);
+	}
+
+	/**
+	 * Records players added through addAll, which aren't timed one by one
+	 *
+	 * @param count number of players added
+	 */
+	void recordAdds(int count) {
+		adds.add(count);
+	}
+
+	/**
+	 * Records one removeBestPlayer
+	 *
+	 * @param nanos how long it took
+	 */
+	void recordRemove(long nanos) {
+		removes.increment();
+		removeLatency.record(nanos);
+	}
+
+	/**
+	 * Records one checkHighestPlayer
+	 *
+	 * @param nanos how long it took
+	 */
+	void recordPeek(long nanos) {
+		peeks.increment();
+		peekLatency.record(nanos);
+	}
+
+	/**
+	 * Records one sift
+	 *
+	 * @param comparisons number of key comparisons it made
+	 * @param moves number of players it moved one level
+	 */
+	void recordSift(int comparisons, int moves) {
+		sifts.increment();
+		this.comparisons.add(comparisons);
+		this.moves.add(moves);
+	}
+
+	/**
+	 * Registers these metrics with the platform MBean server as
+	 * "HockeyWAR:type=QueueWAR,name=<name>"
+	 *
+	 * @param name to register under
+	 * @throws NullPointerException if name is null
+	 * @throws IllegalArgumentException if metrics with that name are already registered
+	 * @throws IllegalStateException if these metrics are already registered
+	 */
+	synchronized void register(String name) throws NullPointerException,
+	IllegalArgumentException, IllegalStateException {
+		if (name == null) {
+			throw new NullPointerException("Name can't be null!");
+		}
+		if (objectName != null) {
+			throw new IllegalStateException("Metrics are already registered!");
+		}
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			ObjectName newName = new ObjectName(JMX_DOMAIN + ":type=QueueWAR,name="
+					+ ObjectName.quote(name));
+			server.registerMBean(this, newName);
+			objectName = newName;
+		} catch (JMException e) {
+			throw new IllegalArgumentException("Could not register metrics as " + name + ": "
+					+ e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Removes these metrics from the platform MBean server if they are registered
+	 */
+	synchronized void unregister() {
+		if (objectName == null) {
+			return;
+		}
+		try {
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+		} catch (JMException e) {
+			// already gone
+		}
+		objectName = null;
+	}
+
+	/**
+	 * Returns the name these metrics are registered under
+	 *
+	 * @return JMX name, or null if they aren't registered
+	 */
+	public synchronized ObjectName getObjectName() {
+		return objectName;
+	}
+
+	/**
+	 * Returns the addNewPlayer latency histogram
+	 *
+	 * @return histogram
+	 */
+	public LatencyHistogram getAddLatency() {
+		return addLatency;
+	}
+
+	/**
+	 * Returns the removeBestPlayer latency histogram
+	 *
+	 * @return histogram
+	 */
+	public LatencyHistogram getRemoveLatency() {
+		return removeLatency;
+	}
+
+	/**
+	 * Returns the checkHighestPlayer latency histogram
+	 *
+	 * @return histogram
+	 */
+	public LatencyHistogram getPeekLatency() {
+		return peekLatency;
+	}
+
+	/**
+	 * Returns the number of players added, one at a time or through addAll
+	 *
+	 * @return adds
+	 */
+	@Override
+	public long getAdds() {
+		return adds.sum();
+	}
+
+	/**
+	 * Returns the number of calls to removeBestPlayer
+	 *
+	 * @return removes
+	 */
+	@Override
+	public long getRemoves() {
+		return removes.sum();
+	}
+
+	/**
+	 * Returns the number of calls to checkHighestPlayer
+	 *
+	 * @return peeks
+	 */
+	@Override
+	public long getPeeks() {
+		return peeks.sum();
+	}
+
+	/**
+	 * Returns the number of sifts up or down the heap
+	 *
+	 * @return sifts
+	 */
+	@Override
+	public long getSifts() {
+		return sifts.sum();
+	}
+
+	/**
+	 * Returns the number of key comparisons made while sifting
+	 *
+	 * @return comparisons
+	 */
+	@Override
+	public long getComparisons() {
+		return comparisons.sum();
+	}
+
+	/**
+	 * Returns the number of players moved one level while sifting, the equivalent of swaps
+	 *
+	 * @return moves
+	 */
+	@Override
+	public long getMoves() {
+		return moves.sum();
+	}
+
+	/**
+	 * Returns the median addNewPlayer latency
+	 *
+	 * @return nanoseconds
+	 */
+	@Override
+	public long getAddLatencyP50() {
+		return addLatency.getPercentile(50);
+	}
+
+	/**
+	 * Returns the 99th percentile addNewPlayer latency
+	 *
+	 * @return nanoseconds
+	 */
+	@Override
+	public long getAddLatencyP99() {
+		return addLatency.getPercentile(99);
+	}
+
+	/**
+	 * Returns the longest addNewPlayer latency
+	 *
+	 * @return nanoseconds
+	 */
+	@Override
+	public long getAddLatencyMax() {
+		return addLatency.getMax();
+	}
+
+	/**
+	 * Returns the median removeBestPlayer latency
+	 *
+	 * @return nanoseconds
+	 */
+	@Override
+	public long getRemoveLatencyP50() {
+		return removeLatency.getPercentile(50);
+	}
+
+	/**
+	 * Returns the 99th percentile removeBestPlayer latency
+	 *
+	 * @return nanoseconds
+	 */
+	@Override
+	public long getRemoveLatencyP99() {
+		return removeLatency.getPercentile(99);
+	}
+
+	/**
+	 * Returns the longest removeBestPlayer latency
+	 *
+	 * @return nanoseconds
+	 */
+	@Override
+	public long getRemoveLatencyMax() {
+		return removeLatency.getMax();
+	}
+
+	/**
+	 * Returns the median checkHighestPlayer latency
+	 *
+	 * @return nanoseconds
+	 */
+	@Override
+	public long getPeekLatencyP50() {
+		return peekLatency.getPercentile(50);
+	}
+
+	/**
+	 * Returns the 99th percentile checkHighestPlayer latency
+	 *
+	 * @return nanoseconds
+	 */
+	@Override
+	public long getPeekLatencyP99() {
+		return peekLatency.getPercentile(99);
+	}
+
+	/**
+	 * Returns the longest checkHighestPlayer latency
+	 *
+	 * @return nanoseconds
+	 */
+	@Override
+	public long getPeekLatencyMax() {
+		return peekLatency.getMax();
+	}
+
+	/**
+	 * Clears every counter and histogram
+	 */
+	@Override
+	public void reset() {
+		adds.reset();
+		removes.reset();
+		peeks.reset();
+		sifts.reset();
+		comparisons.reset();
+		moves.reset();
+		addLatency.reset();
+		removeLatency.reset();
+		peekLatency.reset();
+	}
+}
@@ -0,0 +1,117 @@
+/**
+ * @author Connor Flint
+ *
+ * Management interface of QueueWARMetrics, so its counters and latency percentiles show up as
+ * attributes in JConsole, VisualVM or any other JMX client. Latencies are in nanoseconds.
+ */
+public interface QueueWARMetricsMBean {
+	/**
+	 * Returns the number of players added, one at a time or through addAll
+	 *
+	 * @return adds
+	 */
+	long getAdds();
+
+	/**
+	 * Returns the number of calls to removeBestPlayer
+	 *
+	 * @return removes
+	 */
+	long getRemoves();
+
+	/**
+	 * Returns the number of calls to checkHighestPlayer
+	 *
+	 * @return peeks
+	 */
+	long getPeeks();
+
+	/**
+	 * Returns the number of sifts up or down the heap
+	 *
+	 * @return sifts
+	 */
+	long getSifts();
+
+	/**
+	 * Returns the number of key comparisons made while sifting
+	 *
+	 * @return comparisons
+	 */
+	long getComparisons();
+
+	/**
+	 * Returns the number of players moved one level while sifting, the equivalent of swaps
+	 *
+	 * @return moves
+	 */
+	long getMoves();
+
+	/**
+	 * Returns the median addNewPlayer latency
+	 *
+	 * @return nanoseconds
+	 */
+	long getAddLatencyP50();
+
+	/**
+	 * Returns the 99th percentile addNewPlayer latency
+	 *
+	 * @return nanoseconds
+	 */
+	long getAddLatencyP99();
+
+	/**
+	 * Returns the longest addNewPlayer latency
+	 *
+	 * @return nanoseconds
+	 */
+	long getAddLatencyMax();
+
+	/**
+	 * Returns the median removeBestPlayer latency
+	 *
+	 * @return nanoseconds
+	 */
+	long getRemoveLatencyP50();
+
+	/**
+	 * Returns the 99th percentile removeBestPlayer latency
+	 *
+	 * @return nanoseconds
+	 */
+	long getRemoveLatencyP99();
+
+	/**
+	 * Returns the longest removeBestPlayer latency
+	 *
+	 * @return nanoseconds
+	 */
+	long getRemoveLatencyMax();
+
+	/**
+	 * Returns the median checkHighestPlayer latency
+	 *
+	 * @return nanoseconds
+	 */
+	long getPeekLatencyP50();
+
+	/**
+	 * Returns the 99th percentile checkHighestPlayer latency
+	 *
+	 * @return nanoseconds
+	 */
+	long getPeekLatencyP99();
+
+	/**
+	 * Returns the longest checkHighestPlayer latency
+	 *
+	 * @return nanoseconds
+	 */
+	long getPeekLatencyMax();
+
+	/**
+	 * Clears every counter and histogram
+	 */
+	void reset();
+}
@@ -0,0 +1,429 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * @author Connor Flint
+ *
+ * QueueWARServer shares one live RankedQueueWAR with many clients over a local socket. Clients
+ * send one command per line and get one reply line back, except TOP, whose first reply line is
+ * the number of players that follow:
+ *
+ *     ADD name,goals,assists,penalties   OK; replaces the stats of a queued player of that name
+ *     PEEK                               highest player, e.g. "Crosby (WAR: 60)"
+ *     REMOVE                             removes and returns the highest player
+ *     SIZE                               number of queued players
+ *     TOP k                              the k highest players, best first
+ *     RANK name                          rank of a player, 1 for the highest WAR
+ *     AT k                               player at rank k
+ *     COUNT min max                      number of players with WAR from min to max
+ *     PERCENTILE p                       WAR at percentile p
+ *     QUIT                               closes the connection
+ *
+ * Failed commands reply "ERR " and a reason. The server only listens on the loopback address.
+ *
+ * Each connection is handled on its own thread, a virtual thread when the JVM has them (Java 21
+ * and later) and otherwise a thread from a cached pool. Writes are batched the same way as in
+ * ConcurrentQueueWAR: ADD only puts the stat line in a pending buffer and replies at once, and
+ * the buffer is merged into the queue with a single addAll by the next command that reads the
+ * queue, or by the writer that fills the buffer if the queue is free. A later ADD for a name
+ * still in the buffer replaces the earlier one, so only the latest stats are merged. Reads hold
+ * the queue lock only for the query itself, never while talking to a client.
+ *
+ * The wrapped queue must only be used through this server while it is running.
+ */
+public class QueueWARServer implements Closeable {
+	public static final int DEFAULT_PORT = 7070;
+	public static final int DEFAULT_BATCH_SIZE = 1024;
+	private static final int MAX_TOP = 10000;
+
+	private final RankedQueueWAR queue;
+	private final ReentrantLock queueLock = new ReentrantLock();
+	private final int batchSize;
+
+	// stat lines not yet merged into the queue, by name; guarded by pendingLock
+	private final ReentrantLock pendingLock = new ReentrantLock();
+	private LinkedHashMap<String, int[]> pending = new LinkedHashMap<>();
+
+	private final ExecutorService handlers;
+	private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+	private ServerSocket serverSocket;
+	private Thread acceptor;
+
+	/**
+	 * Creates a server for the given queue with the default batch size
+	 *
+	 * @param queue to share
+	 * @throws NullPointerException if queue is null
+	 */
+	public QueueWARServer(RankedQueueWAR queue) throws NullPointerException {
+		this(queue, DEFAULT_BATCH_SIZE);
+	}
+
+	/**
+	 * Creates a server for the given queue
+	 *
+	 * @param queue to share
+	 * @param batchSize number of pending writes at which a writer tries to merge them
+	 * @throws NullPointerException if queue is null
+	 * @throws IllegalArgumentException if batchSize is less than 1
+	 */
+	public QueueWARServer(RankedQueueWAR queue, int batchSize) throws NullPointerException,
+	IllegalArgumentException {
+		if (queue == null) {
+			throw new NullPointerException("Queue can't be null!");
+		}
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("Batch size must be at least 1!");
+		}
+		this.queue = queue;
+		this.batchSize = batchSize;
+		this.handlers = newHandlerExecutor();
+	}
+
+	/**
+	 * Creates the executor connections run on: one virtual thread per connection when the JVM
+	 * supports them, otherwise a cached pool of daemon platform threads. Looked up by reflection
+	 * so the server still compiles and runs on Java 17.
+	 *
+	 * @return executor
+	 */
+	private static ExecutorService newHandlerExecutor() {
+		try {
+			return (ExecutorService) Executors.class
+					.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return Executors.newCachedThreadPool(task -> {
+				Thread thread = new Thread(task, "QueueWARServer-connection");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+	}
+
+	/**
+	 * Starts listening on the loopback address and accepting connections in the background
+	 *
+	 * @param port to listen on, or 0 for any free port
+	 * @return port the server is listening on
+	 * @throws IllegalStateException if the server was already started
+	 * @throws IOException if the port can't be opened
+	 */
+	public int start(int port) throws IllegalStateException, IOException {
+		if (serverSocket != null) {
+			throw new IllegalStateException("QueueWARServer is already started!");
+		}
+		serverSocket = new ServerSocket(port, 128, InetAddress.getLoopbackAddress());
+		acceptor = new Thread(this::acceptConnections, "QueueWARServer-acceptor");
+		acceptor.setDaemon(true);
+		acceptor.start();
+		return serverSocket.getLocalPort();
+	}
+
+	/**
+	 * Stops accepting connections, closes every open connection, and merges pending writes
+	 *
+	 * @throws IOException if the server socket can't be closed
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			if (serverSocket != null) {
+				serverSocket.close();
+			}
+		} finally {
+			for (Socket socket : connections) {
+				try {
+					socket.close();
+				} catch (IOException e) {
+					// the connection is going away either way
+				}
+			}
+			handlers.shutdown();
+			try {
+				handlers.awaitTermination(5, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			flush();
+		}
+	}
+
+	/**
+	 * Merges every pending write into the queue
+	 */
+	public void flush() {
+		queueLock.lock();
+		try {
+			mergePending();
+		} finally {
+			queueLock.unlock();
+		}
+	}
+
+	/**
+	 * Accepts connections until the server socket is closed
+	 */
+	private void acceptConnections() {
+		while (!serverSocket.isClosed()) {
+			Socket socket;
+			try {
+				socket = serverSocket.accept();
+			} catch (IOException e) {
+				return; // closed
+			}
+			connections.add(socket);
+			try {
+				handlers.execute(() -> serve(socket));
+			} catch (RuntimeException e) {
+				// rejected because the server is closing
+				connections.remove(socket);
+				try {
+					socket.close();
+				} catch (IOException ignored) {
+					// nothing more to do
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads commands from one connection and writes their replies until the client quits or
+	 * disconnects
+	 *
+	 * @param socket connection to serve
+	 */
+	private void serve(Socket socket) {
+		try (socket;
+				BufferedReader in = new BufferedReader(new InputStreamReader(
+						socket.getInputStream(), StandardCharsets.UTF_8));
+				Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(),
+						StandardCharsets.UTF_8))) {
+			String line;
+			while ((line = in.readLine()) != null) {
+				if (line.trim().equalsIgnoreCase("QUIT")) {
+					break;
+				}
+				out.write(execute(line));
+				out.write('\n');
+				// replies to pipelined commands go out together
+				if (!in.ready()) {
+					out.flush();
+				}
+			}
+		} catch (IOException e) {
+			// client disconnected or the server is closing
+		} finally {
+			connections.remove(socket);
+		}
+	}
+
+	/**
+	 * Runs one command and returns its reply. Multi-line replies are separated by newlines with
+	 * no newline at the end.
+	 *
+	 * @param line command line from a client
+	 * @return reply, "ERR " and a reason if the command failed
+	 */
+	protected String execute(String line) {
+		String command = line.trim();
+		int space = command.indexOf(' ');
+		String verb = (space < 0 ? command : command.substring(0, space)).toUpperCase();
+		String argument = space < 0 ? "" : command.substring(space + 1).trim();
+		try {
+			switch (verb) {
+			case "ADD":
+				return add(argument);
+			case "PEEK":
+				return read(() -> queue.checkHighestPlayer().toString());
+			case "REMOVE":
+				return read(() -> queue.removeBestPlayer().toString());
+			case "SIZE":
+				return read(() -> Integer.toString(queue.checkQueueSize()));
+			case "TOP":
+				int k = Integer.parseInt(argument);
+				if (k < 0 || k > MAX_TOP) {
+					return "ERR TOP takes 0 to " + MAX_TOP;
+				}
+				return read(() -> {
+					Player[] page = queue.rankingPage(0, k);
+					StringBuilder reply = new StringBuilder().append(page.length);
+					for (Player player : page) {
+						reply.append('\n').append(player);
+					}
+					return reply.toString();
+				});
+			case "RANK":
+				return read(() -> Integer.toString(queue.rankOf(argument)));
+			case "AT":
+				int rank = Integer.parseInt(argument);
+				return read(() -> queue.playerAtRank(rank).toString());
+			case "COUNT":
+				String[] bounds = argument.split("\\s+");
+				if (bounds.length != 2) {
+					return "ERR COUNT takes min and max";
+				}
+				int min = Integer.parseInt(bounds[0]);
+				int max = Integer.parseInt(bounds[1]);
+				return read(() -> Integer.toString(queue.countInRange(min, max)));
+			case "PERCENTILE":
+				double p = Double.parseDouble(argument);
+				return read(() -> Integer.toString(queue.percentile(p)));
+			default:
+				return "ERR unknown command " + verb;
+			}
+		} catch (NumberFormatException e) {
+			return "ERR not a number: " + argument;
+		} catch (RuntimeException e) {
+			return "ERR " + e.getMessage();
+		}
+	}
+
+	/**
+	 * A query run against the queue while the queue lock is held
+	 */
+	private interface Query {
+		String run();
+	}
+
+	/**
+	 * Merges pending writes, then runs a query on the queue
+	 *
+	 * @param query to run
+	 * @return the query's reply
+	 */
+	private String read(Query query) {
+		queueLock.lock();
+		try {
+			mergePending();
+			return query.run();
+		} finally {
+			queueLock.unlock();
+		}
+	}
+
+	/**
+	 * Buffers an ADD and merges the buffer if it's full and the queue is free
+	 *
+	 * @param argument "name,goals,assists,penalties"
+	 * @return reply
+	 * @throws IllegalArgumentException if the stat line is malformed or has negative stats
+	 */
+	private String add(String argument) throws IllegalArgumentException {
+		// split at the last three commas so names may contain commas
+		int c3 = argument.lastIndexOf(',');
+		int c2 = c3 < 0 ? -1 : argument.lastIndexOf(',', c3 - 1);
+		int c1 = c2 < 0 ? -1 : argument.lastIndexOf(',', c2 - 1);
+		if (c1 <= 0) {
+			return "ERR ADD takes name,goals,assists,penalties";
+		}
+		String name = argument.substring(0, c1).trim();
+		int goals = Integer.parseInt(argument.substring(c1 + 1, c2).trim());
+		int assists = Integer.parseInt(argument.substring(c2 + 1, c3).trim());
+		int penalties = Integer.parseInt(argument.substring(c3 + 1).trim());
+		if (name.isEmpty()) {
+			return "ERR name can't be empty";
+		}
+		if (goals < 0 || assists < 0 || penalties < 0) {
+			return "ERR goals, assists, and penalties can't be less than 0";
+		}
+
+		boolean full;
+		pendingLock.lock();
+		try {
+			pending.put(name, new int[] {goals, assists, penalties});
+			full = pending.size() >= batchSize;
+		} finally {
+			pendingLock.unlock();
+		}
+		if (full && queueLock.tryLock()) {
+			try {
+				mergePending();
+			} finally {
+				queueLock.unlock();
+			}
+		}
+		return "OK";
+	}
+
+	/**
+	 * Moves every pending write into the queue: new players as one addAll batch, queued players
+	 * through updateStats. Caller must hold the queue lock.
+	 */
+	private void mergePending() {
+		LinkedHashMap<String, int[]> batch;
+		pendingLock.lock();
+		try {
+			if (pending.isEmpty()) {
+				return;
+			}
+			batch = pending;
+			pending = new LinkedHashMap<>();
+		} finally {
+			pendingLock.unlock();
+		}
+
+		Player[] added = new Player[batch.size()];
+		int count = 0;
+		for (Map.Entry<String, int[]> entry : batch.entrySet()) {
+			int[] stats = entry.getValue();
+			if (queue.containsPlayer(entry.getKey())) {
+				queue.updateStats(entry.getKey(), stats[0], stats[1], stats[2]);
+			} else {
+				added[count++] = new Player(entry.getKey(), stats[0], stats[1], stats[2]);
+			}
+		}
+		queue.addAll(Arrays.copyOf(added, count));
+	}
+
+	/**
+	 * Runs a server until standard input is closed or reads "quit". "-port <port>" sets the
+	 * port, 7070 by default, and "-load <file>..." streams season stats files into the queue
+	 * first; a name that appears again replaces the earlier row, as with ADD. The server isn't
+	 * started if a file can't be loaded.
+	 *
+	 * @param args
+	 * @throws IOException if the port can't be opened
+	 */
+	public static void main(String[] args) throws IOException {
+		int port = DEFAULT_PORT;
+		int next = 0;
+		if (args.length > 1 && args[0].equals("-port")) {
+			port = Integer.parseInt(args[1]);
+			next = 2;
+		}
+		RankedQueueWAR queue = new RankedQueueWAR();
+		if (args.length > next + 1 && args[next].equals("-load")) {
+			if (!queue.loadSeasonFiles(Arrays.copyOfRange(args, next + 1, args.length))) {
+				return;
+			}
+		}
+		try (QueueWARServer server = new QueueWARServer(queue)) {
+			System.out.println("QueueWARServer listening on localhost:" + server.start(port));
+			BufferedReader console = new BufferedReader(new InputStreamReader(System.in,
+					StandardCharsets.UTF_8));
+			String line;
+			while ((line = console.readLine()) != null && !line.trim().equalsIgnoreCase("quit")) {
+				// keep serving
+			}
+		}
+		System.out.println("QueueWARServer has been closed");
+	}
+}
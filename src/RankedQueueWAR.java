@@ -0,0 +1,192 @@
+import java.util.List;
+
+/**
+ * @author Connor Flint
+ *
+ * RankedQueueWAR is an IndexedQueueWAR with a RankingIndex kept next to the heap, so scouts can
+ * ask for a player's rank, the player at a rank, or the WAR at a percentile in O(log n) without
+ * draining the queue. The index also answers WAR range queries such as "all players with WAR
+ * from 20 to 35" in O(log n + number of players returned). Every add, remove and stat update is
+ * applied to both the heap and the index.
+ */
+public class RankedQueueWAR extends IndexedQueueWAR {
+	protected RankingIndex index;
+
+	/**
+	 * Constructor to create a growable RankedQueueWAR with the default capacity
+	 */
+	public RankedQueueWAR() {
+		super();
+		this.index = new RankingIndex();
+	}
+
+	/**
+	 * Constructor to create RankedQueueWAR with a fixed capacity
+	 *
+	 * @param arrayCapacity
+	 */
+	public RankedQueueWAR(int arrayCapacity) {
+		super(arrayCapacity);
+		this.index = new RankingIndex();
+	}
+
+	/**
+	 * Constructor to create a growable RankedQueueWAR
+	 *
+	 * @param arrayCapacity initial capacity
+	 * @param growthFactor factor the capacity is multiplied by when the array is full
+	 * @throws IllegalArgumentException if capacity is negative or growthFactor is not above 1
+	 */
+	public RankedQueueWAR(int arrayCapacity, double growthFactor)
+			throws IllegalArgumentException {
+		super(arrayCapacity, growthFactor);
+		this.index = new RankingIndex();
+	}
+
+	/**
+	 * Adds a given player to RankedQueueWAR
+	 *
+	 * @param player to be added
+	 * @throws NullPointerException if player is null
+	 * @throws IllegalArgumentException if a player with the same name is already queued
+	 * @throws IndexOutOfBoundsException if the queue is at capacity and not growable
+	 */
+	@Override
+	public void addNewPlayer(Player player) throws NullPointerException,
+	IllegalArgumentException, IndexOutOfBoundsException {
+		super.addNewPlayer(player);
+		index.add(player);
+	}
+
+	/**
+	 * Adds every player in the given array to RankedQueueWAR
+	 *
+	 * @param players to be added
+	 * @throws NullPointerException if players or any player in it is null
+	 * @throws IllegalArgumentException if two players share a name, or a player with the same
+	 *                                  name is already queued
+	 * @throws IndexOutOfBoundsException if the players don't fit and the queue isn't growable
+	 */
+	@Override
+	public void addAll(Player[] players) throws NullPointerException,
+	IllegalArgumentException, IndexOutOfBoundsException {
+		super.addAll(players);
+		for (int i = 0; i < players.length; i++) {
+			index.add(players[i]);
+		}
+	}
+
+	/**
+	 * Removes Player with the highest WAR from RankedQueueWAR
+	 *
+	 * @return player that is removed
+	 * @throws IllegalStateException if the queue is empty
+	 */
+	@Override
+	public Player removeBestPlayer() throws IllegalStateException {
+		Player removed = super.removeBestPlayer();
+		index.remove(removed);
+		return removed;
+	}
+
+	/**
+	 * Removes a queued player by name in O(log n)
+	 *
+	 * @param name of the player
+	 * @return the removed player, or null if no queued player has that name
+	 * @throws NullPointerException if name is null
+	 */
+	@Override
+	public Player removePlayer(String name) throws NullPointerException {
+		Player removed = super.removePlayer(name);
+		if (removed != null) {
+			index.remove(removed);
+		}
+		return removed;
+	}
+
+	/**
+	 * Replaces a queued player's season totals and moves it in both the heap and the ranking
+	 *
+	 * @param name of the player
+	 * @param goals new number of goals
+	 * @param assists new number of assists
+	 * @param penalties new number of penalties
+	 * @return the updated player, which is now the one queued
+	 * @throws NullPointerException if name is null
+	 * @throws IllegalArgumentException if no player has that name, or a stat is less than 0
+	 */
+	@Override
+	public Player updateStats(String name, int goals, int assists, int penalties)
+			throws NullPointerException, IllegalArgumentException {
+		Player old = findPlayer(name);
+		Player updated = super.updateStats(name, goals, assists, penalties);
+		index.update(old, updated);
+		return updated;
+	}
+
+	/**
+	 * Returns a queued player's rank: 1 plus the number of players with a higher WAR
+	 *
+	 * @param name of the player
+	 * @return rank starting at 1
+	 * @throws NullPointerException if name is null
+	 * @throws IllegalArgumentException if no player has that name
+	 */
+	public int rankOf(String name) throws NullPointerException, IllegalArgumentException {
+		Player player = findPlayer(name);
+		if (player == null) {
+			throw new IllegalArgumentException("No player named " + name + " is queued!");
+		}
+		return index.rankOf(player);
+	}
+
+	/**
+	 * Returns the player at a position in the ranking, where 1 is the highest WAR
+	 *
+	 * @param k position from 1 to the queue size
+	 * @return player at that position
+	 * @throws IndexOutOfBoundsException if k is out of range
+	 */
+	public Player playerAtRank(int k) throws IndexOutOfBoundsException {
+		return index.playerAt(k);
+	}
+
+	/**
+	 * Returns the WAR at a percentile, for example percentile(90) is the lowest WAR that at
+	 * least 90% of players are at or below
+	 *
+	 * @param p percentile from 0 to 100
+	 * @return WAR at that percentile
+	 * @throws IllegalArgumentException if p is outside 0 to 100
+	 * @throws IllegalStateException if the queue is empty
+	 */
+	public int percentile(double p) throws IllegalArgumentException, IllegalStateException {
+		return index.percentile(p);
+	}
+
+	/**
+	 * Returns the number of queued players whose WAR is from minWAR to maxWAR, inclusive
+	 *
+	 * @param minWAR lowest WAR in the range
+	 * @param maxWAR highest WAR in the range
+	 * @return number of players in the range
+	 * @throws IllegalArgumentException if minWAR is greater than maxWAR
+	 */
+	public int countInRange(int minWAR, int maxWAR) throws IllegalArgumentException {
+		return index.countInRange(minWAR, maxWAR);
+	}
+
+	/**
+	 * Returns the queued players whose WAR is from minWAR to maxWAR, inclusive, from highest to
+	 * lowest WAR
+	 *
+	 * @param minWAR lowest WAR in the range
+	 * @param maxWAR highest WAR in the range
+	 * @return players in the range
+	 * @throws IllegalArgumentException if minWAR is greater than maxWAR
+	 */
+	public List<Player> playersInRange(int minWAR, int maxWAR) throws IllegalArgumentException {
+		return index.playersInRange(minWAR, maxWAR);
+	}
+}
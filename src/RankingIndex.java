@@ -0,0 +1,421 @@
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * @author Connor Flint
+ *
+ * RankingIndex keeps players sorted by WAR, highest first, so ranks can be answered without
+ * draining a queue. It is an order-statistic treap: a binary search tree kept balanced by random
+ * priorities, where every node also stores the size of its subtree. Walking down from the root
+ * and adding up subtree sizes gives a player's rank, or the player at a given rank, in O(log n)
+ * expected time. The same ordering answers WAR range queries: counting a range is two such
+ * walks, and listing it only descends into subtrees that can overlap the range, which costs
+ * O(log n + number of players returned).
+ *
+ * Players are kept in the same order as in a heap, by Player's ranking key, and players whose
+ * keys are equal in the order they were added. A Player's key never changes, so a stat update
+ * (see IndexedQueueWAR.updateStats) indexes a new Player in the old one's place: update hands
+ * the old player's node to the new one and moves it to where the new key sorts.
+ */
+public class RankingIndex {
+	/**
+	 * Tree node for one player
+	 */
+	private static final class Node {
+		Player player;
+		final long sequence; // breaks ties between equal keys
+		final int priority;
+		long key; // ranking key the node is sorted by
+		int war; // WAR part of key
+		int count = 1; // number of nodes in this subtree
+		Node left;
+		Node right;
+
+		Node(Player player, long sequence, int priority) {
+			this.player = player;
+			this.sequence = sequence;
+			this.priority = priority;
+			this.key = player.rankKey;
+			this.war = player.getWAR();
+		}
+	}
+
+	private final IdentityHashMap<Player, Node> nodes = new IdentityHashMap<>();
+	private Node root;
+	private long nextSequence;
+	private int seed = 0x2545F491;
+
+	// results of split, which would otherwise have to return two nodes
+	private Node splitBefore;
+	private Node splitAfter;
+
+	/**
+	 * Adds a player to the index
+	 *
+	 * @param player to add
+	 * @throws NullPointerException if player is null
+	 * @throws IllegalArgumentException if the player is already indexed
+	 */
+	public void add(Player player) throws NullPointerException, IllegalArgumentException {
+		if (player == null) {
+			throw new NullPointerException("Player can't be null!");
+		}
+		if (nodes.containsKey(player)) {
+			throw new IllegalArgumentException(player.getName() + " is already indexed!");
+		}
+		Node node = new Node(player, nextSequence++, nextPriority());
+		nodes.put(player, node);
+		root = insert(root, node);
+	}
+
+	/**
+	 * Removes a player from the index
+	 *
+	 * @param player to remove
+	 * @return true if the player was indexed
+	 */
+	public boolean remove(Player player) {
+		Node node = nodes.remove(player);
+		if (node == null) {
+			return false;
+		}
+		root = delete(root, node);
+		return true;
+	}
+
+	/**
+	 * Replaces an indexed player with an updated copy of it, such as the one
+	 * IndexedQueueWAR.updateStats returns, and moves it to where its key sorts. It keeps its
+	 * place among players with the same key as if it had never left.
+	 *
+	 * @param player indexed player being replaced
+	 * @param updated player that takes its place
+	 * @throws NullPointerException if updated is null
+	 * @throws IllegalArgumentException if player isn't indexed, or updated already is
+	 */
+	public void update(Player player, Player updated) throws NullPointerException,
+	IllegalArgumentException {
+		if (updated == null) {
+			throw new NullPointerException("Player can't be null!");
+		}
+		Node node = nodes.get(player);
+		if (node == null) {
+			throw new IllegalArgumentException("Player isn't indexed!");
+		}
+		if (updated != player) {
+			if (nodes.containsKey(updated)) {
+				throw new IllegalArgumentException(updated.getName() + " is already indexed!");
+			}
+			nodes.remove(player);
+			nodes.put(updated, node);
+			node.player = updated;
+		}
+		if (node.key == updated.rankKey) {
+			return;
+		}
+		root = delete(root, node);
+		node.key = updated.rankKey;
+		node.war = updated.getWAR();
+		node.left = null;
+		node.right = null;
+		node.count = 1;
+		root = insert(root, node);
+	}
+
+	/**
+	 * Returns the number of indexed players
+	 *
+	 * @return size of the index
+	 */
+	public int size() {
+		return count(root);
+	}
+
+	/**
+	 * Returns whether a player is indexed
+	 *
+	 * @param player to look for
+	 * @return true if indexed
+	 */
+	public boolean contains(Player player) {
+		return nodes.containsKey(player);
+	}
+
+	/**
+	 * Returns a player's rank: 1 plus the number of players with a strictly higher WAR, so
+	 * players with the same WAR share a rank
+	 *
+	 * @param player to rank
+	 * @return rank starting at 1
+	 * @throws IllegalArgumentException if the player isn't indexed
+	 */
+	public int rankOf(Player player) throws IllegalArgumentException {
+		Node node = nodes.get(player);
+		if (node == null) {
+			throw new IllegalArgumentException("Player isn't indexed!");
+		}
+		return countAbove(node.war) + 1;
+	}
+
+	/**
+	 * Returns the number of indexed players whose WAR is strictly higher than the given WAR
+	 *
+	 * @param war to compare with
+	 * @return number of players above it
+	 */
+	public int countAbove(int war) {
+		int above = 0;
+		Node node = root;
+		while (node != null) {
+			if (node.war > war) {
+				above += count(node.left) + 1;
+				node = node.right;
+			} else {
+				node = node.left;
+			}
+		}
+		return above;
+	}
+
+	/**
+	 * Returns the number of indexed players whose WAR is from minWAR to maxWAR, inclusive
+	 *
+	 * @param minWAR lowest WAR in the range
+	 * @param maxWAR highest WAR in the range
+	 * @return number of players in the range
+	 * @throws IllegalArgumentException if minWAR is greater than maxWAR
+	 */
+	public int countInRange(int minWAR, int maxWAR) throws IllegalArgumentException {
+		if (minWAR > maxWAR) {
+			throw new IllegalArgumentException("minWAR can't be greater than maxWAR!");
+		}
+		int atLeastMin = minWAR == Integer.MIN_VALUE ? size() : countAbove(minWAR - 1);
+		return atLeastMin - countAbove(maxWAR);
+	}
+
+	/**
+	 * Returns the indexed players whose WAR is from minWAR to maxWAR, inclusive, from highest
+	 * to lowest WAR
+	 *
+	 * @param minWAR lowest WAR in the range
+	 * @param maxWAR highest WAR in the range
+	 * @return players in the range
+	 * @throws IllegalArgumentException if minWAR is greater than maxWAR
+	 */
+	public List<Player> playersInRange(int minWAR, int maxWAR) throws IllegalArgumentException {
+		List<Player> players = new ArrayList<>(countInRange(minWAR, maxWAR));
+		collectRange(root, minWAR, maxWAR, players);
+		return players;
+	}
+
+	/**
+	 * Adds the players of a subtree whose WAR is in range, in ranking order, skipping subtrees
+	 * that lie entirely outside the range
+	 *
+	 * @param node root of the subtree, may be null
+	 * @param minWAR lowest WAR in the range
+	 * @param maxWAR highest WAR in the range
+	 * @param players list to add to
+	 */
+	private static void collectRange(Node node, int minWAR, int maxWAR, List<Player> players) {
+		while (node != null) {
+			if (node.war > maxWAR) {
+				node = node.right; // everything on the left is higher still
+			} else if (node.war < minWAR) {
+				node = node.left; // everything on the right is lower still
+			} else {
+				collectRange(node.left, minWAR, maxWAR, players);
+				players.add(node.player);
+				node = node.right;
+			}
+		}
+	}
+
+	/**
+	 * Returns the player at a position in the ranking, where position 1 has the highest WAR.
+	 * Unlike rankOf, every position holds exactly one player; players with the same WAR are
+	 * ordered by the rest of their ranking key.
+	 *
+	 * @param position from 1 to size()
+	 * @return player at that position
+	 * @throws IndexOutOfBoundsException if position is out of range
+	 */
+	public Player playerAt(int position) throws IndexOutOfBoundsException {
+		if (position < 1 || position > size()) {
+			throw new IndexOutOfBoundsException("No player at position " + position);
+		}
+		int remaining = position - 1;
+		Node node = root;
+		while (true) {
+			int leftCount = count(node.left);
+			if (remaining < leftCount) {
+				node = node.left;
+			} else if (remaining == leftCount) {
+				return node.player;
+			} else {
+				remaining -= leftCount + 1;
+				node = node.right;
+			}
+		}
+	}
+
+	/**
+	 * Returns the WAR at the given percentile using the nearest-rank method: the lowest WAR
+	 * that at least p percent of players are at or below
+	 *
+	 * @param p percentile from 0 to 100
+	 * @return WAR at that percentile
+	 * @throws IllegalArgumentException if p is outside 0 to 100
+	 * @throws IllegalStateException if the index is empty
+	 */
+	public int percentile(double p) throws IllegalArgumentException, IllegalStateException {
+		if (!(p >= 0 && p <= 100)) {
+			throw new IllegalArgumentException("Percentile must be from 0 to 100!");
+		}
+		int n = size();
+		if (n == 0) {
+			throw new IllegalStateException("RankingIndex is empty!");
+		}
+		// rank counted from the lowest WAR, then turned into a position from the highest
+		int fromBottom = Math.max(1, (int) Math.ceil(p / 100 * n));
+		return playerAt(n - fromBottom + 1).getWAR();
+	}
+
+	/**
+	 * Returns whether node a comes before node b: greater ranking key first, then earlier added
+	 * first
+	 *
+	 * @param a
+	 * @param b
+	 * @return true if a is ranked ahead of b
+	 */
+	private static boolean before(Node a, Node b) {
+		return a.key > b.key || (a.key == b.key && a.sequence < b.sequence);
+	}
+
+	/**
+	 * Returns the size of a subtree
+	 *
+	 * @param node root of the subtree, may be null
+	 * @return number of nodes
+	 */
+	private static int count(Node node) {
+		return node == null ? 0 : node.count;
+	}
+
+	/**
+	 * Recomputes a node's subtree size from its children
+	 *
+	 * @param node to update
+	 */
+	private static void recount(Node node) {
+		node.count = count(node.left) + count(node.right) + 1;
+	}
+
+	/**
+	 * Inserts a node into a subtree
+	 *
+	 * @param tree root of the subtree
+	 * @param node to insert
+	 * @return new root of the subtree
+	 */
+	private Node insert(Node tree, Node node) {
+		if (tree == null) {
+			return node;
+		}
+		if (node.priority > tree.priority) {
+			split(tree, node);
+			node.left = splitBefore;
+			node.right = splitAfter;
+			recount(node);
+			return node;
+		}
+		if (before(node, tree)) {
+			tree.left = insert(tree.left, node);
+		} else {
+			tree.right = insert(tree.right, node);
+		}
+		recount(tree);
+		return tree;
+	}
+
+	/**
+	 * Splits a subtree into the nodes before key (splitBefore) and the rest (splitAfter)
+	 *
+	 * @param tree root of the subtree
+	 * @param key node to split around
+	 */
+	private void split(Node tree, Node key) {
+		if (tree == null) {
+			splitBefore = null;
+			splitAfter = null;
+		} else if (before(tree, key)) {
+			split(tree.right, key);
+			tree.right = splitBefore;
+			recount(tree);
+			splitBefore = tree;
+		} else {
+			split(tree.left, key);
+			tree.left = splitAfter;
+			recount(tree);
+			splitAfter = tree;
+		}
+	}
+
+	/**
+	 * Removes a node from a subtree
+	 *
+	 * @param tree root of the subtree, which must contain node
+	 * @param node to remove
+	 * @return new root of the subtree
+	 */
+	private Node delete(Node tree, Node node) {
+		if (tree == node) {
+			return merge(tree.left, tree.right);
+		}
+		if (before(node, tree)) {
+			tree.left = delete(tree.left, node);
+		} else {
+			tree.right = delete(tree.right, node);
+		}
+		recount(tree);
+		return tree;
+	}
+
+	/**
+	 * Joins two subtrees where every node of the first comes before every node of the second
+	 *
+	 * @param first
+	 * @param second
+	 * @return root of the joined tree
+	 */
+	private static Node merge(Node first, Node second) {
+		if (first == null) {
+			return second;
+		}
+		if (second == null) {
+			return first;
+		}
+		if (first.priority > second.priority) {
+			first.right = merge(first.right, second);
+			recount(first);
+			return first;
+		}
+		second.left = merge(first, second.left);
+		recount(second);
+		return second;
+	}
+
+	/**
+	 * Returns the next random node priority (xorshift)
+	 *
+	 * @return priority
+	 */
+	private int nextPriority() {
+		seed ^= seed << 13;
+		seed ^= seed >>> 17;
+		seed ^= seed << 5;
+		return seed;
+	}
+}
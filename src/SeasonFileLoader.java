@@ -0,0 +1,345 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * @author Connor Flint
+ *
+ * Non-interactive loader that streams a season stats file into a QueueWAR. Each line holds
+ * name, goals, assists and penalties separated by commas or tabs, for example:
+ *
+ *     Sidney Crosby,44,41,16
+ *
+ * The file is read through a FileChannel in large chunks and the numbers are parsed straight
+ * from the bytes. Names are looked up in a NameDictionary straight from the bytes too, so a name
+ * seen before (in this file or an earlier season's) builds no String and every Player with that
+ * name shares one instance. Players are handed to the queue in batches with QueueWAR.addAll.
+ * A header line is skipped if its numbers don't parse, and any other malformed row is counted
+ * and skipped instead of stopping the load.
+ *
+ * An IndexedQueueWAR holds one player per name, so when loading into one, a row whose name is
+ * already queued replaces that player, the same way QueueWARServer's ADD command does. A name
+ * repeated in a file therefore keeps its last row.
+ */
+public class SeasonFileLoader {
+	public static final int DEFAULT_BATCH_SIZE = 4096;
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private final QueueWAR queue;
+	private final NameDictionary names;
+	private final int batchSize;
+	private final Player[] batch;
+	private int batchCount;
+
+	private long rowsLoaded;
+	private long rowsSkipped;
+	private long elapsedNanos;
+
+	/**
+	 * Creates a loader that adds players to the given queue using the default batch size
+	 *
+	 * @param queue to load players into
+	 */
+	public SeasonFileLoader(QueueWAR queue) {
+		this(queue, DEFAULT_BATCH_SIZE);
+	}
+
+	/**
+	 * Creates a loader that adds players to the given queue
+	 *
+	 * @param queue to load players into
+	 * @param batchSize number of players handed to the queue at once
+	 * @throws NullPointerException if queue is null
+	 * @throws IllegalArgumentException if batchSize is less than 1
+	 */
+	public SeasonFileLoader(QueueWAR queue, int batchSize) throws NullPointerException,
+	IllegalArgumentException {
+		this(queue, batchSize, new NameDictionary());
+	}
+
+	/**
+	 * Creates a loader that adds players to the given queue and shares a name dictionary, for
+	 * example with other loaders reading more seasons of the same league
+	 *
+	 * @param queue to load players into
+	 * @param batchSize number of players handed to the queue at once
+	 * @param names dictionary to intern player names in
+	 * @throws NullPointerException if queue or names is null
+	 * @throws IllegalArgumentException if batchSize is less than 1
+	 */
+	public SeasonFileLoader(QueueWAR queue, int batchSize, NameDictionary names)
+			throws NullPointerException, IllegalArgumentException {
+		if (queue == null || names == null) {
+			throw new NullPointerException("Queue and names can't be null!");
+		}
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("Batch size must be at least 1!");
+		}
+		this.queue = queue;
+		this.names = names;
+		this.batchSize = batchSize;
+		this.batch = new Player[batchSize];
+	}
+
+	/**
+	 * Streams every row of the given file into the queue. A player only counts as loaded once
+	 * the queue has accepted its batch; if the queue rejects a batch, that batch's players are
+	 * dropped and the exception is thrown.
+	 *
+	 * @param path of the stats file
+	 * @return number of players loaded from this file
+	 * @throws IOException if the file can't be read or a line is longer than the read buffer
+	 * @throws RuntimeException if the queue rejects a batch, for example a fixed-capacity queue
+	 *                          that is full
+	 */
+	public long load(Path path) throws IOException {
+		long start = System.nanoTime();
+		long loadedBefore = rowsLoaded;
+
+		try {
+			try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+				ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+				byte[] bytes = buffer.array();
+				boolean firstLine = true;
+				boolean endOfFile = false;
+
+				while (!endOfFile) {
+					endOfFile = channel.read(buffer) < 0;
+					int limit = buffer.position();
+					int lineStart = 0;
+
+					for (int i = 0; i < limit; i++) {
+						if (bytes[i] == '\n') {
+							parseLine(bytes, lineStart, i, firstLine);
+							firstLine = false;
+							lineStart = i + 1;
+						}
+					}
+					if (endOfFile) {
+						if (lineStart < limit) {
+							parseLine(bytes, lineStart, limit, firstLine);
+						}
+					} else {
+						if (lineStart == 0 && limit == bytes.length) {
+							throw new IOException("Line is longer than " + BUFFER_SIZE + " bytes");
+						}
+						// move the unfinished line to the front and read more after it
+						System.arraycopy(bytes, lineStart, bytes, 0, limit - lineStart);
+						buffer.position(limit - lineStart);
+					}
+				}
+			} catch (IOException | RuntimeException e) {
+				// keep the rows read before the failure, without letting the flush hide it
+				try {
+					flush();
+				} catch (RuntimeException suppressed) {
+					e.addSuppressed(suppressed);
+				}
+				throw e;
+			}
+			flush();
+		} finally {
+			elapsedNanos += System.nanoTime() - start;
+		}
+
+		return rowsLoaded - loadedBefore;
+	}
+
+	/**
+	 * Parses one line of the file and adds its player to the current batch
+	 *
+	 * @param bytes holding the line
+	 * @param from index of the first byte of the line
+	 * @param to index just past the last byte of the line
+	 * @param header true if this could be a header line
+	 */
+	private void parseLine(byte[] bytes, int from, int to, boolean header) {
+		if (to > from && bytes[to - 1] == '\r') {
+			to--;
+		}
+		if (to == from) {
+			return;
+		}
+
+		int nameEnd = nextDelimiter(bytes, from, to);
+		int goalsEnd = nextDelimiter(bytes, nameEnd + 1, to);
+		int assistsEnd = nextDelimiter(bytes, goalsEnd + 1, to);
+		if (assistsEnd >= to) {
+			if (!header) {
+				rowsSkipped++;
+			}
+			return;
+		}
+
+		Player player;
+		try {
+			int goals = parseInt(bytes, nameEnd + 1, goalsEnd);
+			int assists = parseInt(bytes, goalsEnd + 1, assistsEnd);
+			int penalties = parseInt(bytes, assistsEnd + 1, to);
+			player = new Player(internName(bytes, from, nameEnd), goals, assists, penalties);
+		} catch (IllegalArgumentException e) {
+			// NumberFormatException from a header or bad row, or negative stats
+			if (!header) {
+				rowsSkipped++;
+			}
+			return;
+		}
+
+		batch[batchCount++] = player;
+		if (batchCount == batchSize) {
+			flush();
+		}
+	}
+
+	/**
+	 * Looks up a name in the dictionary, trimming spaces and control characters the way
+	 * String.trim does
+	 *
+	 * @param bytes holding the name
+	 * @param from index of the first byte
+	 * @param to index just past the last byte
+	 * @return shared String for the name
+	 */
+	private String internName(byte[] bytes, int from, int to) {
+		while (from < to && (bytes[from] & 0xFF) <= ' ') {
+			from++;
+		}
+		while (to > from && (bytes[to - 1] & 0xFF) <= ' ') {
+			to--;
+		}
+		return names.nameOf(names.intern(bytes, from, to));
+	}
+
+	/**
+	 * Hands the current batch to the queue and counts its rows as loaded. If an IndexedQueueWAR
+	 * rejects the batch over a repeated name, its players are added one at a time instead, each
+	 * replacing a queued player with the same name. The batch is emptied even if the queue
+	 * rejects it, so the same rows aren't offered again.
+	 */
+	private void flush() {
+		if (batchCount == 0) {
+			return;
+		}
+		try {
+			queue.addAll(batchCount == batchSize ? batch : Arrays.copyOf(batch, batchCount));
+			rowsLoaded += batchCount;
+		} catch (IllegalArgumentException e) {
+			if (!(queue instanceof IndexedQueueWAR)) {
+				throw e;
+			}
+			IndexedQueueWAR indexed = (IndexedQueueWAR) queue;
+			for (int i = 0; i < batchCount; i++) {
+				indexed.removePlayer(batch[i].getName());
+				indexed.addNewPlayer(batch[i]);
+				rowsLoaded++;
+			}
+		} finally {
+			Arrays.fill(batch, 0, batchCount, null);
+			batchCount = 0;
+		}
+	}
+
+	/**
+	 * Finds the next comma or tab
+	 *
+	 * @param bytes to search
+	 * @param from index to start at
+	 * @param to index to stop at
+	 * @return index of the delimiter, or to if there isn't one
+	 */
+	private static int nextDelimiter(byte[] bytes, int from, int to) {
+		for (int i = from; i < to; i++) {
+			if (bytes[i] == ',' || bytes[i] == '\t') {
+				return i;
+			}
+		}
+		return to;
+	}
+
+	/**
+	 * Parses a decimal integer straight from bytes, ignoring surrounding spaces
+	 *
+	 * @param bytes holding the number
+	 * @param from index of the first byte
+	 * @param to index just past the last byte
+	 * @return parsed value
+	 * @throws NumberFormatException if the bytes aren't a valid int
+	 */
+	static int parseInt(byte[] bytes, int from, int to) throws NumberFormatException {
+		while (from < to && bytes[from] == ' ') {
+			from++;
+		}
+		while (to > from && bytes[to - 1] == ' ') {
+			to--;
+		}
+		boolean negative = from < to && bytes[from] == '-';
+		if (negative) {
+			from++;
+		}
+		if (from == to) {
+			throw new NumberFormatException("Missing number");
+		}
+
+		// accumulate negatively so Integer.MIN_VALUE parses without overflowing
+		int result = 0;
+		for (int i = from; i < to; i++) {
+			int digit = bytes[i] - '0';
+			if (digit < 0 || digit > 9) {
+				throw new NumberFormatException("Not a digit");
+			}
+			if (result < (Integer.MIN_VALUE + digit) / 10) {
+				throw new NumberFormatException("Number is too large");
+			}
+			result = result * 10 - digit;
+		}
+		if (negative) {
+			return result;
+		}
+		if (result == Integer.MIN_VALUE) {
+			throw new NumberFormatException("Number is too large");
+		}
+		return -result;
+	}
+
+	/**
+	 * Returns the dictionary player names are interned in
+	 *
+	 * @return name dictionary
+	 */
+	public NameDictionary getNameDictionary() {
+		return names;
+	}
+
+	/**
+	 * Returns the number of players loaded so far
+	 *
+	 * @return rows loaded
+	 */
+	public long getRowsLoaded() {
+		return rowsLoaded;
+	}
+
+	/**
+	 * Returns the number of malformed rows skipped so far
+	 *
+	 * @return rows skipped
+	 */
+	public long getRowsSkipped() {
+		return rowsSkipped;
+	}
+
+	/**
+	 * Returns how many rows per second have been loaded across every call to load
+	 *
+	 * @return rows per second
+	 */
+	public double getRowsPerSecond() {
+		if (elapsedNanos == 0) {
+			return 0;
+		}
+		return rowsLoaded / (elapsedNanos / 1_000_000_000.0);
+	}
+}
@@ -0,0 +1,208 @@
+import java.util.Arrays;
+
+/**
+ * @author Connor Flint
+ *
+ * StatColumns holds season stat lines for many players as parallel primitive columns, one int[]
+ * per stat, instead of one object per player. A WARModel can then score a whole league with a
+ * simple loop over the columns, which the JIT compiles to SIMD instructions, and re-scoring after
+ * a model change never has to touch a Player object. Row i of every column belongs to the same
+ * player.
+ */
+public class StatColumns {
+	private static final int DEFAULT_CAPACITY = 16;
+
+	private String[] names;
+	private int[] goals;
+	private int[] assists;
+	private int[] penalties;
+	private int[] plusMinus;
+	private int[] timeOnIce; // minutes
+	private int size;
+
+	/**
+	 * Creates empty StatColumns with the default capacity
+	 */
+	public StatColumns() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Creates empty StatColumns
+	 *
+	 * @param capacity number of rows to allocate up front
+	 * @throws IllegalArgumentException if capacity is negative
+	 */
+	public StatColumns(int capacity) throws IllegalArgumentException {
+		if (capacity < 0) {
+			throw new IllegalArgumentException("Capacity can't be less than 0!");
+		}
+		names = new String[capacity];
+		goals = new int[capacity];
+		assists = new int[capacity];
+		penalties = new int[capacity];
+		plusMinus = new int[capacity];
+		timeOnIce = new int[capacity];
+	}
+
+	/**
+	 * Adds one player's stat line
+	 *
+	 * @param name of player
+	 * @param goals number of goals
+	 * @param assists number of assists
+	 * @param penalties number of penalties
+	 * @param plusMinus goal differential while on the ice, may be negative
+	 * @param timeOnIce minutes played
+	 * @return row the stat line was stored in
+	 * @throws NullPointerException if name is null
+	 * @throws IllegalArgumentException if goals, assists, penalties, or timeOnIce is less than 0
+	 */
+	public int add(String name, int goals, int assists, int penalties, int plusMinus,
+			int timeOnIce) throws NullPointerException, IllegalArgumentException {
+		if (name == null) {
+			throw new NullPointerException("Name can't be null!");
+		}
+		checkStats(goals, assists, penalties, timeOnIce);
+		if (size == names.length) {
+			grow();
+		}
+		names[size] = name;
+		this.goals[size] = goals;
+		this.assists[size] = assists;
+		this.penalties[size] = penalties;
+		this.plusMinus[size] = plusMinus;
+		this.timeOnIce[size] = timeOnIce;
+		return size++;
+	}
+
+	/**
+	 * Returns the number of rows
+	 *
+	 * @return size
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the name in a row
+	 *
+	 * @param row from 0 to size() - 1
+	 * @return name of player
+	 * @throws IndexOutOfBoundsException if row is out of range
+	 */
+	public String getName(int row) throws IndexOutOfBoundsException {
+		if (row < 0 || row >= size) {
+			throw new IndexOutOfBoundsException("Row " + row + " is out of range!");
+		}
+		return names[row];
+	}
+
+	/**
+	 * Returns the goals column. The array is the backing storage, not a copy, and may be longer
+	 * than size(); only the first size() entries are rows.
+	 *
+	 * @return goals column
+	 */
+	public int[] getGoals() {
+		return goals;
+	}
+
+	/**
+	 * Returns the assists column, see getGoals
+	 *
+	 * @return assists column
+	 */
+	public int[] getAssists() {
+		return assists;
+	}
+
+	/**
+	 * Returns the penalties column, see getGoals
+	 *
+	 * @return penalties column
+	 */
+	public int[] getPenalties() {
+		return penalties;
+	}
+
+	/**
+	 * Returns the plus/minus column, see getGoals
+	 *
+	 * @return plus/minus column
+	 */
+	public int[] getPlusMinus() {
+		return plusMinus;
+	}
+
+	/**
+	 * Returns the time on ice column in minutes, see getGoals
+	 *
+	 * @return time on ice column
+	 */
+	public int[] getTimeOnIce() {
+		return timeOnIce;
+	}
+
+	/**
+	 * Scores every row with a model and creates one Player per row, ready for
+	 * QueueWAR.fromArray or addAll
+	 *
+	 * @param model to score with
+	 * @return players in row order
+	 * @throws NullPointerException if model is null
+	 */
+	public Player[] toPlayers(WARModel model) throws NullPointerException {
+		if (model == null) {
+			throw new NullPointerException("Model can't be null!");
+		}
+		int[] war = new int[size];
+		model.calculateAll(this, war);
+		Player[] players = new Player[size];
+		for (int i = 0; i < size; i++) {
+			players[i] = new Player(names[i], war[i]);
+		}
+		return players;
+	}
+
+	/**
+	 * Checks that a stat line's counts are valid, for stores that keep stat lines in their own
+	 * columns
+	 *
+	 * @param goals number of goals
+	 * @param assists number of assists
+	 * @param penalties number of penalties
+	 * @param timeOnIce minutes played
+	 * @throws IllegalArgumentException if goals, assists, penalties, or timeOnIce is less than 0
+	 */
+	static void checkStats(int goals, int assists, int penalties, int timeOnIce)
+			throws IllegalArgumentException {
+		if (goals < 0 || assists < 0 || penalties < 0) {
+			throw new IllegalArgumentException(
+					"Goals, assists, and penalties can't be less than 0!");
+		}
+		if (timeOnIce < 0) {
+			throw new IllegalArgumentException("Time on ice can't be less than 0!");
+		}
+	}
+
+	/**
+	 * Grows every column by half
+	 *
+	 * @throws IllegalStateException if the columns are already as large as an array can be
+	 */
+	private void grow() throws IllegalStateException {
+		if (names.length >= QueueWAR.MAX_CAPACITY) {
+			throw new IllegalStateException("StatColumns can't grow any larger!");
+		}
+		int capacity = (int) Math.min(QueueWAR.MAX_CAPACITY,
+				Math.max(DEFAULT_CAPACITY, names.length + (long) names.length / 2));
+		names = Arrays.copyOf(names, capacity);
+		goals = Arrays.copyOf(goals, capacity);
+		assists = Arrays.copyOf(assists, capacity);
+		penalties = Arrays.copyOf(penalties, capacity);
+		plusMinus = Arrays.copyOf(plusMinus, capacity);
+		timeOnIce = Arrays.copyOf(timeOnIce, capacity);
+	}
+}
@@ -0,0 +1,162 @@
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * @author Connor Flint
+ *
+ * TopKLeaderboard keeps only the K players with the highest WAR out of any number offered to
+ * it. Internally it is the same array heap as QueueWAR turned upside down: a min-heap of at most
+ * K players whose root is the lowest WAR still on the leaderboard. A new player only gets in by
+ * beating that root, so a stream of n players takes O(n log K) time and O(K) memory.
+ *
+ * Players are compared by their rank key (see Player), so WAR ties are broken by more goals,
+ * then fewer penalties, then earlier creation, the same order QueueWAR ranks them in. A player
+ * only replaces the lowest one on a full leaderboard if its whole key is greater; one whose key
+ * is equal stays out. Creation order, not the order players are offered in, decides the last
+ * tie, and only within the limits of the sequence Player describes.
+ */
+public class TopKLeaderboard {
+	private final Player[] array; // zero-indexed min-heap
+	private int size;
+
+	/**
+	 * Creates an empty leaderboard
+	 *
+	 * @param k number of players to keep
+	 * @throws IllegalArgumentException if k is less than 1
+	 */
+	public TopKLeaderboard(int k) throws IllegalArgumentException {
+		if (k < 1) {
+			throw new IllegalArgumentException("K must be at least 1!");
+		}
+		this.array = new Player[k];
+	}
+
+	/**
+	 * Offers a player to the leaderboard
+	 *
+	 * @param player to offer
+	 * @return true if the player is now on the leaderboard
+	 * @throws NullPointerException if player is null
+	 */
+	public boolean offer(Player player) throws NullPointerException {
+		if (player == null) {
+			throw new NullPointerException("Player can't be null!");
+		}
+		if (size < array.length) {
+			array[size] = player;
+			size += 1;
+			siftUp(size - 1);
+			return true;
+		}
+		if (player.rankKey <= array[0].rankKey) {
+			return false;
+		}
+		array[0] = player;
+		siftDown(0);
+		return true;
+	}
+
+	/**
+	 * Offers every player in the given array to the leaderboard
+	 *
+	 * @param players to offer
+	 * @throws NullPointerException if players or any player in it is null
+	 */
+	public void offerAll(Player[] players) throws NullPointerException {
+		if (players == null) {
+			throw new NullPointerException("Players can't be null!");
+		}
+		for (int i = 0; i < players.length; i++) {
+			offer(players[i]);
+		}
+	}
+
+	/**
+	 * Returns the players on the leaderboard from highest to lowest rank key. The leaderboard
+	 * itself isn't changed.
+	 *
+	 * @return sorted copy of the leaderboard
+	 */
+	public Player[] leaderboard() {
+		Player[] sorted = Arrays.copyOf(array, size);
+		Arrays.sort(sorted, Collections.reverseOrder());
+		return sorted;
+	}
+
+	/**
+	 * Returns the player with the lowest WAR still on the leaderboard, which a new player has to
+	 * beat once the leaderboard is full
+	 *
+	 * @return lowest player on the leaderboard
+	 * @throws IllegalStateException if the leaderboard is empty
+	 */
+	public Player checkLowestPlayer() throws IllegalStateException {
+		if (size == 0) {
+			throw new IllegalStateException("TopKLeaderboard is empty!");
+		}
+		return array[0];
+	}
+
+	/**
+	 * Returns the number of players currently on the leaderboard
+	 *
+	 * @return size of the leaderboard
+	 */
+	public int checkSize() {
+		return size;
+	}
+
+	/**
+	 * Returns the most players the leaderboard will keep
+	 *
+	 * @return K
+	 */
+	public int getK() {
+		return array.length;
+	}
+
+	/**
+	 * Moves the player at index up while it is lower than its parent
+	 *
+	 * @param index to start
+	 */
+	private void siftUp(int index) {
+		Player moving = array[index];
+		while (index > 0) {
+			int parentIndex = QueueWAR.parentOf(index);
+			Player parent = array[parentIndex];
+			if (moving.rankKey >= parent.rankKey) {
+				break;
+			}
+			array[index] = parent;
+			index = parentIndex;
+		}
+		array[index] = moving;
+	}
+
+	/**
+	 * Moves the player at index down while either child is lower
+	 *
+	 * @param index to start
+	 */
+	private void siftDown(int index) {
+		Player moving = array[index];
+		int firstLeaf = size >>> 1;
+		while (index < firstLeaf) {
+			int childIndex = QueueWAR.leftChildOf(index);
+			Player lowestChild = array[childIndex];
+			int rightIndex = childIndex + 1;
+			if (rightIndex < size && array[rightIndex].rankKey < lowestChild.rankKey) {
+				childIndex = rightIndex;
+				lowestChild = array[rightIndex];
+			}
+			if (moving.rankKey <= lowestChild.rankKey) {
+				break;
+			}
+			array[index] = lowestChild;
+			index = childIndex;
+		}
+		array[index] = moving;
+	}
+}
@@ -0,0 +1,43 @@
+/**
+ * @author Connor Flint
+ *
+ * A WARModel turns a player's stat line into a WAR value. calculateWAR scores one row of a
+ * StatColumns; calculateAll scores every row at once and is what re-scoring a league should use,
+ * since an implementation can override it with a tight loop over the primitive columns.
+ */
+public interface WARModel {
+	/**
+	 * The original model, goals + assists - penalties, matching Player.calculateWAR
+	 */
+	WARModel STANDARD = new WeightedWARModel(1, 1, 1, 0, 0);
+
+	/**
+	 * Calculates the WAR of one row
+	 *
+	 * @param stats columns to read
+	 * @param row from 0 to stats.size() - 1
+	 * @return WAR of that row
+	 */
+	int calculateWAR(StatColumns stats, int row);
+
+	/**
+	 * Calculates the WAR of every row, writing row i's WAR to war[i]
+	 *
+	 * @param stats columns to read
+	 * @param war array to write, at least stats.size() long
+	 * @throws NullPointerException if stats or war is null
+	 * @throws IllegalArgumentException if war is shorter than stats.size()
+	 */
+	default void calculateAll(StatColumns stats, int[] war) throws NullPointerException,
+	IllegalArgumentException {
+		if (stats == null || war == null) {
+			throw new NullPointerException("Stats and war can't be null!");
+		}
+		if (war.length < stats.size()) {
+			throw new IllegalArgumentException("War array is shorter than the number of rows!");
+		}
+		for (int i = 0; i < stats.size(); i++) {
+			war[i] = calculateWAR(stats, i);
+		}
+	}
+}
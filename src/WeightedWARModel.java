@@ -0,0 +1,149 @@
+/**
+ * @author Connor Flint
+ *
+ * WeightedWARModel scores a stat line as a weighted sum: goals, assists, plus/minus and time on
+ * ice add to WAR, penalties subtract from it. Weights are stored as fixed-point longs with
+ * FRACTION_BITS bits after the binary point, so the batch loop is only multiplies, adds and one
+ * shift per row, with no branch or call the JIT would have to keep per row. The weighted sum is
+ * rounded down to a whole WAR. Fixed point holds a weight such as 0.002 as the nearest multiple of
+ * 2^-FRACTION_BITS, here 0.0019989, so a sum that would be a whole number in decimal can land just
+ * below it and round down to the one below.
+ *
+ * A weight is only accepted if fixed point holds it to within WEIGHT_TOLERANCE of itself, so a
+ * small weight such as 0.001 per minute on ice is kept rather than rounded away; weights smaller
+ * than about 0.0005 are rejected. Sums are accumulated in longs, and the constructor checks that
+ * no int stat line can overflow them: the magnitudes of the weights must add up to at most
+ * MAX_TOTAL_WEIGHT. A row whose WAR doesn't fit in an int throws ArithmeticException instead of
+ * wrapping around.
+ *
+ * Position isn't an input: StatColumns has no position column, so position-dependent weights
+ * are applied by keeping each position's rows in their own StatColumns and scoring them with
+ * that position's model.
+ */
+public class WeightedWARModel implements WARModel {
+	public static final int FRACTION_BITS = 20;
+	public static final double WEIGHT_TOLERANCE = 0.001; // largest relative error of a weight
+	// the largest stat magnitude, 2^31, times the total scaled weight must fit in a long
+	public static final double MAX_TOTAL_WEIGHT = (double) (Long.MAX_VALUE >> 31 >> FRACTION_BITS);
+	private static final double SCALE = 1 << FRACTION_BITS;
+
+	// weights scaled by 2^FRACTION_BITS
+	private final long goalWeight;
+	private final long assistWeight;
+	private final long penaltyWeight;
+	private final long plusMinusWeight;
+	private final long timeOnIceWeight;
+
+	/**
+	 * Creates a weighted model
+	 *
+	 * @param goalWeight WAR per goal
+	 * @param assistWeight WAR per assist
+	 * @param penaltyWeight WAR subtracted per penalty
+	 * @param plusMinusWeight WAR per point of plus/minus
+	 * @param timeOnIceWeight WAR per minute on ice
+	 * @throws IllegalArgumentException if a weight isn't a number, can't be held in fixed point to
+	 *                                  within WEIGHT_TOLERANCE, or the magnitudes of the weights
+	 *                                  add up to more than MAX_TOTAL_WEIGHT
+	 */
+	public WeightedWARModel(double goalWeight, double assistWeight, double penaltyWeight,
+			double plusMinusWeight, double timeOnIceWeight) throws IllegalArgumentException {
+		double total = Math.abs(goalWeight) + Math.abs(assistWeight) + Math.abs(penaltyWeight)
+				+ Math.abs(plusMinusWeight) + Math.abs(timeOnIceWeight);
+		if (!(total <= MAX_TOTAL_WEIGHT)) {
+			throw new IllegalArgumentException("Weights must be numbers whose magnitudes add up to "
+					+ "at most " + MAX_TOTAL_WEIGHT + "!");
+		}
+		this.goalWeight = toFixed(goalWeight);
+		this.assistWeight = toFixed(assistWeight);
+		this.penaltyWeight = toFixed(penaltyWeight);
+		this.plusMinusWeight = toFixed(plusMinusWeight);
+		this.timeOnIceWeight = toFixed(timeOnIceWeight);
+	}
+
+	/**
+	 * Converts a weight to fixed point
+	 *
+	 * @param weight to convert, a number no larger than MAX_TOTAL_WEIGHT
+	 * @return weight scaled by 2^FRACTION_BITS
+	 * @throws IllegalArgumentException if fixed point can't hold weight to within
+	 *                                  WEIGHT_TOLERANCE
+	 */
+	private static long toFixed(double weight) throws IllegalArgumentException {
+		long fixed = Math.round(weight * SCALE);
+		if (Math.abs(fixed / SCALE - weight) > WEIGHT_TOLERANCE * Math.abs(weight)) {
+			throw new IllegalArgumentException("Weight " + weight + " is too small to be held to "
+					+ "within " + WEIGHT_TOLERANCE * 100 + "%!");
+		}
+		return fixed;
+	}
+
+	/**
+	 * Calculates the WAR of one row
+	 *
+	 * @param stats columns to read
+	 * @param row from 0 to stats.size() - 1
+	 * @return WAR of that row
+	 * @throws IndexOutOfBoundsException if row is out of range
+	 * @throws ArithmeticException if the row's WAR doesn't fit in an int
+	 */
+	@Override
+	public int calculateWAR(StatColumns stats, int row) throws IndexOutOfBoundsException,
+	ArithmeticException {
+		if (row < 0 || row >= stats.size()) {
+			throw new IndexOutOfBoundsException("Row " + row + " is out of range!");
+		}
+		long war = (stats.getGoals()[row] * goalWeight
+				+ stats.getAssists()[row] * assistWeight
+				- stats.getPenalties()[row] * penaltyWeight
+				+ stats.getPlusMinus()[row] * plusMinusWeight
+				+ stats.getTimeOnIce()[row] * timeOnIceWeight) >> FRACTION_BITS;
+		if (war != (int) war) {
+			throw new ArithmeticException("WAR of row " + row + " doesn't fit in an int!");
+		}
+		return (int) war;
+	}
+
+	/**
+	 * Calculates the WAR of every row, writing row i's WAR to war[i]
+	 *
+	 * @param stats columns to read
+	 * @param war array to write, at least stats.size() long
+	 * @throws NullPointerException if stats or war is null
+	 * @throws IllegalArgumentException if war is shorter than stats.size()
+	 * @throws ArithmeticException if a row's WAR doesn't fit in an int, after every row has
+	 *                             been written
+	 */
+	@Override
+	public void calculateAll(StatColumns stats, int[] war) throws NullPointerException,
+	IllegalArgumentException, ArithmeticException {
+		if (stats == null || war == null) {
+			throw new NullPointerException("Stats and war can't be null!");
+		}
+		int n = stats.size();
+		if (war.length < n) {
+			throw new IllegalArgumentException("War array is shorter than the number of rows!");
+		}
+		// locals keep the loop free of field loads and calls so it vectorizes
+		int[] goals = stats.getGoals();
+		int[] assists = stats.getAssists();
+		int[] penalties = stats.getPenalties();
+		int[] plusMinus = stats.getPlusMinus();
+		int[] timeOnIce = stats.getTimeOnIce();
+		long wg = goalWeight;
+		long wa = assistWeight;
+		long wp = penaltyWeight;
+		long wpm = plusMinusWeight;
+		long wt = timeOnIceWeight;
+		long overflow = 0; // nonzero once a row's WAR doesn't fit in an int; no branch per row
+		for (int i = 0; i < n; i++) {
+			long sum = (goals[i] * wg + assists[i] * wa - penalties[i] * wp + plusMinus[i] * wpm
+					+ timeOnIce[i] * wt) >> FRACTION_BITS;
+			war[i] = (int) sum;
+			overflow |= sum - (int) sum;
+		}
+		if (overflow != 0) {
+			throw new ArithmeticException("WAR of a row doesn't fit in an int!");
+		}
+	}
+}